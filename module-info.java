@@ -7,5 +7,6 @@
 module hu.zza.clim {
   requires transitive com.google.gson;
   exports hu.zza.clim;
+  exports hu.zza.clim.annotation;
   exports hu.zza.clim.parameter;
 }
\ No newline at end of file
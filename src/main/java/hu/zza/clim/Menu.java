@@ -23,92 +23,37 @@
 
 package hu.zza.clim;
 
-import static hu.zza.clim.menu.Message.GNU_GPL;
-import static hu.zza.clim.menu.Message.INVALID_MENU_POSITION;
-import static hu.zza.clim.menu.Message.PROCESSING_FAILED;
-import static hu.zza.clim.menu.Message.SHORT_LICENSE;
-
 import hu.zza.clim.menu.MenuEntry.Leaf;
 import hu.zza.clim.menu.MenuEntry.Node;
-import hu.zza.clim.menu.MenuStructure;
-import hu.zza.clim.menu.NodePosition;
-import hu.zza.clim.menu.Position;
-import hu.zza.clim.menu.ProcessedInput;
-import hu.zza.clim.menu.Util;
-import hu.zza.clim.menu.component.in.InputProcessorService;
-import hu.zza.clim.menu.component.in.ParametricInputProcessor;
-import hu.zza.clim.menu.component.ui.HeaderService;
-import hu.zza.clim.menu.component.ui.UserInterfaceService;
+import hu.zza.clim.menu.SearchHit;
 import hu.zza.clim.parameter.ParameterMatcher;
-import java.util.ArrayDeque;
-import java.util.Arrays;
-import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Represents the menu that the user can interact with: navigation, function calls, etc.
  *
+ * <p>A menu is a {@link MenuSession} of its own {@link MenuDefinition}. For serving many users,
+ * share the definition (see {@link MenuBuilder#buildDefinition()}) and open a session for each.
+ *
  * @since 0.1
  */
 public final class Menu {
 
-  private static final List<String> licenseCommands =
-      List.of(
-          "license",
-          "licence",
-          "warranty",
-          "liability",
-          "about license",
-          "about licence",
-          "about warranty",
-          "about liability",
-          "show license",
-          "show licence",
-          "show warranty",
-          "show liability");
-
-  private final MenuStructure menuStructure;
-  private final UserInterfaceService userInterfaceService;
-  private final InputProcessorService inputProcessorService;
-  private final Map<String, Consumer<String>> fallbackMap = new HashMap<>();
-  private final Deque<NodePosition> positionHistory = new ArrayDeque<>();
-  private NodePosition position;
-  private Position[] options;
-
-  Menu(
-      MenuStructure menuStructure,
-      Map<String, Consumer<String>> fallbackMap,
-      ParameterMatcher parameterMatcher,
-      ClimOption... climOptions) {
-
-    this.menuStructure = menuStructure;
-    this.fallbackMap.putAll(fallbackMap);
-    Map<Class<? extends ClimOption>, ClimOption> optionsMap =
-        ClimOption.getClimOptionMap(climOptions);
-
-    UserInterface ui = (UserInterface) optionsMap.get(UserInterface.class);
-    userInterfaceService = UserInterfaceService.of(ui);
-
-    if (ui == UserInterface.PARAMETRIC) {
-      Util.assertNonNull("parameterMatcher", parameterMatcher);
-      inputProcessorService = new ParametricInputProcessor(parameterMatcher);
-    } else {
-      inputProcessorService = InputProcessorService.of(ui);
-    }
-
-    userInterfaceService.setHeaderService(
-        HeaderService.of((HeaderStyle) optionsMap.get(HeaderStyle.class)));
-
-    position = menuStructure.get(null).select(ProcessedInput.NULL);
-    refreshOptions();
+  private final MenuSession session;
+
+  Menu(MenuDefinition definition) {
+    this.session = definition.newSession();
   }
 
-  private void refreshOptions() {
-    options = menuStructure.get(position).getLinks();
+  /**
+   * Returns the definition of this menu, which can open further sessions.
+   *
+   * @return the {@link MenuDefinition} of this menu
+   * @since 0.3.2
+   */
+  public MenuDefinition getDefinition() {
+    return session.getDefinition();
   }
 
   /**
@@ -118,7 +63,7 @@ public final class Menu {
    * @since 0.3.2
    */
   public String getPosition() {
-    return position.getName();
+    return session.getPosition();
   }
 
   /**
@@ -128,24 +73,12 @@ public final class Menu {
    * @since 0.3.2
    */
   public List<String> getOptions() {
-    return Arrays.stream(options).map(Position::getName).collect(Collectors.toList());
+    return session.getOptions();
   }
 
   /** Prints the available options from the current position of the {@link Menu}. */
   public void listOptions() {
-    refreshOptions();
-    userInterfaceService.printHeaderForCurrentPositionAndHistory(
-        position.getName(), getPositionHistoryAsStringArray());
-    userInterfaceService.printOptionList(getDisplayableOptions());
-    userInterfaceService.printFooter();
-  }
-
-  private String[] getPositionHistoryAsStringArray() {
-    return positionHistory.stream().map(Position::getName).toArray(String[]::new);
-  }
-
-  private List<String> getDisplayableOptions() {
-    return Arrays.stream(options).map(Position::getName).collect(Collectors.toList());
+    session.listOptions();
   }
 
   /**
@@ -165,55 +98,69 @@ public final class Menu {
    *     text, etc.) depends on {@link UserInterface}
    */
   public void chooseOption(String consoleInput) {
-    if (consoleInput == null || consoleInput.isBlank()) {
-      System.out.println();
-    } else if (licenseCommands.contains(consoleInput.toLowerCase())) {
-      printLicense();
-    } else {
-      positionHistory.offerFirst(position);
-      tryToChooseAnOption(consoleInput);
-    }
-    refreshOptions();
+    session.chooseOption(consoleInput);
   }
 
-  /** Prints the full license information about clim. */
-  public void printLicense() {
-    System.out.println(GNU_GPL.getMessage());
+  /**
+   * Same as {@link Menu#chooseOption(String)}, but the {@code consoleInput} is processed without
+   * copying it. So a reused line buffer (like a {@link StringBuilder} or a decoded {@link
+   * java.nio.CharBuffer}) can be passed directly: Only the extracted parameter values are
+   * materialized, and the buffer can be changed after this method returns.
+   *
+   * @param consoleInput the choice of the user, its desired format (single integer, alphanumeric
+   *     text, etc.) depends on {@link UserInterface}
+   * @since 0.3.2
+   */
+  public void chooseOption(CharSequence consoleInput) {
+    session.chooseOption(consoleInput);
   }
 
-  private void tryToChooseAnOption(String input) {
-    try {
-      chooseOptionByProcessedInput(
-          inputProcessorService.processInputRelatedToOptions(input, options));
-    } catch (Exception exception) {
-      positionHistory.pollFirst();
-      fallBack(input, exception);
-    }
+  /**
+   * Same as {@link Menu#chooseOption(String)}, but an asynchronous leaf is not waited for, so the
+   * caller (e.g. the loop reading the input) is not blocked by it. The choices are processed in
+   * order of submission. (See {@link MenuSession#chooseOptionAsync(String)}.)
+   *
+   * @param consoleInput the choice of the user, its desired format (single integer, alphanumeric
+   *     text, etc.) depends on {@link UserInterface}
+   * @return the stage of the name of the position after the choice
+   * @since 0.3.2
+   */
+  public CompletionStage<String> chooseOptionAsync(String consoleInput) {
+    return session.chooseOptionAsync(consoleInput);
   }
 
-  private void chooseOptionByProcessedInput(ProcessedInput processedInput) {
-    Position selected = returnValidatedPositionOrThrow(processedInput.getPosition());
-    position = menuStructure.get(selected).select(processedInput);
+  /**
+   * Jumps to the node named {@code nodeName} by the shortest route from the current position. (See
+   * {@link MenuSession#goTo(String)}.)
+   *
+   * @param nodeName the name of the target node
+   * @throws IllegalArgumentException if there is no such node, or it is not reachable
+   * @since 0.3.2
+   */
+  public void goTo(String nodeName) {
+    session.goTo(nodeName);
   }
 
-  private Position returnValidatedPositionOrThrow(Position position) {
-    refreshOptions();
-    if (Arrays.asList(options).contains(position)) {
-      return position;
-    }
-    throw new IllegalArgumentException(INVALID_MENU_POSITION.getMessage(position.getName()));
+  /**
+   * Searches the entries of the menu by name, tolerating typos. (See {@link
+   * MenuSession#find(String, int)}.)
+   *
+   * @param query the text to search for
+   * @param limit the maximum count of hits (at least 1)
+   * @return the best hits in descending order
+   * @since 0.3.2
+   */
+  public List<SearchHit> find(String query, int limit) {
+    return session.find(query, limit);
   }
 
-  private void fallBack(String input, Exception exception) {
-    if (fallbackMap.containsKey(position.getName())) {
-      fallbackMap.get(position.getName()).accept(input);
-      return;
-    }
-    throw new ClimException(PROCESSING_FAILED.getMessage(input), exception);
+  /** Prints the full license information about clim. */
+  public void printLicense() {
+    session.printLicense();
   }
 
   /** Prints short license information about clim. */
   public void printShortLicense() {
-    System.out.println(SHORT_LICENSE.getMessage());
+    session.printShortLicense();
   }
 }
@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Builder class for {@link Menu}.
@@ -43,7 +44,7 @@ public final class MenuBuilder {
   private static final List<UserInterface> hasParameterMatcherDependency =
       List.of(UserInterface.PARAMETRIC);
 
-  private MenuStructure menuStructure = new MenuStructure();
+  private Supplier<MenuStructure> menuStructureSource = of(new MenuStructure());
   private final Map<String, Consumer<String>> fallbackMap = new HashMap<>();
   private ParameterMatcher parameterMatcher;
   private ClimOption[] climOptions = new ClimOption[0];
@@ -56,9 +57,29 @@ public final class MenuBuilder {
     }
   }
 
+  /**
+   * Builds the shared part of a menu, which can open any count of independent {@link
+   * MenuSession sessions}. (A {@link Menu} built by {@link #build()} is one session of its own
+   * definition.)
+   *
+   * @return a {@link MenuDefinition} object
+   * @since 0.3.2
+   */
+  public MenuDefinition buildDefinition() {
+    try {
+      return buildMenuDefinition();
+    } catch (Exception e) {
+      throw new IllegalArgumentException(INITIALIZATION_FAILED.getMessage(e.getMessage()), e);
+    }
+  }
+
   private Menu buildMenu() {
+    return new Menu(buildMenuDefinition());
+  }
+
+  private MenuDefinition buildMenuDefinition() {
     checkParametersBeforeBuild();
-    return new Menu(menuStructure, fallbackMap, parameterMatcher, climOptions);
+    return new MenuDefinition(menuStructureSource, fallbackMap, parameterMatcher, climOptions);
   }
 
   private void checkParametersBeforeBuild() {
@@ -67,6 +88,8 @@ public final class MenuBuilder {
   }
 
   private void checkMenuStructure() {
+    MenuStructure menuStructure = menuStructureSource.get();
+
     if (menuStructure.isEmpty()) {
       throw new IllegalStateException("'menuStructure' is empty!");
     }
@@ -88,10 +111,28 @@ public final class MenuBuilder {
 
   public MenuBuilder setMenuStructure(MenuStructure menuStructure) {
     Util.assertNonNull("menuStructure", menuStructure);
-    this.menuStructure = menuStructure;
+    this.menuStructureSource = of(menuStructure);
     return this;
   }
 
+  /**
+   * Sets a reloadable structure: The built {@link Menu} switches to its current {@link
+   * MenuStructure} whenever it is reloaded.
+   *
+   * @param menuStructure the reloadable structure to follow
+   * @return this builder
+   * @since 0.3.2
+   */
+  public MenuBuilder setMenuStructure(ReloadableMenuStructure menuStructure) {
+    Util.assertNonNull("menuStructure", menuStructure);
+    this.menuStructureSource = menuStructure;
+    return this;
+  }
+
+  private static Supplier<MenuStructure> of(MenuStructure menuStructure) {
+    return () -> menuStructure;
+  }
+
   public MenuBuilder setFallbackMap(Map<String, Consumer<String>> fallbackMap) {
     Util.assertNonNull("fallbackMap", fallbackMap);
     this.fallbackMap.clear();
@@ -112,7 +153,7 @@ public final class MenuBuilder {
   }
 
   public MenuBuilder clear() {
-    menuStructure = new MenuStructure();
+    menuStructureSource = of(new MenuStructure());
     fallbackMap.clear();
     parameterMatcher = null;
     climOptions = new ClimOption[0];
@@ -0,0 +1,159 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.Util;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line-based client of a {@link MenuServer}: It sends the choices line by line, and reads the
+ * responses up to the {@link MenuServer#PROMPT}. It can be used programmatically (e.g. in tests),
+ * or from the command line:
+ *
+ * <pre>java hu.zza.clim.MenuClient [host] port</pre>
+ *
+ * @since 0.3.2
+ */
+public final class MenuClient implements Closeable {
+  private final Socket socket;
+  private final Reader in;
+  private final Writer out;
+
+  private MenuClient(Socket socket) throws IOException {
+    this.socket = socket;
+    socket.setTcpNoDelay(true);
+    this.in =
+        new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    this.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Connects to the server at the {@code address}.
+   *
+   * @param address the address of the {@link MenuServer}
+   * @return the connected client
+   * @throws IOException if the connection fails
+   */
+  public static MenuClient connect(InetSocketAddress address) throws IOException {
+    Util.assertNonNull("address", address);
+    return new MenuClient(new Socket(address.getAddress(), address.getPort()));
+  }
+
+  /**
+   * Reads the next response of the server (without the prompt). The first one is the initial
+   * options of the session.
+   *
+   * @return the text of the response
+   * @throws EOFException if the server closes the connection before the prompt
+   * @throws IOException if the connection fails
+   */
+  public String readResponse() throws IOException {
+    StringBuilder response = new StringBuilder();
+
+    while (!endsWithPrompt(response)) {
+      int c = in.read();
+      if (c == -1) {
+        throw new EOFException(response.toString());
+      }
+      response.append((char) c);
+    }
+    return response.substring(0, response.length() - MenuServer.PROMPT.length());
+  }
+
+  private static boolean endsWithPrompt(StringBuilder response) {
+    String prompt = MenuServer.PROMPT;
+    int start = response.length() - prompt.length();
+
+    if (start < 0) {
+      return false;
+    }
+    for (int i = 0; i < prompt.length(); i++) {
+      if (response.charAt(start + i) != prompt.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sends the {@code line} as a choice, and reads the response to it.
+   *
+   * @param line the choice, without line break
+   * @return the text of the response
+   * @throws IOException if the connection fails
+   */
+  public String send(String line) throws IOException {
+    Util.assertNonNull("line", line);
+    out.write(line);
+    out.write('\n');
+    out.flush();
+    return readResponse();
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+
+  /**
+   * Connects to a {@link MenuServer}, and relays the lines of the standard input to it, and its
+   * responses to the standard output.
+   *
+   * @param args the host (the loopback interface by default) and the port of the server
+   * @throws IOException if the connection fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: java hu.zza.clim.MenuClient [host] port");
+      System.exit(2);
+    }
+    InetAddress host =
+        args.length == 2 ? InetAddress.getByName(args[0]) : InetAddress.getLoopbackAddress();
+    int port = Integer.parseInt(args[args.length - 1]);
+
+    try (MenuClient client = connect(new InetSocketAddress(host, port));
+        BufferedReader console =
+            new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()))) {
+      System.out.print(client.readResponse() + MenuServer.PROMPT);
+      System.out.flush();
+
+      for (String line = console.readLine(); line != null; line = console.readLine()) {
+        System.out.print(client.send(line) + MenuServer.PROMPT);
+        System.out.flush();
+      }
+    }
+  }
+}
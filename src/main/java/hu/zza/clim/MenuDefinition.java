@@ -0,0 +1,119 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.MenuStructure;
+import hu.zza.clim.menu.Util;
+import hu.zza.clim.menu.component.in.InputProcessorService;
+import hu.zza.clim.menu.component.in.ParametricInputProcessor;
+import hu.zza.clim.menu.component.ui.HeaderService;
+import hu.zza.clim.menu.component.ui.UserInterfaceService;
+import hu.zza.clim.parameter.ParameterMatcher;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The shared, immutable part of a menu: its {@link MenuStructure}, fallback functions, input
+ * processing and user interface. The state of a user (the position and its history) is kept in a
+ * {@link MenuSession}, so one definition can serve any count of concurrent sessions, and a session
+ * costs only a few small objects.
+ *
+ * @since 0.3.2
+ */
+public final class MenuDefinition {
+  private final Supplier<MenuStructure> menuStructureSource;
+  private final Map<String, Consumer<String>> fallbackMap;
+  private final UserInterfaceService userInterfaceService;
+  private final InputProcessorService inputProcessorService;
+
+  MenuDefinition(
+      Supplier<MenuStructure> menuStructureSource,
+      Map<String, Consumer<String>> fallbackMap,
+      ParameterMatcher parameterMatcher,
+      ClimOption... climOptions) {
+
+    this.menuStructureSource = menuStructureSource;
+    this.fallbackMap = Collections.unmodifiableMap(new HashMap<>(fallbackMap));
+    Map<Class<? extends ClimOption>, ClimOption> optionsMap =
+        ClimOption.getClimOptionMap(climOptions);
+
+    UserInterface ui = (UserInterface) optionsMap.get(UserInterface.class);
+    userInterfaceService = UserInterfaceService.of(ui);
+
+    if (ui == UserInterface.PARAMETRIC) {
+      Util.assertNonNull("parameterMatcher", parameterMatcher);
+      inputProcessorService = new ParametricInputProcessor(parameterMatcher);
+    } else {
+      inputProcessorService = InputProcessorService.of(ui);
+    }
+
+    userInterfaceService.setHeaderService(
+        HeaderService.of((HeaderStyle) optionsMap.get(HeaderStyle.class)));
+  }
+
+  /**
+   * Opens a new session at the initial position of the current {@link MenuStructure}. Sessions are
+   * independent of each other. (The methods of a session are synchronized, and its choices are
+   * processed one by one, but a session is meant for one user.)
+   *
+   * @return a new {@link MenuSession}
+   * @since 0.3.2
+   */
+  public MenuSession newSession() {
+    return newSession(System.out);
+  }
+
+  /**
+   * Opens a new session like {@link #newSession()}, which prints to {@code out} instead of {@link
+   * System#out} (e.g. to the connection of a remote user).
+   *
+   * @param out the stream for the output of the session
+   * @return a new {@link MenuSession}
+   * @since 0.3.2
+   */
+  public MenuSession newSession(PrintStream out) {
+    Util.assertNonNull("out", out);
+    return new MenuSession(this, out);
+  }
+
+  MenuStructure getMenuStructure() {
+    return menuStructureSource.get();
+  }
+
+  Consumer<String> getFallback(String positionName) {
+    return fallbackMap.get(positionName);
+  }
+
+  UserInterfaceService getUserInterfaceService() {
+    return userInterfaceService;
+  }
+
+  InputProcessorService getInputProcessorService() {
+    return inputProcessorService;
+  }
+}
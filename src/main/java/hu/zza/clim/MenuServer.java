@@ -0,0 +1,221 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.Util;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves one {@link MenuDefinition} to many concurrent clients over TCP. Every connection gets its
+ * own {@link MenuSession}, which prints to the connection, so a single JVM can host any count of
+ * users instead of one per user.
+ *
+ * <p>The protocol is line-based (UTF-8): The server sends the options, then the {@link #PROMPT}
+ * (without a line break), and every line received is {@link MenuSession#chooseOption(String)
+ * chosen}, followed by the options and the prompt again. A failed choice sends its message instead
+ * of closing the connection. The connection is closed when the client closes its output. (See
+ * {@link MenuClient}.)
+ *
+ * <p>Every connection is served by its own thread from a cached pool of daemon threads, so blocking
+ * leaves do not delay other users. A response is buffered, and sent at once when it is complete.
+ *
+ * @since 0.3.2
+ */
+public final class MenuServer implements Closeable {
+
+  /** The end of every response, so clients can tell where it ends. */
+  public static final String PROMPT = "clim> ";
+
+  private final MenuDefinition definition;
+  private final ServerSocket serverSocket;
+  private final ExecutorService executor;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  private MenuServer(MenuDefinition definition, ServerSocket serverSocket) {
+    this.definition = definition;
+    this.serverSocket = serverSocket;
+
+    AtomicInteger connectionCount = new AtomicInteger();
+    executor =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "clim-session-" + connectionCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    Thread acceptor = new Thread(this::accept, "clim-server-" + serverSocket.getLocalPort());
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Starts serving the {@code definition} on the loopback interface.
+   *
+   * @param definition the shared definition of the menu
+   * @param port the port to listen on, or 0 for any free port (see {@link #getAddress()})
+   * @return the running server
+   * @throws IOException if the port can not be bound
+   * @since 0.3.2
+   */
+  public static MenuServer start(MenuDefinition definition, int port) throws IOException {
+    return start(definition, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Starts serving the {@code definition} on the {@code address}.
+   *
+   * @param definition the shared definition of the menu
+   * @param address the address to listen on
+   * @return the running server
+   * @throws IOException if the address can not be bound
+   * @since 0.3.2
+   */
+  public static MenuServer start(MenuDefinition definition, InetSocketAddress address)
+      throws IOException {
+    Util.assertNonNull(List.of("definition", "address"), definition, address);
+    ServerSocket serverSocket = new ServerSocket();
+    serverSocket.bind(address);
+    return new MenuServer(definition, serverSocket);
+  }
+
+  /**
+   * Returns the address the server listens on.
+   *
+   * @return the local address of the server socket
+   * @since 0.3.2
+   */
+  public InetSocketAddress getAddress() {
+    return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+  }
+
+  /**
+   * Returns the count of the open connections.
+   *
+   * @return the count of the served clients
+   * @since 0.3.2
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /** Stops accepting connections, and closes the open ones. */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket connection : connections) {
+      connection.close();
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * Accepts connections until the server socket is closed. A failure of one connection (e.g. a
+   * socket option which can not be set on a reset connection) closes only that connection.
+   */
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      Socket connection;
+      try {
+        connection = serverSocket.accept();
+      } catch (IOException e) {
+        // The server socket is closed, or this connection could not be accepted.
+        continue;
+      }
+
+      try {
+        connection.setTcpNoDelay(true);
+        connections.add(connection);
+        executor.execute(() -> serve(connection));
+      } catch (IOException | RejectedExecutionException e) {
+        connections.remove(connection);
+        close(connection);
+      }
+    }
+  }
+
+  private static void close(Socket connection) {
+    try {
+      connection.close();
+    } catch (IOException e) {
+      // The connection is dropped anyway.
+    }
+  }
+
+  private void serve(Socket connection) {
+    try (connection;
+        BufferedReader in =
+            new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        PrintStream out =
+            new PrintStream(
+                new BufferedOutputStream(connection.getOutputStream()),
+                false,
+                StandardCharsets.UTF_8)) {
+
+      MenuSession session = definition.newSession(out);
+      respond(session, out);
+
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        try {
+          session.chooseOption(line);
+        } catch (RuntimeException e) {
+          out.println(e.getMessage());
+        }
+        respond(session, out);
+      }
+    } catch (SocketException e) {
+      // The connection is closed by the server or reset by the client.
+    } catch (IOException e) {
+      // The connection is broken, there is nowhere to report it.
+    } finally {
+      connections.remove(connection);
+    }
+  }
+
+  private static void respond(MenuSession session, PrintStream out) {
+    session.listOptions();
+    out.print(PROMPT);
+    out.flush();
+  }
+}
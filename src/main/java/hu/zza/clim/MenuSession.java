@@ -0,0 +1,413 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import static hu.zza.clim.menu.Message.GNU_GPL;
+import static hu.zza.clim.menu.Message.INVALID_MENU_POSITION;
+import static hu.zza.clim.menu.Message.NO_ROUTE;
+import static hu.zza.clim.menu.Message.PROCESSING_FAILED;
+import static hu.zza.clim.menu.Message.SHORT_LICENSE;
+
+import hu.zza.clim.menu.MenuEntry;
+import hu.zza.clim.menu.MenuEntry.Leaf;
+import hu.zza.clim.menu.MenuEntry.Node;
+import hu.zza.clim.menu.MenuStructure;
+import hu.zza.clim.menu.NodePosition;
+import hu.zza.clim.menu.Position;
+import hu.zza.clim.menu.ProcessedInput;
+import hu.zza.clim.menu.SearchHit;
+import hu.zza.clim.menu.Util;
+import hu.zza.clim.menu.component.ui.UserInterfaceService;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The state of one user in a {@link MenuDefinition}: the current position and its history. Every
+ * shared object (the structure, the services, etc.) is held by the definition, and the options are
+ * read from the structure when they are needed, so a session is cheap to create and to keep.
+ *
+ * <p>A session prints to its own {@link PrintStream} (only the leaves and fallbacks print where
+ * they want). Every choice (whether it is {@link #chooseOptionAsync(String) asynchronous} or not)
+ * and every {@link #goTo(String) jump} is queued, so they are processed one by one, in order of
+ * submission. The methods are
+ * synchronized, because asynchronous choices complete on other threads, but a session is meant
+ * for one user.
+ *
+ * @since 0.3.2
+ */
+public final class MenuSession {
+
+  private static final List<String> licenseCommands =
+      List.of(
+          "license",
+          "licence",
+          "warranty",
+          "liability",
+          "about license",
+          "about licence",
+          "about warranty",
+          "about liability",
+          "show license",
+          "show licence",
+          "show warranty",
+          "show liability");
+
+  private final MenuDefinition definition;
+  private final PrintStream out;
+  private final Deque<NodePosition> positionHistory = new ArrayDeque<>(8);
+  private MenuStructure menuStructure;
+  private NodePosition position;
+  private CompletableFuture<String> pendingChoices =
+      CompletableFuture.completedFuture(null);
+
+  MenuSession(MenuDefinition definition, PrintStream out) {
+    this.definition = definition;
+    this.out = out;
+    this.menuStructure = definition.getMenuStructure();
+    this.position = getInitialPosition();
+  }
+
+  /**
+   * Returns the definition of this session.
+   *
+   * @return the {@link MenuDefinition} of this session
+   * @since 0.3.2
+   */
+  public MenuDefinition getDefinition() {
+    return definition;
+  }
+
+  private NodePosition getInitialPosition() {
+    return menuStructure.get(null).select(ProcessedInput.NULL);
+  }
+
+  /**
+   * Returns the options of the current entry. (The links of a lazily expanded node are loaded at
+   * the first visit. If the current entry belongs to an evicted subtree, the session returns to the
+   * initial position.)
+   */
+  private Position[] getCurrentOptions() {
+    MenuEntry menuEntry = menuStructure.get(position);
+
+    if (menuEntry == null) {
+      position = getInitialPosition();
+      menuEntry = menuStructure.get(position);
+    }
+    return menuEntry.getLinks();
+  }
+
+  /**
+   * Switches to the current {@link MenuStructure} of the definition if it has been replaced (e.g.
+   * by a {@link ReloadableMenuStructure}). The positions are looked up by name in the new
+   * structure: The missing ones are dropped from the history, and a missing current position is
+   * replaced by the initial one.
+   */
+  private void updateMenuStructure() {
+    MenuStructure current = definition.getMenuStructure();
+    if (current == menuStructure) {
+      return;
+    }
+    menuStructure = current;
+
+    NodePosition[] history =
+        positionHistory.stream().map(this::findNodePosition).toArray(NodePosition[]::new);
+    positionHistory.clear();
+    Arrays.stream(history).filter(Objects::nonNull).forEach(positionHistory::offerLast);
+
+    position = findNodePosition(position);
+    if (position == null) {
+      position = getInitialPosition();
+    }
+  }
+
+  private NodePosition findNodePosition(NodePosition nodePosition) {
+    Position found = menuStructure.getPosition(nodePosition.getName());
+    return found instanceof NodePosition ? (NodePosition) found : null;
+  }
+
+  /**
+   * Returns with the current position as a String.
+   *
+   * @return current position as String.
+   * @since 0.3.2
+   */
+  public synchronized String getPosition() {
+    updateMenuStructure();
+    getCurrentOptions();
+    return position.getName();
+  }
+
+  /**
+   * Returns with the available options from the current position of the session.
+   *
+   * @return available options as a string list
+   * @since 0.3.2
+   */
+  public synchronized List<String> getOptions() {
+    updateMenuStructure();
+    return Arrays.stream(getCurrentOptions()).map(Position::getName).collect(Collectors.toList());
+  }
+
+  /**
+   * Prints the available options from the current position of the session.
+   *
+   * @since 0.3.2
+   */
+  public synchronized void listOptions() {
+    List<String> options = getOptions();
+    UserInterfaceService userInterfaceService = definition.getUserInterfaceService();
+    userInterfaceService.printHeaderForCurrentPositionAndHistory(
+        out, position.getName(), getPositionHistoryAsStringArray());
+    userInterfaceService.printOptionList(out, options);
+    userInterfaceService.printFooter(out);
+  }
+
+  private String[] getPositionHistoryAsStringArray() {
+    return positionHistory.stream().map(Position::getName).toArray(String[]::new);
+  }
+
+  /**
+   * Choose an option from the {@link #listOptions available ones}. If it is a {@link Node node},
+   * the session navigates to this position. If it is a {@link Leaf leaf}, its function is called,
+   * and according to the result, the session navigates toward. (See {@link
+   * Menu#chooseOption(String)} for the format of {@code consoleInput}.)
+   *
+   * @param consoleInput the choice of the user, its desired format (single integer, alphanumeric
+   *     text, etc.) depends on {@link UserInterface}
+   * @since 0.3.2
+   */
+  public void chooseOption(String consoleInput) {
+    chooseOption((CharSequence) consoleInput);
+  }
+
+  /**
+   * Same as {@link #chooseOption(String)}, but the {@code consoleInput} is processed without
+   * copying it. (See {@link Menu#chooseOption(CharSequence)}.)
+   *
+   * <p>The choice is queued like the {@link #chooseOptionAsync(String) asynchronous} ones, and
+   * this method waits for it (and for the choices queued before it).
+   *
+   * @param consoleInput the choice of the user, its desired format (single integer, alphanumeric
+   *     text, etc.) depends on {@link UserInterface}
+   * @since 0.3.2
+   */
+  public void chooseOption(CharSequence consoleInput) {
+    // The input is not copied: This method returns only after it is processed.
+    await(enqueue(() -> choose(consoleInput)));
+  }
+
+  /**
+   * Same as {@link #chooseOption(String)}, but an {@link Leaf#async asynchronous leaf} is not
+   * waited for: The session navigates when its stage completes. The choices are queued, so every
+   * choice is processed after the previous ones are completed (even if they are submitted
+   * concurrently), and a failed choice does not cancel the next ones.
+   *
+   * @param consoleInput the choice of the user, its desired format (single integer, alphanumeric
+   *     text, etc.) depends on {@link UserInterface}
+   * @return the stage of the name of the position after the choice, which completes exceptionally
+   *     (like {@link #chooseOption(String)} throws) if the choice fails
+   * @since 0.3.2
+   */
+  public CompletionStage<String> chooseOptionAsync(String consoleInput) {
+    return enqueue(() -> choose(consoleInput)).minimalCompletionStage();
+  }
+
+  /**
+   * Appends the step (a choice or a jump) to the queue of this session, which runs it after the
+   * previous ones.
+   */
+  private synchronized CompletableFuture<String> enqueue(
+      Supplier<CompletableFuture<String>> step) {
+    pendingChoices = pendingChoices.handle((name, exception) -> name).thenCompose(e -> step.get());
+    return pendingChoices;
+  }
+
+  /** Waits for the queued step, and throws its failure directly. */
+  private static void await(CompletableFuture<String> step) {
+    try {
+      step.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  private synchronized CompletableFuture<String> choose(CharSequence consoleInput) {
+    updateMenuStructure();
+    if (consoleInput == null || Util.isBlank(consoleInput)) {
+      out.println();
+    } else if (isLicenseCommand(consoleInput)) {
+      printLicense();
+    } else {
+      positionHistory.offerFirst(position);
+      return tryToChooseAnOption(consoleInput);
+    }
+    return CompletableFuture.completedFuture(position.getName());
+  }
+
+  /**
+   * Jumps to the node named {@code nodeName} by the shortest route from the current position,
+   * without choosing the options one by one. The positions passed on the route are added to the
+   * history, just like they were chosen. (See {@link MenuStructure#getRoute(Position, Position)}.)
+   *
+   * <p>The jump is queued like the choices, so it starts from the position after the pending
+   * {@link #chooseOptionAsync(String) asynchronous} choices, and this method waits for them.
+   *
+   * @param nodeName the name of the target node
+   * @throws IllegalArgumentException if there is no such node, or it is not reachable
+   * @since 0.3.2
+   */
+  public void goTo(String nodeName) {
+    Util.assertNonNull("nodeName", nodeName);
+    await(enqueue(() -> CompletableFuture.completedFuture(jump(nodeName))));
+  }
+
+  private synchronized String jump(String nodeName) {
+    updateMenuStructure();
+    getCurrentOptions();
+
+    Position target = menuStructure.getPosition(nodeName);
+    NodePosition[] route =
+        target instanceof NodePosition ? menuStructure.getRoute(position, target) : null;
+
+    if (route == null) {
+      throw new IllegalArgumentException(NO_ROUTE.getMessage(position.getName(), nodeName));
+    }
+
+    for (NodePosition step : route) {
+      positionHistory.offerFirst(position);
+      position = step;
+    }
+    return position.getName();
+  }
+
+  /**
+   * Searches the entries of the current {@link MenuStructure} by name, tolerating typos. A hit
+   * contains the path leading to it, and its node can be jumped to with {@link #goTo(String)}.
+   * (See {@link MenuStructure#search(String, int)}.)
+   *
+   * @param query the text to search for
+   * @param limit the maximum count of hits (at least 1)
+   * @return the best hits in descending order
+   * @since 0.3.2
+   */
+  public synchronized List<SearchHit> find(String query, int limit) {
+    updateMenuStructure();
+    return menuStructure.search(query, limit);
+  }
+
+  /**
+   * Prints the full license information about clim.
+   *
+   * @since 0.3.2
+   */
+  public void printLicense() {
+    out.println(GNU_GPL.getMessage());
+  }
+
+  /**
+   * Prints short license information about clim.
+   *
+   * @since 0.3.2
+   */
+  public void printShortLicense() {
+    out.println(SHORT_LICENSE.getMessage());
+  }
+
+  private static boolean isLicenseCommand(CharSequence input) {
+    for (String licenseCommand : licenseCommands) {
+      if (Util.equalsIgnoreCase(input, licenseCommand)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Selects the chosen entry. If it is done immediately (so it is not an asynchronous leaf), the
+   * {@code input} is not copied, and a failure is thrown directly.
+   */
+  private CompletableFuture<String> tryToChooseAnOption(CharSequence input) {
+    CompletableFuture<NodePosition> selection;
+    try {
+      selection =
+          chooseOptionByProcessedInput(
+                  definition
+                      .getInputProcessorService()
+                      .processInputRelatedToOptions(input, getCurrentOptions()))
+              .toCompletableFuture();
+    } catch (Exception exception) {
+      return CompletableFuture.completedFuture(completeChoice(input, null, exception));
+    }
+
+    if (selection.isDone() && !selection.isCompletedExceptionally()) {
+      return CompletableFuture.completedFuture(completeChoice(input, selection.join(), null));
+    }
+    String text = input.toString();
+    return selection.handle((selected, exception) -> completeChoice(text, selected, exception));
+  }
+
+  private CompletionStage<NodePosition> chooseOptionByProcessedInput(
+      ProcessedInput processedInput) {
+    Position selected = returnValidatedPositionOrThrow(processedInput.getPosition());
+    return menuStructure.get(selected).selectAsync(processedInput);
+  }
+
+  private synchronized String completeChoice(
+      CharSequence input, NodePosition selected, Throwable exception) {
+    if (exception == null) {
+      position = selected;
+    } else {
+      positionHistory.pollFirst();
+      fallBack(input, exception instanceof CompletionException ? exception.getCause() : exception);
+    }
+    return position.getName();
+  }
+
+  private Position returnValidatedPositionOrThrow(Position position) {
+    if (menuStructure.isLinked(this.position, position)) {
+      return position;
+    }
+    throw new IllegalArgumentException(INVALID_MENU_POSITION.getMessage(position.getName()));
+  }
+
+  private void fallBack(CharSequence input, Throwable exception) {
+    Consumer<String> fallback = definition.getFallback(position.getName());
+
+    if (fallback != null) {
+      fallback.accept(input.toString());
+      return;
+    }
+    throw new ClimException(PROCESSING_FAILED.getMessage(input), exception);
+  }
+}
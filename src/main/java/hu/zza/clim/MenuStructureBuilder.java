@@ -24,19 +24,12 @@
 package hu.zza.clim;
 
 import static hu.zza.clim.menu.Message.INITIALIZATION_FAILED;
-import static hu.zza.clim.menu.Message.INVALID_INITIAL_POSITION;
 import static hu.zza.clim.menu.Message.INVALID_LEAF_POSITION;
-import static hu.zza.clim.menu.Message.INVALID_LINK;
 import static hu.zza.clim.menu.Message.INVALID_NODE_POSITION;
 import static hu.zza.clim.menu.Message.INVALID_POSITION;
-import static hu.zza.clim.menu.Message.LEAF_NAME_UNKNOWN;
-import static hu.zza.clim.menu.Message.NODE_NAME_UNKNOWN;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
 import hu.zza.clim.menu.LeafPosition;
 import hu.zza.clim.menu.MenuEntry.Leaf;
 import hu.zza.clim.menu.MenuEntry.Node;
@@ -45,15 +38,20 @@ import hu.zza.clim.menu.Message;
 import hu.zza.clim.menu.NodePosition;
 import hu.zza.clim.menu.Position;
 import hu.zza.clim.menu.ProcessedInput;
+import hu.zza.clim.menu.SubtreeLoader;
 import hu.zza.clim.menu.Util;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -67,26 +65,63 @@ public final class MenuStructureBuilder {
   private final Set<String> leafPositions = new HashSet<>();
   private final Map<String, NodePosition> nodeMap = new HashMap<>();
   private final Map<String, LeafPosition> leafMap = new HashMap<>();
-  private final ArrayList<String> linkBuffer = new ArrayList<>();
   private final Map<String, List<String>> nodeLinks = new HashMap<>();
   private final Map<String, List<String>> leafLinks = new HashMap<>();
   private final Map<String, Function<ProcessedInput, Integer>> leafFunction = new HashMap<>();
-  private JsonObject rawMenuStructure = new JsonObject();
+  private final Map<String, Function<ProcessedInput, CompletionStage<Integer>>> asyncLeafFunction =
+      new HashMap<>();
+  private final Map<String, SubtreeLoader> subtreeLoaders = new HashMap<>();
+  private int subtreeCacheSize = -1;
+  private RawMenuStructure rawMenuStructure = RawMenuStructure.empty();
   private String initialPosition = "";
   private MenuStructure menuStructure = new MenuStructure();
 
   public MenuStructureBuilder setRawMenuStructure(String rawMenuStructure)
       throws JsonParseException {
     Util.assertNonNull("rawMenuStructure", rawMenuStructure);
-    return setRawMenuStructure(JsonParser.parseString(rawMenuStructure).getAsJsonObject());
+    return setRawMenuStructure(new StringReader(rawMenuStructure));
   }
 
   public MenuStructureBuilder setRawMenuStructure(JsonObject rawMenuStructure) {
     Util.assertNonNull("rawMenuStructure", rawMenuStructure);
-    this.rawMenuStructure = rawMenuStructure;
+    this.rawMenuStructure = RawMenuStructure.of(rawMenuStructure);
     return this;
   }
 
+  /**
+   * Reads the raw menu structure from the {@code reader} in one pass, without building its JSON
+   * tree. So the memory usage is proportional to the count of nodes and links instead of the size
+   * of the document, and the depth of nesting is not limited by the call stack. The reader is not
+   * closed.
+   *
+   * @param reader the source of the JSON object
+   * @return this builder
+   * @throws JsonParseException if the content is not a valid JSON object, or it can not be read
+   * @since 0.3.2
+   */
+  public MenuStructureBuilder setRawMenuStructure(Reader reader) throws JsonParseException {
+    Util.assertNonNull("reader", reader);
+    this.rawMenuStructure = RawMenuStructure.read(reader);
+    return this;
+  }
+
+  /**
+   * Reads the raw menu structure from the UTF-8 encoded file like {@link
+   * #setRawMenuStructure(Reader)}.
+   *
+   * @param path the path of the JSON file
+   * @return this builder
+   * @throws IOException if the file can not be opened
+   * @throws JsonParseException if the content is not a valid JSON object, or it can not be read
+   * @since 0.3.2
+   */
+  public MenuStructureBuilder setRawMenuStructure(Path path) throws IOException {
+    Util.assertNonNull("path", path);
+    try (Reader reader = Files.newBufferedReader(path)) {
+      return setRawMenuStructure(reader);
+    }
+  }
+
   public MenuStructureBuilder setInitialPosition(String initialPosition) {
     Util.assertNonNull("initialPosition", initialPosition);
     this.initialPosition = initialPosition;
@@ -99,10 +134,66 @@ public final class MenuStructureBuilder {
     Util.assertElementsNonNull("links", links);
     checkLinksPresence(links);
     leafFunction.put(name, function);
+    asyncLeafFunction.remove(name);
+    leafLinks.put(name, Arrays.asList(links));
+    return this;
+  }
+
+  /**
+   * Sets an asynchronous leaf, which is not waited for by {@link Menu#chooseOptionAsync(String)}.
+   * (See {@link Leaf#async(LeafPosition, String, Function, NodePosition...)}.)
+   *
+   * @param name the name of a leaf in the raw menu structure
+   * @param asyncFunction the function of the leaf, which returns the stage of the int value
+   * @param links the names of the nodes, from which the completed int value chooses
+   * @return this builder
+   * @since 0.3.2
+   */
+  public MenuStructureBuilder setAsyncLeaf(
+      String name,
+      Function<ProcessedInput, CompletionStage<Integer>> asyncFunction,
+      String... links) {
+    Util.assertNonNull(List.of("name", "asyncFunction", "links"), name, asyncFunction, links);
+    Util.assertElementsNonNull("links", links);
+    checkLinksPresence(links);
+    asyncLeafFunction.put(name, asyncFunction);
+    leafFunction.remove(name);
     leafLinks.put(name, Arrays.asList(links));
     return this;
   }
 
+  /**
+   * Declares the node named {@code name} as lazily expanded: Its links are produced by the {@code
+   * subtreeLoader} when it is visited first, instead of the ones in the raw menu structure. (See
+   * {@link Node#Node(NodePosition, String, SubtreeLoader)}.)
+   *
+   * @param name the name of a node in the raw menu structure
+   * @param subtreeLoader the producer of the entries linked from the node
+   * @return this builder
+   * @since 0.3.2
+   */
+  public MenuStructureBuilder setLazyNode(String name, SubtreeLoader subtreeLoader) {
+    Util.assertNonNull(List.of("name", "subtreeLoader"), name, subtreeLoader);
+    subtreeLoaders.put(name, subtreeLoader);
+    return this;
+  }
+
+  /**
+   * Sets the maximum count of the cached subtrees of lazily expanded nodes. (See {@link
+   * MenuStructure#setSubtreeCacheSize(int)}.)
+   *
+   * @param subtreeCacheSize the maximum count of the cached subtrees (at least 1)
+   * @return this builder
+   * @since 0.3.2
+   */
+  public MenuStructureBuilder setSubtreeCacheSize(int subtreeCacheSize) {
+    if (subtreeCacheSize < 1) {
+      throw new ClimException(Message.INVALID_POSITIVE_ARGUMENT.getMessage("subtreeCacheSize"));
+    }
+    this.subtreeCacheSize = subtreeCacheSize;
+    return this;
+  }
+
   private void checkLinksPresence(String[] links) {
     if (links.length == 0) {
       throw new ClimException(Message.INVALID_NONEMPTY_ARGUMENT.getMessage("links"));
@@ -110,10 +201,13 @@ public final class MenuStructureBuilder {
   }
 
   public void clear() {
-    rawMenuStructure = new JsonObject();
+    rawMenuStructure = RawMenuStructure.empty();
     initialPosition = "";
     leafFunction.clear();
+    asyncLeafFunction.clear();
     leafLinks.clear();
+    subtreeLoaders.clear();
+    subtreeCacheSize = -1;
     clearBuilt();
   }
 
@@ -138,79 +232,54 @@ public final class MenuStructureBuilder {
     }
   }
 
-  private MenuStructure buildMenuStructure() {
+  /**
+   * Validates the current settings without building, and analyses the structure: Every error is
+   * collected (instead of stopping at the first one), and the reachability, depth and fan-out of
+   * the structure are reported. The checks run in parallel on the common fork-join pool, so they
+   * scale with very large structures. {@link #build()} runs the same validation.
+   *
+   * @return the report of the validation
+   * @since 0.3.2
+   */
+  public MenuStructureReport validate() {
     clearBuilt();
     findAllNodesAndLeaves();
     inferInitialPosition();
-    checkInitialPosition();
+    return new MenuStructureValidator(
+            nodeLinks, leafPositions, leafLinks, subtreeLoaders.keySet(), initialPosition)
+        .validate();
+  }
+
+  private MenuStructure buildMenuStructure() {
+    checkReport(validate());
     buildNameMapsFromNameSets();
-    checkLeafSettings();
     buildStructure();
     return menuStructure;
   }
 
+  private void checkReport(MenuStructureReport report) {
+    if (!report.isValid()) {
+      throw new IllegalStateException(String.join(System.lineSeparator(), report.getErrors()));
+    }
+  }
+
   /**
    * Process the {@code rawMenuStructure} and prepare objects for menu building. The prepared
    * objects are nodePositions, nodeLinks, leafPositions.
    */
   private void findAllNodesAndLeaves() {
-    extractNodesAndLeavesFrom(rawMenuStructure);
+    nodePositions.addAll(rawMenuStructure.getNodes());
+    nodeLinks.putAll(rawMenuStructure.getNodeLinks());
+    leafPositions.addAll(rawMenuStructure.getLeaves());
     leafPositions.removeAll(nodePositions);
   }
 
-  private void extractNodesAndLeavesFrom(JsonObject jsonObject) {
-    for (String key : jsonObject.keySet()) {
-      linkBuffer.clear();
-      nodePositions.add(key);
-      processJsonElement(jsonObject.get(key));
-      nodeLinks.put(key, List.copyOf(linkBuffer));
-    }
-  }
-
-  private void processJsonElement(JsonElement item) {
-    if (item.isJsonObject()) {
-      processJsonObject(item.getAsJsonObject());
-    } else if (item.isJsonArray()) {
-      processJsonArray(item.getAsJsonArray());
-    } else if (item.isJsonPrimitive()) {
-      processLeafString(item.getAsString());
-    }
-  }
-
-  private void processJsonObject(JsonObject jsonObject) {
-    extractNodesAndLeavesFrom(jsonObject);
-    linkBuffer.addAll(jsonObject.keySet());
-  }
-
-  private void processJsonArray(JsonArray jsonArray) {
-    for (int j = 0; j < jsonArray.size(); j++) {
-      JsonElement item = jsonArray.get(j);
-
-      if (item.isJsonObject()) {
-        processJsonObject(item.getAsJsonObject());
-      } else if (item.isJsonPrimitive()) {
-        processLeafString(item.getAsString());
-      }
-    }
-  }
-
-  private void processLeafString(String leafString) {
-    leafPositions.add(leafString);
-    linkBuffer.add(leafString);
-  }
-
   private void inferInitialPosition() {
     if (nodePositions.size() == 1) {
       initialPosition = nodePositions.toArray(new String[0])[0];
     }
   }
 
-  private void checkInitialPosition() {
-    if (!nodePositions.contains(initialPosition)) {
-      throw new IllegalStateException(INVALID_INITIAL_POSITION.getMessage(initialPosition));
-    }
-  }
-
   /** Create real {@link Position} objects from String sets and store them in String-keyed maps. */
   private void buildNameMapsFromNameSets() {
     nodeMap.putAll(
@@ -224,37 +293,6 @@ public final class MenuStructureBuilder {
             .collect(Collectors.toMap(Position::getName, Function.identity())));
   }
 
-  private void checkLeafSettings() {
-    checkSetLeafNames();
-    checkSetLeafLinks();
-  }
-
-  private void checkSetLeafNames() {
-    Set<String> leafNamesFromSettings = new HashSet<>(leafLinks.keySet());
-    leafNamesFromSettings.removeAll(leafPositions);
-    if (leafNamesFromSettings.size() != 0) {
-      throw new IllegalStateException(
-          LEAF_NAME_UNKNOWN.getMessage(Arrays.toString(leafNamesFromSettings.toArray())));
-    }
-  }
-
-  private void checkSetLeafLinks() {
-    Set<String> links =
-        leafLinks.keySet().stream()
-            .map(leafLinks::get)
-            .flatMap(Collection::stream)
-            .collect(Collectors.toSet());
-
-    links.removeAll(nodePositions);
-
-    if (links.size() != 0) {
-      throw new IllegalStateException(
-          INVALID_LINK.getMessage(
-              NODE_NAME_UNKNOWN.getMessage(Arrays.toString(links.toArray()))
-          ));
-    }
-  }
-
   private void buildStructure() {
     menuStructure.setInitialPosition(nodeMap.get(initialPosition));
     createNodesAndAddToMenuStructure();
@@ -263,8 +301,16 @@ public final class MenuStructureBuilder {
   }
 
   private void createNodesAndAddToMenuStructure() {
+    if (subtreeCacheSize != -1) {
+      menuStructure.setSubtreeCacheSize(subtreeCacheSize);
+    }
+
     nodePositions.forEach(
-        e -> menuStructure.put(new Node(nodeMap.get(e), e, getLinksArrayByNodeName(e))));
+        e ->
+            menuStructure.put(
+                subtreeLoaders.containsKey(e)
+                    ? new Node(nodeMap.get(e), e, subtreeLoaders.get(e))
+                    : new Node(nodeMap.get(e), e, getLinksArrayByNodeName(e))));
   }
 
   private Position[] getLinksArrayByNodeName(String key) {
@@ -294,7 +340,11 @@ public final class MenuStructureBuilder {
     leafPositions.forEach(
         e ->
             menuStructure.put(
-                new Leaf(leafMap.get(e), e, leafFunction.get(e), getLinksArrayByLeafName(e))));
+                asyncLeafFunction.containsKey(e)
+                    ? Leaf.async(
+                        leafMap.get(e), e, asyncLeafFunction.get(e), getLinksArrayByLeafName(e))
+                    : new Leaf(
+                        leafMap.get(e), e, leafFunction.get(e), getLinksArrayByLeafName(e))));
   }
 
   private NodePosition[] getLinksArrayByLeafName(String key) {
@@ -0,0 +1,114 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import java.util.List;
+
+/**
+ * The result of {@link MenuStructureBuilder#validate()}: Every error of the settings, and the
+ * structural analysis of the menu graph. (The edges of the graph are the links of the nodes, and
+ * the forwarding links of the leaves.)
+ *
+ * @since 0.3.2
+ */
+public final class MenuStructureReport {
+  private final List<String> errors;
+  private final List<String> unreachablePositions;
+  private final List<String> deadEndNodes;
+  private final List<String> deadEndLeaves;
+  private final int nodeCount;
+  private final int leafCount;
+  private final int maximumDepth;
+  private final int maximumFanOut;
+  private final double averageFanOut;
+
+  MenuStructureReport(
+      List<String> errors,
+      List<String> unreachablePositions,
+      List<String> deadEndNodes,
+      List<String> deadEndLeaves,
+      int nodeCount,
+      int leafCount,
+      int maximumDepth,
+      int maximumFanOut,
+      double averageFanOut) {
+    this.errors = List.copyOf(errors);
+    this.unreachablePositions = List.copyOf(unreachablePositions);
+    this.deadEndNodes = List.copyOf(deadEndNodes);
+    this.deadEndLeaves = List.copyOf(deadEndLeaves);
+    this.nodeCount = nodeCount;
+    this.leafCount = leafCount;
+    this.maximumDepth = maximumDepth;
+    this.maximumFanOut = maximumFanOut;
+    this.averageFanOut = averageFanOut;
+  }
+
+  /** Returns true if there is no error, so the structure can be built. */
+  public boolean isValid() {
+    return errors.isEmpty();
+  }
+
+  /** Returns the message of every error, which prevents building. */
+  public List<String> getErrors() {
+    return errors;
+  }
+
+  /** Returns the names of the nodes and leaves which can not be reached from the initial node. */
+  public List<String> getUnreachablePositions() {
+    return unreachablePositions;
+  }
+
+  /** Returns the names of the nodes without links. */
+  public List<String> getDeadEndNodes() {
+    return deadEndNodes;
+  }
+
+  /** Returns the names of the leaves which forward only to dead-end nodes. */
+  public List<String> getDeadEndLeaves() {
+    return deadEndLeaves;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getLeafCount() {
+    return leafCount;
+  }
+
+  /** Returns the greatest distance of a reachable node or leaf from the initial node. */
+  public int getMaximumDepth() {
+    return maximumDepth;
+  }
+
+  /** Returns the greatest count of links of a node. */
+  public int getMaximumFanOut() {
+    return maximumFanOut;
+  }
+
+  /** Returns the average count of links of the nodes. */
+  public double getAverageFanOut() {
+    return averageFanOut;
+  }
+}
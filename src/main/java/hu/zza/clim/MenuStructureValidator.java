@@ -0,0 +1,181 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import static hu.zza.clim.menu.Message.INVALID_INITIAL_POSITION;
+import static hu.zza.clim.menu.Message.INVALID_LINK;
+import static hu.zza.clim.menu.Message.LEAF_FUNCTION_MISSING;
+import static hu.zza.clim.menu.Message.LEAF_NAME_UNKNOWN;
+import static hu.zza.clim.menu.Message.NODE_NAME_UNKNOWN;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Validates the settings of a {@link MenuStructureBuilder} and analyses the graph of the structure.
+ * Every check runs as a parallel stream (on the common fork-join pool), the reachability is a
+ * level-synchronous breadth-first search, and every error is collected instead of stopping at the
+ * first one. (The subtrees of lazily expanded nodes are not loaded, so they are not analysed.)
+ */
+final class MenuStructureValidator {
+  private final Map<String, List<String>> nodeLinks;
+  private final Set<String> leafPositions;
+  private final Map<String, List<String>> leafLinks;
+  private final Set<String> lazyNodes;
+  private final String initialPosition;
+
+  MenuStructureValidator(
+      Map<String, List<String>> nodeLinks,
+      Set<String> leafPositions,
+      Map<String, List<String>> leafLinks,
+      Set<String> lazyNodes,
+      String initialPosition) {
+    this.nodeLinks = nodeLinks;
+    this.leafPositions = leafPositions;
+    this.leafLinks = leafLinks;
+    this.lazyNodes = lazyNodes;
+    this.initialPosition = initialPosition;
+  }
+
+  MenuStructureReport validate() {
+    List<String> errors = new ArrayList<>();
+
+    if (!nodeLinks.containsKey(initialPosition)) {
+      errors.add(INVALID_INITIAL_POSITION.getMessage(initialPosition));
+    }
+
+    List<String> unknownLeaves = missingFrom(leafLinks.keySet().parallelStream(), leafPositions);
+    if (!unknownLeaves.isEmpty()) {
+      errors.add(LEAF_NAME_UNKNOWN.getMessage(unknownLeaves));
+    }
+
+    List<String> missingLeaves = missingFrom(leafPositions.parallelStream(), leafLinks.keySet());
+    if (!missingLeaves.isEmpty()) {
+      errors.add(LEAF_FUNCTION_MISSING.getMessage(missingLeaves));
+    }
+
+    List<String> orphanedLinks =
+        missingFrom(
+            leafLinks.values().parallelStream().flatMap(Collection::stream).distinct(),
+            nodeLinks.keySet());
+    if (!orphanedLinks.isEmpty()) {
+      errors.add(INVALID_LINK.getMessage(NODE_NAME_UNKNOWN.getMessage(orphanedLinks)));
+    }
+
+    List<String> unknownLazyNodes = missingFrom(lazyNodes.parallelStream(), nodeLinks.keySet());
+    if (!unknownLazyNodes.isEmpty()) {
+      errors.add(NODE_NAME_UNKNOWN.getMessage(unknownLazyNodes));
+    }
+
+    Set<String> reachable = ConcurrentHashMap.newKeySet();
+    int maximumDepth = searchReachable(reachable);
+    List<String> unreachable =
+        missingFrom(
+            Stream.concat(nodeLinks.keySet().parallelStream(), leafPositions.parallelStream()),
+            reachable);
+
+    List<String> deadEndNodes =
+        nodeLinks.entrySet().parallelStream()
+            .filter(e -> e.getValue().isEmpty() && !lazyNodes.contains(e.getKey()))
+            .map(Map.Entry::getKey)
+            .sorted()
+            .collect(Collectors.toList());
+
+    List<String> deadEndLeaves =
+        leafPositions.parallelStream()
+            .filter(leafLinks::containsKey)
+            .filter(e -> leafLinks.get(e).stream().allMatch(this::isDeadEndNode))
+            .sorted()
+            .collect(Collectors.toList());
+
+    IntSummaryStatistics fanOut =
+        nodeLinks.values().parallelStream().mapToInt(List::size).summaryStatistics();
+
+    return new MenuStructureReport(
+        errors,
+        unreachable,
+        deadEndNodes,
+        deadEndLeaves,
+        nodeLinks.size(),
+        leafPositions.size(),
+        maximumDepth,
+        Math.max(0, fanOut.getMax()),
+        fanOut.getAverage());
+  }
+
+  /** Returns the elements of the {@code stream} which are not in {@code known}, in order. */
+  private static List<String> missingFrom(Stream<String> stream, Set<String> known) {
+    return stream.filter(e -> !known.contains(e)).sorted().collect(Collectors.toList());
+  }
+
+  /**
+   * Collects the positions reachable from the initial one level by level, and returns the count of
+   * levels after the initial one.
+   */
+  private int searchReachable(Set<String> reachable) {
+    if (!nodeLinks.containsKey(initialPosition)) {
+      return 0;
+    }
+
+    reachable.add(initialPosition);
+    List<String> level = List.of(initialPosition);
+    int depth = -1;
+
+    while (!level.isEmpty()) {
+      depth++;
+      level =
+          level.parallelStream()
+              .flatMap(e -> getLinks(e).stream())
+              .filter(this::isKnown)
+              .filter(reachable::add)
+              .collect(Collectors.toList());
+    }
+    return depth;
+  }
+
+  private List<String> getLinks(String name) {
+    if (lazyNodes.contains(name)) {
+      return List.of();
+    }
+
+    List<String> links = nodeLinks.get(name);
+    return links != null ? links : leafLinks.getOrDefault(name, List.of());
+  }
+
+  private boolean isKnown(String name) {
+    return nodeLinks.containsKey(name) || leafPositions.contains(name);
+  }
+
+  private boolean isDeadEndNode(String name) {
+    List<String> links = nodeLinks.get(name);
+    return links != null && links.isEmpty() && !lazyNodes.contains(name);
+  }
+}
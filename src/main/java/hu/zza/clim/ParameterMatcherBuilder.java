@@ -23,9 +23,12 @@
 
 package hu.zza.clim;
 
+import static hu.zza.clim.menu.Message.INVALID_NONNEGATIVE_ARGUMENT;
+
 import hu.zza.clim.menu.LeafPosition;
 import hu.zza.clim.menu.Position;
 import hu.zza.clim.menu.Util;
+import hu.zza.clim.parameter.MatchingEngine;
 import hu.zza.clim.parameter.Parameter;
 import hu.zza.clim.parameter.ParameterMatcher;
 import hu.zza.clim.parameter.ParameterName;
@@ -42,22 +45,113 @@ import java.util.Map;
 public final class ParameterMatcherBuilder {
   private final Map<Position, ParameterPattern> patternMap = new HashMap<>();
   private String commandRegex = "";
+  private MatchingEngine matchingEngine = MatchingEngine.VARIANTS;
+  private long stepLimit;
+  private boolean cachingDefaults;
+  private int cacheSize;
 
   public ParameterMatcher build() {
-    return new ParameterMatcher(commandRegex, patternMap);
+    Map<Position, ParameterPattern> patterns = patternMap;
+
+    if (cachingDefaults) {
+      patterns = new HashMap<>(patternMap);
+      patterns.replaceAll((position, pattern) -> pattern.withCachedDefaults());
+    }
+    return new ParameterMatcher(commandRegex, 0, patterns, matchingEngine, stepLimit, cacheSize);
   }
 
   public void clear() {
     commandRegex = "";
+    matchingEngine = MatchingEngine.VARIANTS;
+    stepLimit = 0;
+    cachingDefaults = false;
+    cacheSize = 0;
     patternMap.clear();
   }
 
+  /**
+   * Sets the regex for finding the command (the name of the leaf) in the input, its first group
+   * should capture the command. If it is blank (the default), the {@link ParameterMatcher}
+   * identifies the command and its parameters in a single pass. (See {@link
+   * ParameterMatcher#ParameterMatcher(String, int, Map, MatchingEngine)}.)
+   *
+   * @param commandRegex the regex for the command, or blank for single-pass processing
+   * @return this builder
+   * @since 0.1
+   */
   public ParameterMatcherBuilder setCommandRegex(String commandRegex) {
     Util.assertNonNull("commandRegex", commandRegex);
     this.commandRegex = commandRegex;
     return this;
   }
 
+  /**
+   * Sets the {@link MatchingEngine} of the {@link ParameterMatcher}. The default is {@link
+   * MatchingEngine#VARIANTS}. (Patterns of {@link hu.zza.clim.parameter.TokenType tokens} with a
+   * plain delimiter are split without regex by every engine, and their results are the same.)
+   *
+   * @param matchingEngine the {@link MatchingEngine} to use
+   * @return this builder
+   * @since 0.3.2
+   */
+  public ParameterMatcherBuilder setMatchingEngine(MatchingEngine matchingEngine) {
+    Util.assertNonNull("matchingEngine", matchingEngine);
+    this.matchingEngine = matchingEngine;
+    return this;
+  }
+
+  /**
+   * Sets the maximum count of characters the backtracking regex engine can read while processing
+   * one input. If it is exceeded, the processing is aborted with a {@link ClimException}, so a
+   * catastrophic backtracking can not block the processing. It is 0 (no limit) by default.
+   *
+   * @param stepLimit the maximum count of steps per input, or 0 for no limit
+   * @return this builder
+   * @see ParameterMatcher#ParameterMatcher(String, int, Map, MatchingEngine, long)
+   * @since 0.3.2
+   */
+  public ParameterMatcherBuilder setStepLimit(long stepLimit) {
+    if (stepLimit < 0) {
+      throw new IllegalArgumentException(INVALID_NONNEGATIVE_ARGUMENT.getMessage("stepLimit"));
+    }
+    this.stepLimit = stepLimit;
+    return this;
+  }
+
+  /**
+   * Sets whether the default values of the optional {@link Parameter parameters} are cached for
+   * the lifetime of the built {@link ParameterMatcher}. By default (false), the {@code
+   * defaultValueSupplier} is called once per processed input (if it is needed), which is right for
+   * suppliers with a changing result (like the current date). Caching is for suppliers with a
+   * constant, but costly result.
+   *
+   * @param cachingDefaults true for calling every {@code defaultValueSupplier} at most once
+   * @return this builder
+   * @see ParameterPattern#withCachedDefaults()
+   * @since 0.3.2
+   */
+  public ParameterMatcherBuilder setCachingDefaults(boolean cachingDefaults) {
+    this.cachingDefaults = cachingDefaults;
+    return this;
+  }
+
+  /**
+   * Sets the maximum count of results the {@link ParameterMatcher} caches by the raw input text, so
+   * repeated inputs skip the matching. It is 0 (no cache) by default.
+   *
+   * @param cacheSize the maximum count of cached results, or 0 for no cache
+   * @return this builder
+   * @see ParameterMatcher#ParameterMatcher(String, int, Map, MatchingEngine, long, int)
+   * @since 0.3.2
+   */
+  public ParameterMatcherBuilder setCacheSize(int cacheSize) {
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException(INVALID_NONNEGATIVE_ARGUMENT.getMessage("cacheSize"));
+    }
+    this.cacheSize = cacheSize;
+    return this;
+  }
+
   public ParameterMatcherBuilder setLeafParameters(
       String leafName,
       String delimiter,
@@ -71,17 +165,29 @@ public final class ParameterMatcherBuilder {
         parameterNames,
         parameters);
 
-    Position position = Position.getByName(leafName);
+    patternMap.put(
+        new LeafPosition(leafName), new ParameterPattern(delimiter, parameterNames, parameters));
+    return this;
+  }
 
-    if (position instanceof LeafPosition) {
-      patternMap.put(position, new ParameterPattern(delimiter, parameterNames, parameters));
-    }
+  /**
+   * Sets the {@link ParameterPattern} of the leaf named {@code leafName}.
+   *
+   * @param leafName the name of the leaf
+   * @param parameterPattern the pattern of its parameters
+   * @return this builder
+   * @since 0.3.2
+   */
+  public ParameterMatcherBuilder setLeafParameters(
+      String leafName, ParameterPattern parameterPattern) {
+    Util.assertNonNull(List.of("leafName", "parameterPattern"), leafName, parameterPattern);
+    patternMap.put(new LeafPosition(leafName), parameterPattern);
     return this;
   }
 
   public ParameterMatcherBuilder clearLeafParameters(String leafName) {
     Util.assertNonNull("leafName", leafName);
-    patternMap.remove(Position.getByName(leafName));
+    patternMap.remove(new LeafPosition(leafName));
     return this;
   }
 }
@@ -0,0 +1,217 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The names and links extracted from a raw menu structure: Every key of a JSON object is a node,
+ * its value holds the links of the node. A string value (or a string in an array value) is a leaf,
+ * an object value (or an object in an array value) contains further nodes.
+ *
+ * <p>Both the DOM and the streaming form are walked iteratively with an explicit stack, so the
+ * depth of nesting is not limited by the call stack. Every node collects its own links, so the
+ * memory usage is proportional to the count of nodes and links, and not to the document.
+ */
+final class RawMenuStructure {
+  private final Map<String, List<String>> nodeLinks = new LinkedHashMap<>();
+  private final Set<String> leaves = new HashSet<>();
+
+  private RawMenuStructure() {}
+
+  static RawMenuStructure empty() {
+    return new RawMenuStructure();
+  }
+
+  static RawMenuStructure of(JsonObject jsonObject) {
+    RawMenuStructure result = new RawMenuStructure();
+    Deque<JsonObject> stack = new ArrayDeque<>();
+    stack.push(jsonObject);
+
+    while (!stack.isEmpty()) {
+      for (Map.Entry<String, JsonElement> entry : stack.pop().entrySet()) {
+        List<String> links = result.addNode(entry.getKey(), null);
+        JsonElement value = entry.getValue();
+
+        if (value.isJsonArray()) {
+          for (JsonElement item : (JsonArray) value) {
+            result.addElement(item, links, stack);
+          }
+        } else {
+          result.addElement(value, links, stack);
+        }
+      }
+    }
+    return result.sealed();
+  }
+
+  /**
+   * Reads a raw menu structure from the stream in one pass without building the DOM of it.
+   *
+   * @throws JsonSyntaxException if the content of the stream is not a valid JSON object
+   * @throws JsonIOException if the stream can not be read
+   */
+  static RawMenuStructure read(Reader reader) throws JsonParseException {
+    try {
+      JsonReader jsonReader = new JsonReader(reader);
+      jsonReader.setLenient(true);
+      RawMenuStructure result = read(jsonReader);
+
+      if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonSyntaxException("Did not consume the entire document.");
+      }
+      return result;
+    } catch (EOFException
+        | MalformedJsonException
+        | IllegalStateException
+        | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private static RawMenuStructure read(JsonReader reader) throws IOException {
+    RawMenuStructure result = new RawMenuStructure();
+    Deque<Frame> stack = new ArrayDeque<>();
+    reader.beginObject();
+    stack.push(new Frame(JsonToken.BEGIN_OBJECT, null));
+
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+
+      if (!reader.hasNext()) {
+        if (frame.token == JsonToken.BEGIN_ARRAY) {
+          reader.endArray();
+        } else {
+          reader.endObject();
+        }
+        stack.pop();
+      } else if (frame.token == JsonToken.BEGIN_ARRAY) {
+        result.readElement(reader, frame.links, stack);
+      } else {
+        List<String> links = result.addNode(reader.nextName(), frame.links);
+
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+          reader.beginArray();
+          stack.push(new Frame(JsonToken.BEGIN_ARRAY, links));
+        } else {
+          result.readElement(reader, links, stack);
+        }
+      }
+    }
+    return result.sealed();
+  }
+
+  private List<String> addNode(String name, List<String> parentLinks) {
+    List<String> links = new ArrayList<>();
+    nodeLinks.put(name, links);
+
+    if (parentLinks != null) {
+      parentLinks.add(name);
+    }
+    return links;
+  }
+
+  private void addElement(JsonElement item, List<String> links, Deque<JsonObject> stack) {
+    if (item.isJsonObject()) {
+      links.addAll(item.getAsJsonObject().keySet());
+      stack.push(item.getAsJsonObject());
+    } else if (item.isJsonPrimitive()) {
+      addLeaf(item.getAsString(), links);
+    }
+  }
+
+  private void readElement(JsonReader reader, List<String> links, Deque<Frame> stack)
+      throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        stack.push(new Frame(JsonToken.BEGIN_OBJECT, links));
+        break;
+      case STRING:
+      case NUMBER:
+        addLeaf(reader.nextString(), links);
+        break;
+      case BOOLEAN:
+        addLeaf(String.valueOf(reader.nextBoolean()), links);
+        break;
+      default:
+        reader.skipValue();
+    }
+  }
+
+  private void addLeaf(String name, List<String> links) {
+    leaves.add(name);
+    links.add(name);
+  }
+
+  private RawMenuStructure sealed() {
+    nodeLinks.replaceAll((k, v) -> List.copyOf(v));
+    return this;
+  }
+
+  /** The node names in the order of their appearance. */
+  Set<String> getNodes() {
+    return nodeLinks.keySet();
+  }
+
+  Set<String> getLeaves() {
+    return leaves;
+  }
+
+  Map<String, List<String>> getNodeLinks() {
+    return nodeLinks;
+  }
+
+  /** An open object or array of the stream, and the links of the node that its content extends. */
+  private static final class Frame {
+    private final JsonToken token;
+    private final List<String> links;
+
+    private Frame(JsonToken token, List<String> links) {
+      this.token = token;
+      this.links = links;
+    }
+  }
+}
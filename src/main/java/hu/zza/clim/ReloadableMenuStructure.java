@@ -0,0 +1,175 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import hu.zza.clim.menu.MenuStructure;
+import hu.zza.clim.menu.Util;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A {@link MenuStructure} which is rebuilt whenever its JSON file changes. The file is watched by a
+ * {@link WatchService} on a daemon thread, and the structure is rebuilt there with the given {@link
+ * MenuStructureBuilder} (which should not be used elsewhere after this). A successfully built
+ * structure is published with one atomic reference swap, so every {@link Menu} built with this
+ * sees it at its next interaction, while reading the current structure never locks.
+ *
+ * <p>A {@link Menu} keeps its position after a reload, if there is still a node with the same name,
+ * otherwise it returns to the initial position. If a rebuild fails, the previous structure remains
+ * in use, and the exception is passed to the failure handler.
+ *
+ * @since 0.3.2
+ */
+public final class ReloadableMenuStructure implements Supplier<MenuStructure>, Closeable {
+  private final Path path;
+  private final MenuStructureBuilder builder;
+  private final Consumer<Exception> failureHandler;
+  private final AtomicReference<MenuStructure> menuStructure = new AtomicReference<>();
+  private final WatchService watchService;
+
+  /**
+   * Same as {@link #ReloadableMenuStructure(Path, MenuStructureBuilder, Consumer)}, but failed
+   * reloads are ignored.
+   */
+  public ReloadableMenuStructure(Path path, MenuStructureBuilder builder) throws IOException {
+    this(path, builder, e -> {});
+  }
+
+  /**
+   * Builds the structure from the file at {@code path}, and starts watching it.
+   *
+   * @param path the path of the JSON file of the raw menu structure
+   * @param builder the builder with every other setting (initial position, leaves)
+   * @param failureHandler the consumer of the exceptions of failed reloads
+   * @throws IOException if the file can not be read or watched
+   * @throws ClimException if the initial build fails
+   */
+  public ReloadableMenuStructure(
+      Path path, MenuStructureBuilder builder, Consumer<Exception> failureHandler)
+      throws IOException {
+    Util.assertNonNull(
+        List.of("path", "builder", "failureHandler"), path, builder, failureHandler);
+    this.path = path.toAbsolutePath();
+    this.builder = builder;
+    this.failureHandler = failureHandler;
+    menuStructure.set(build());
+
+    watchService = this.path.getFileSystem().newWatchService();
+    this.path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+    Thread watcher = new Thread(this::watch, "clim-reload-" + this.path.getFileName());
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  /** Returns the current {@link MenuStructure} without locking. */
+  @Override
+  public MenuStructure get() {
+    return menuStructure.get();
+  }
+
+  /**
+   * Rebuilds the structure from the file immediately, and publishes it if the build succeeds. (The
+   * build and the publication are done under the same lock, so concurrent reloads publish their
+   * structures in the order of their builds.)
+   *
+   * @return true if the new structure is published
+   */
+  public boolean reload() {
+    Exception failure;
+
+    synchronized (this) {
+      try {
+        menuStructure.set(build());
+        return true;
+      } catch (IOException | RuntimeException e) {
+        failure = e;
+      }
+    }
+    failureHandler.accept(failure);
+    return false;
+  }
+
+  /** Stops watching the file. The last structure remains available. */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+  private MenuStructure build() throws IOException {
+    return builder.setRawMenuStructure(path).build();
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean changed = false;
+
+        do {
+          changed |= isChanged(key);
+          key.reset();
+        } while ((key = watchService.poll()) != null);
+
+        if (changed) {
+          reloadQuietly();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // closed by close()
+    }
+  }
+
+  /** Reloads on the watcher thread, which must survive a failing failure handler. */
+  private void reloadQuietly() {
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      // the failure handler failed, but the file is still watched
+    }
+  }
+
+  private boolean isChanged(WatchKey key) {
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (path.getFileName().equals(event.context())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
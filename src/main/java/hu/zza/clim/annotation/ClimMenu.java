@@ -0,0 +1,53 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class which declares a menu with {@link MenuNode}, {@link MenuLeaf} and {@link
+ * LeafParameters} annotations. The annotation processor of clim generates the class {@code
+ * <SimpleName>Structure} into the same package, which builds the {@link
+ * hu.zza.clim.menu.MenuStructure} (and the {@link hu.zza.clim.parameter.ParameterMatcher})
+ * directly: without parsing JSON and validating names at runtime, because every name is checked at
+ * compile time.
+ *
+ * @since 0.3.2
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface ClimMenu {
+
+  /** The name of the initial node. */
+  String initialPosition();
+
+  /**
+   * The command regex of the generated {@link hu.zza.clim.parameter.ParameterMatcher}. (See {@link
+   * hu.zza.clim.ParameterMatcherBuilder#setCommandRegex(String)}.)
+   */
+  String commandRegex() default "";
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a leaf of the menu of the enclosing {@link ClimMenu} class: The annotated method is the
+ * function of the leaf. It has to be a non-private static method with an {@code int} result and a
+ * single {@link hu.zza.clim.menu.ProcessedInput} parameter. (See {@link
+ * hu.zza.clim.MenuStructureBuilder#setLeaf(String, java.util.function.Function, String...)}.)
+ *
+ * @since 0.3.2
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface MenuLeaf {
+
+  /** The name of the leaf, or the name of the method if it is empty. */
+  String name() default "";
+
+  /** The names of the nodes to forward to, chosen by the result of the method. */
+  String[] links();
+}
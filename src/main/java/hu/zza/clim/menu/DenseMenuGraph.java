@@ -0,0 +1,121 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Dense, immutable {@link MenuGraph} compiled from the entries of a {@link MenuStructure}: Every
+ * {@link MenuEntry} has an int id (its index in {@code entries}), the links of the {@link
+ * MenuEntry.Node nodes} are id arrays, and every node has a sorted copy of them. So checking a
+ * link is a binary search, while the memory is proportional to the count of links (not to the count of nodes times the
+ * count of entries, like a bitset per node).
+ *
+ * <p>A {@link Position} is mapped to its id by a map of this graph, so another instance with the
+ * same name (e.g. created by a {@link hu.zza.clim.ParameterMatcherBuilder}) is found as well, and
+ * the lookup does not depend on the other structures.
+ */
+final class DenseMenuGraph extends MenuGraph {
+
+  private final MenuEntry[] entries;
+  private final int[][] links;
+  private final int[][] sortedLinks;
+  private final Map<Position, Integer> idsByPosition;
+  private final Map<String, Integer> idsByName;
+  private final int initialId;
+
+  DenseMenuGraph(Collection<MenuEntry> menuEntries, Position initialPosition) {
+    entries = menuEntries.stream().filter(Objects::nonNull).distinct().toArray(MenuEntry[]::new);
+
+    Map<Position, Integer> positions = new HashMap<>();
+    Map<String, Integer> names = new HashMap<>();
+
+    for (int id = 0; id < entries.length; id++) {
+      positions.put(entries[id].getPosition(), id);
+      names.put(entries[id].getPosition().getName(), id);
+    }
+    idsByPosition = Map.copyOf(positions);
+    idsByName = Map.copyOf(names);
+
+    links = new int[entries.length][];
+    sortedLinks = new int[entries.length][];
+
+    for (int id = 0; id < entries.length; id++) {
+      links[id] = Arrays.stream(entries[id].getDeclaredLinks()).mapToInt(this::getId).toArray();
+      sortedLinks[id] = Arrays.stream(links[id]).filter(e -> e != -1).sorted().distinct().toArray();
+    }
+    initialId = getId(initialPosition);
+  }
+
+  @Override
+  int getId(Position position) {
+    Integer id = position == null ? null : idsByPosition.get(position);
+    return id == null ? -1 : id;
+  }
+
+  @Override
+  int getId(String name) {
+    Integer id = idsByName.get(name);
+    return id == null ? -1 : id;
+  }
+
+  @Override
+  int getInitialId() {
+    return initialId;
+  }
+
+  @Override
+  MenuEntry get(int id) {
+    return entries[id];
+  }
+
+  @Override
+  Position getPosition(int id) {
+    return entries[id].getPosition();
+  }
+
+  @Override
+  int size() {
+    return entries.length;
+  }
+
+  @Override
+  int[] getLinks(int id) {
+    return links[id];
+  }
+
+  @Override
+  boolean isLinked(int fromId, int toId) {
+    return Arrays.binarySearch(sortedLinks[fromId], toId) >= 0;
+  }
+
+  @Override
+  boolean isLeaf(int id) {
+    return entries[id] instanceof MenuEntry.Leaf;
+  }
+}
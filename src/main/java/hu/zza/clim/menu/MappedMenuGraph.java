@@ -0,0 +1,456 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import static hu.zza.clim.menu.Message.INVALID_MENU_FILE;
+import static hu.zza.clim.menu.Message.LEAF_FUNCTION_MISSING;
+import static hu.zza.clim.menu.Message.LEAF_NAME_UNKNOWN;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * {@link MenuGraph} of a memory-mapped, exported {@link MenuStructure}. The entries are
+ * materialized lazily at their first use (lock-free, so the graph can be read by many threads),
+ * and names are looked up by binary search on their UTF-8 bytes in the file. Loading only checks
+ * the records and the tables (bounds, links and the order of the index) without decoding or
+ * allocating anything by entries.
+ *
+ * <p>The file is big-endian and consists of
+ *
+ * <ul>
+ *   <li>a header: magic number, version, count of entries, count of leaves, id of the initial
+ *       entry, length of the link table, length of the string table (7 ints),
+ *   <li>the entry records: offset of the name, kind (node or leaf), start and length of the links
+ *       in the link table (4 ints per entry),
+ *   <li>the name index: the ids ordered by the (unsigned) UTF-8 bytes of their names,
+ *   <li>the link table: the ids of the links of nodes, and the ids of the function links of leaves,
+ *   <li>the string table: the names as length-prefixed UTF-8 bytes.
+ * </ul>
+ */
+final class MappedMenuGraph extends MenuGraph {
+  private static final int MAGIC = 0x434c494d;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 7 * Integer.BYTES;
+  private static final int RECORD_SIZE = 4 * Integer.BYTES;
+  private static final int NODE = 0;
+  private static final int LEAF = 1;
+
+  private final ByteBuffer buffer;
+  private final int size;
+  private final int initialId;
+  private final int indexStart;
+  private final int linkStart;
+  private final int stringStart;
+  private final Map<String, Function<ProcessedInput, Integer>> leafFunctions;
+  private final AtomicReferenceArray<Position> positions;
+  private final AtomicReferenceArray<MenuEntry> entries;
+
+  private MappedMenuGraph(
+      ByteBuffer buffer, Map<String, Function<ProcessedInput, Integer>> leafFunctions) {
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException(INVALID_MENU_FILE.getMessage("unknown format"));
+    }
+
+    if (buffer.getInt(Integer.BYTES) != VERSION) {
+      throw new IllegalArgumentException(
+          INVALID_MENU_FILE.getMessage("unsupported version " + buffer.getInt(Integer.BYTES)));
+    }
+
+    this.buffer = buffer;
+    size = buffer.getInt(2 * Integer.BYTES);
+    int leafCount = buffer.getInt(3 * Integer.BYTES);
+    initialId = buffer.getInt(4 * Integer.BYTES);
+    long linkLength = buffer.getInt(5 * Integer.BYTES);
+    long stringLength = buffer.getInt(6 * Integer.BYTES);
+    long fileSize =
+        HEADER_SIZE
+            + (long) size * (RECORD_SIZE + Integer.BYTES)
+            + linkLength * Integer.BYTES
+            + stringLength;
+
+    if (size < 0
+        || initialId < 0
+        || initialId >= size
+        || linkLength < 0
+        || stringLength < 0
+        || fileSize != buffer.capacity()) {
+      throw new IllegalArgumentException(INVALID_MENU_FILE.getMessage("inconsistent sizes"));
+    }
+
+    indexStart = HEADER_SIZE + size * RECORD_SIZE;
+    linkStart = indexStart + size * Integer.BYTES;
+    stringStart = linkStart + (int) linkLength * Integer.BYTES;
+    checkRecords(leafCount, (int) linkLength, (int) stringLength);
+    checkIndex();
+
+    this.leafFunctions = Map.copyOf(leafFunctions);
+    positions = new AtomicReferenceArray<>(size);
+    entries = new AtomicReferenceArray<>(size);
+    checkLeafFunctions(leafCount);
+  }
+
+  /**
+   * Maps the exported file read-only, and binds the functions of the leaves by their names.
+   *
+   * @throws IllegalArgumentException if the file is not a valid export, or the names of the
+   *     functions do not match the leaves
+   */
+  static MappedMenuGraph map(
+      Path path, Map<String, Function<ProcessedInput, Integer>> leafFunctions) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new MappedMenuGraph(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), leafFunctions);
+    }
+  }
+
+  /** Writes the {@code graph} into the file in the format described above. */
+  static void write(MenuGraph graph, Path path) throws IOException {
+    int size = graph.size();
+    byte[][] names = new byte[size][];
+    int[][] links = new int[size][];
+    int leafCount = 0;
+
+    for (int id = 0; id < size; id++) {
+      MenuEntry menuEntry = graph.get(id);
+      if (menuEntry.isLazy()) {
+        throw new IllegalStateException(
+            INVALID_MENU_FILE.getMessage("'" + menuEntry.getName() + "' is lazily expanded"));
+      }
+      names[id] = menuEntry.getName().getBytes(StandardCharsets.UTF_8);
+
+      if (menuEntry instanceof MenuEntry.Leaf) {
+        leafCount++;
+        links[id] = Arrays.stream(menuEntry.getFunctionLinks()).mapToInt(graph::getId).toArray();
+      } else {
+        links[id] = graph.getLinks(id);
+      }
+
+      if (Arrays.stream(links[id]).anyMatch(e -> e == -1)) {
+        throw new IllegalStateException(
+            INVALID_MENU_FILE.getMessage("unknown link of '" + menuEntry.getName() + "'"));
+      }
+    }
+
+    int[] index =
+        IntStream.range(0, size)
+            .boxed()
+            .sorted((a, b) -> Arrays.compareUnsigned(names[a], names[b]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(size);
+      out.writeInt(leafCount);
+      out.writeInt(graph.getInitialId());
+      out.writeInt(Arrays.stream(links).mapToInt(e -> e.length).sum());
+      out.writeInt(Arrays.stream(names).mapToInt(e -> Integer.BYTES + e.length).sum());
+
+      for (int id = 0, nameOffset = 0, linkOffset = 0; id < size; id++) {
+        out.writeInt(nameOffset);
+        out.writeInt(graph.get(id) instanceof MenuEntry.Leaf ? LEAF : NODE);
+        out.writeInt(linkOffset);
+        out.writeInt(links[id].length);
+        nameOffset += Integer.BYTES + names[id].length;
+        linkOffset += links[id].length;
+      }
+
+      for (int id : index) {
+        out.writeInt(id);
+      }
+
+      for (int[] link : links) {
+        for (int id : link) {
+          out.writeInt(id);
+        }
+      }
+
+      for (byte[] name : names) {
+        out.writeInt(name.length);
+        out.write(name);
+      }
+    }
+  }
+
+  /**
+   * Checks that every name and link of the entries is inside its table, the links point to
+   * entries (the function links of leaves to nodes), and the count of leaves is right.
+   */
+  private void checkRecords(int leafCount, int linkLength, int stringLength) {
+    int leaves = 0;
+
+    for (int id = 0; id < size; id++) {
+      int nameOffset = getRecord(id, 0);
+      int kind = getRecord(id, 1);
+      int linkOffset = getRecord(id, 2);
+      int linkCount = getRecord(id, 3);
+
+      boolean nameInside =
+          0 <= nameOffset
+              && nameOffset <= stringLength - Integer.BYTES
+              && 0 <= getNameLength(id)
+              && getNameLength(id) <= stringLength - Integer.BYTES - nameOffset;
+
+      if (!nameInside
+          || (kind != NODE && kind != LEAF)
+          || linkOffset < 0
+          || linkCount < 0
+          || linkCount > linkLength - linkOffset) {
+        throw new IllegalArgumentException(INVALID_MENU_FILE.getMessage("corrupt entry " + id));
+      }
+
+      leaves += kind == LEAF ? 1 : 0;
+      for (int i = 0; i < linkCount; i++) {
+        int link = buffer.getInt(linkStart + (linkOffset + i) * Integer.BYTES);
+
+        if (link < 0 || link >= size || (kind == LEAF && getRecord(link, 1) != NODE)) {
+          throw new IllegalArgumentException(
+              INVALID_MENU_FILE.getMessage("corrupt link of entry " + id));
+        }
+      }
+    }
+
+    if (leaves != leafCount) {
+      throw new IllegalArgumentException(INVALID_MENU_FILE.getMessage("inconsistent sizes"));
+    }
+  }
+
+  /**
+   * Checks that the name index holds every id once, ordered by the names. (An id twice would break
+   * the strict order.)
+   */
+  private void checkIndex() {
+    for (int i = 0; i < size; i++) {
+      int id = getIndexedId(i);
+
+      if (id < 0 || id >= size || (i > 0 && !isOrdered(getIndexedId(i - 1), id))) {
+        throw new IllegalArgumentException(INVALID_MENU_FILE.getMessage("corrupt name index"));
+      }
+    }
+  }
+
+  private void checkLeafFunctions(int leafCount) {
+    List<String> unknown = new ArrayList<>();
+
+    for (String name : leafFunctions.keySet()) {
+      int id = getId(name);
+      if (id == -1 || !isLeaf(id)) {
+        unknown.add(name);
+      }
+    }
+
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException(
+          LEAF_NAME_UNKNOWN.getMessage(Arrays.toString(unknown.toArray())));
+    }
+
+    if (leafFunctions.size() != leafCount) {
+      throw new IllegalArgumentException(
+          LEAF_FUNCTION_MISSING.getMessage(
+              Arrays.toString(
+                  IntStream.range(0, size)
+                      .filter(this::isLeaf)
+                      .mapToObj(this::getName)
+                      .filter(e -> !leafFunctions.containsKey(e))
+                      .toArray())));
+    }
+  }
+
+  @Override
+  int getId(Position position) {
+    if (position == null) {
+      return -1;
+    }
+
+    int id = getId(position.getName());
+    return id != -1 && getPosition(id).equals(position) ? id : -1;
+  }
+
+  /** Binary search in the name index by the UTF-8 bytes of the {@code name}. */
+  @Override
+  int getId(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = size - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int id = getIndexedId(middle);
+      int comparison = compareName(id, bytes);
+
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  int getInitialId() {
+    return initialId;
+  }
+
+  @Override
+  MenuEntry get(int id) {
+    if (entries.get(id) == null) {
+      entries.compareAndSet(id, null, createEntry(id));
+    }
+    return entries.get(id);
+  }
+
+  @Override
+  int size() {
+    return size;
+  }
+
+  @Override
+  int[] getLinks(int id) {
+    return isLeaf(id) ? new int[0] : readLinks(id);
+  }
+
+  @Override
+  boolean isLinked(int fromId, int toId) {
+    return Arrays.stream(getLinks(fromId)).anyMatch(e -> e == toId);
+  }
+
+  @Override
+  boolean isLeaf(int id) {
+    return getRecord(id, 1) == LEAF;
+  }
+
+  @Override
+  Position getPosition(String name) {
+    int id = getId(name);
+    return id == -1 ? null : getPosition(id);
+  }
+
+  @Override
+  Position getPosition(int id) {
+    if (positions.get(id) == null) {
+      String name = getName(id);
+      Position position = isLeaf(id) ? new LeafPosition(name) : new NodePosition(name);
+      positions.compareAndSet(id, null, position);
+    }
+    return positions.get(id);
+  }
+
+  private MenuEntry createEntry(int id) {
+    Position position = getPosition(id);
+    Position[] links =
+        Arrays.stream(readLinks(id)).mapToObj(this::getPosition).toArray(Position[]::new);
+
+    if (position instanceof LeafPosition) {
+      return new MenuEntry.Leaf(
+          (LeafPosition) position,
+          position.getName(),
+          leafFunctions.get(position.getName()),
+          Arrays.stream(links).map(NodePosition.class::cast).toArray(NodePosition[]::new));
+    }
+    return new MenuEntry.Node((NodePosition) position, position.getName(), links);
+  }
+
+  private int getRecord(int id, int field) {
+    return buffer.getInt(HEADER_SIZE + id * RECORD_SIZE + field * Integer.BYTES);
+  }
+
+  private int[] readLinks(int id) {
+    int start = linkStart + getRecord(id, 2) * Integer.BYTES;
+    return IntStream.range(0, getRecord(id, 3))
+        .map(i -> buffer.getInt(start + i * Integer.BYTES))
+        .toArray();
+  }
+
+  private int getIndexedId(int index) {
+    return buffer.getInt(indexStart + index * Integer.BYTES);
+  }
+
+  private int getNameStart(int id) {
+    return stringStart + getRecord(id, 0) + Integer.BYTES;
+  }
+
+  private int getNameLength(int id) {
+    return buffer.getInt(stringStart + getRecord(id, 0));
+  }
+
+  private String getName(int id) {
+    byte[] bytes = new byte[getNameLength(id)];
+    int start = getNameStart(id);
+
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Checks whether the name of {@code id} strictly precedes the name of {@code nextId}. */
+  private boolean isOrdered(int id, int nextId) {
+    int start = getNameStart(id);
+    int length = getNameLength(id);
+    int nextStart = getNameStart(nextId);
+    int nextLength = getNameLength(nextId);
+
+    for (int i = 0; i < length && i < nextLength; i++) {
+      int comparison = Byte.compareUnsigned(buffer.get(start + i), buffer.get(nextStart + i));
+      if (comparison != 0) {
+        return comparison < 0;
+      }
+    }
+    return length < nextLength;
+  }
+
+  /** Compares the name of {@code id} with the UTF-8 {@code bytes} of a name (unsigned). */
+  private int compareName(int id, byte[] bytes) {
+    int start = getNameStart(id);
+    int length = getNameLength(id);
+
+    for (int i = 0; i < length && i < bytes.length; i++) {
+      int comparison = Byte.compareUnsigned(buffer.get(start + i), bytes[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(length, bytes.length);
+  }
+}
@@ -27,6 +27,8 @@ import static hu.zza.clim.menu.Message.INVALID_NONEMPTY_ARGUMENT;
 import static hu.zza.clim.menu.Message.INVALID_NONNULL_ARGUMENT;
 
 import hu.zza.clim.Menu;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 /**
@@ -39,13 +41,18 @@ public abstract class MenuEntry {
   private final Position position;
   private final Position[] links;
   private final Function<ProcessedInput, Integer> function;
+  private final Function<ProcessedInput, CompletionStage<Integer>> asyncFunction;
   private final NodePosition[] functionLinks;
+  private final SubtreeLoader subtreeLoader;
+  private volatile SubtreeCache subtreeCache;
 
   private MenuEntry(
       Position position,
       String name,
       Position[] links,
+      SubtreeLoader subtreeLoader,
       Function<ProcessedInput, Integer> function,
+      Function<ProcessedInput, CompletionStage<Integer>> asyncFunction,
       NodePosition... functionLinks) {
     if (position == null) {
       throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("position"));
@@ -70,7 +77,9 @@ public abstract class MenuEntry {
     this.position = position;
     this.name = name;
     this.links = links.clone();
+    this.subtreeLoader = subtreeLoader;
     this.function = function;
+    this.asyncFunction = asyncFunction;
     this.functionLinks = functionLinks.clone();
   }
 
@@ -82,10 +91,39 @@ public abstract class MenuEntry {
     return position;
   }
 
+  /**
+   * Returns the adjacent positions. The links of a lazily expanded {@link Node} are produced by its
+   * {@link SubtreeLoader} at the first call, and they are kept in the bounded subtree cache of its
+   * {@link MenuStructure}. (So after an eviction, they are loaded again.)
+   *
+   * @return the adjacent positions
+   */
   public Position[] getLinks() {
+    return subtreeLoader == null ? links : getSubtree().getLinks();
+  }
+
+  /** Returns the links given at construction (without expanding a lazy {@link Node}). */
+  Position[] getDeclaredLinks() {
     return links;
   }
 
+  boolean isLazy() {
+    return subtreeLoader != null;
+  }
+
+  SubtreeLoader getSubtreeLoader() {
+    return subtreeLoader;
+  }
+
+  void setSubtreeCache(SubtreeCache subtreeCache) {
+    this.subtreeCache = subtreeCache;
+  }
+
+  SubtreeCache.Subtree getSubtree() {
+    SubtreeCache cache = subtreeCache;
+    return cache != null ? cache.get(this) : SubtreeCache.load(this);
+  }
+
   /**
    * {@link Menu} performs this method on every selected {@link MenuEntry}, then redirects itself to
    * the returning {@link NodePosition}.
@@ -101,6 +139,21 @@ public abstract class MenuEntry {
     return getFunctionLinks()[getFunction().apply(parameterMap)];
   }
 
+  /**
+   * Same as {@link #select(ProcessedInput)}, but the function of an {@link Leaf#async asynchronous
+   * leaf} is not waited for: The returned stage completes with the {@link NodePosition} when the
+   * stage of the function completes. (Other entries are selected before this method returns.)
+   *
+   * @return the stage of the {@link NodePosition} where the {@link Menu} redirects itself
+   * @since 0.3.2
+   */
+  public CompletionStage<NodePosition> selectAsync(ProcessedInput parameterMap) {
+    if (asyncFunction == null) {
+      return CompletableFuture.completedFuture(select(parameterMap));
+    }
+    return asyncFunction.apply(parameterMap).thenApply(e -> getFunctionLinks()[e]);
+  }
+
   NodePosition[] getFunctionLinks() {
     return functionLinks;
   }
@@ -133,7 +186,34 @@ public abstract class MenuEntry {
       function        -   "Placeholder" function, always returns 0.
       functionLinks   -   An array of Positions with only one element: The Position of this MenuEntry.
        */
-      super(position, name, links, parameterMap -> 0, position);
+      super(position, name, links, null, parameterMap -> 0, null, position);
+    }
+
+    /**
+     * Creates a lazily expanded node: Its links are produced by the {@code subtreeLoader} when they
+     * are needed first (e.g. the node is entered), instead of building the whole graph up front.
+     *
+     * @param position unique position identifier
+     * @param name human-friendly name of this node
+     * @param subtreeLoader the producer of the entries which are linked from this node
+     * @since 0.3.2
+     */
+    public Node(NodePosition position, String name, SubtreeLoader subtreeLoader) {
+      super(
+          position,
+          name,
+          new Position[0],
+          checkLoader(subtreeLoader),
+          parameterMap -> 0,
+          null,
+          position);
+    }
+
+    private static SubtreeLoader checkLoader(SubtreeLoader subtreeLoader) {
+      if (subtreeLoader == null) {
+        throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("subtreeLoader"));
+      }
+      return subtreeLoader;
     }
   }
 
@@ -173,7 +253,47 @@ public abstract class MenuEntry {
       functionLinks   -   An array of Positions: the forwarding options for a Leaf. The outcome of a Leaf's
                           function controls the forwarding: functionLinks[returnValue].
        */
-      super(position, name, new Position[0], function, functionLinks);
+      super(position, name, new Position[0], null, function, null, functionLinks);
+    }
+
+    private Leaf(
+        LeafPosition position,
+        String name,
+        NodePosition[] functionLinks,
+        Function<ProcessedInput, CompletionStage<Integer>> asyncFunction) {
+      super(
+          position,
+          name,
+          new Position[0],
+          null,
+          parameterMap -> asyncFunction.apply(parameterMap).toCompletableFuture().join(),
+          asyncFunction,
+          functionLinks);
+    }
+
+    /**
+     * Creates an asynchronous leaf: Its function starts the task, and returns a stage of the int
+     * value (without waiting for it). So a {@link Menu} can {@link Menu#chooseOptionAsync(String)
+     * choose it} without blocking, and it navigates to {@code functionLinks[result]} when the stage
+     * completes. ({@link #select(ProcessedInput)} waits for the stage.)
+     *
+     * @param position unique position identifier
+     * @param name human-friendly name of this leaf
+     * @param asyncFunction the essence of this leaf, which returns the stage of the int value
+     * @param functionLinks {@link NodePosition} objects for forwarding, from which the completed
+     *     int value of the {@code asyncFunction} is chosen
+     * @return the asynchronous {@link Leaf}
+     * @since 0.3.2
+     */
+    public static Leaf async(
+        LeafPosition position,
+        String name,
+        Function<ProcessedInput, CompletionStage<Integer>> asyncFunction,
+        NodePosition... functionLinks) {
+      if (asyncFunction == null) {
+        throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("asyncFunction"));
+      }
+      return new Leaf(position, name, functionLinks, asyncFunction);
     }
   }
 }
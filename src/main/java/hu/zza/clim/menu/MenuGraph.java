@@ -0,0 +1,141 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Graph form of a finalized {@link MenuStructure}: Every {@link MenuEntry} has an int id from zero
+ * to {@link #size()} - 1, and the links of the {@link MenuEntry.Node nodes} are id arrays. The
+ * graph is {@link DenseMenuGraph compiled} from the entries of the structure, or {@link
+ * MappedMenuGraph mapped} from an exported file.
+ *
+ * <p>A graph is immutable, so it can be read by many threads without locking. (Only its {@link
+ * RouteTable route tables} and its {@link SearchIndex} are computed on demand: The route table of
+ * the initial entry and the index are kept, and the other route tables are cached in a bounded LRU
+ * cache.)
+ */
+abstract class MenuGraph {
+  static final int ROUTE_TABLE_CACHE_SIZE = 64;
+
+  private final Map<Integer, RouteTable> routeTables =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, RouteTable> eldest) {
+          return size() > ROUTE_TABLE_CACHE_SIZE;
+        }
+      };
+  private volatile RouteTable initialRouteTable;
+  private volatile SearchIndex searchIndex;
+
+  /** Returns the id of the {@link Position}, or -1 if it is not in the graph. */
+  abstract int getId(Position position);
+
+  /** Returns the id of the entry named {@code name}, or -1 if there is no such. */
+  abstract int getId(String name);
+
+  abstract int getInitialId();
+
+  abstract MenuEntry get(int id);
+
+  /** Returns the {@link Position} of the entry (without materializing the entry itself). */
+  abstract Position getPosition(int id);
+
+  abstract int size();
+
+  /** Returns the ids of the links of the entry (in the order of its links, -1 if unknown). */
+  abstract int[] getLinks(int id);
+
+  abstract boolean isLinked(int fromId, int toId);
+
+  abstract boolean isLeaf(int id);
+
+  /** Computes the {@link RouteTable} of the initial entry, so routes from it are never searched. */
+  void precomputeRoutes() {
+    if (getInitialId() != -1) {
+      initialRouteTable = new RouteTable(this, getInitialId());
+    }
+  }
+
+  /**
+   * Returns the ids of the shortest route from {@code fromId} to {@code toId} (see {@link
+   * RouteTable#getRoute(int)}). The {@link RouteTable} of {@code fromId} is searched once, then
+   * it is cached.
+   */
+  int[] getRoute(int fromId, int toId) {
+    return getRouteTable(fromId).getRoute(toId);
+  }
+
+  /** Returns the {@link SearchIndex} of the names, and builds it at the first call. */
+  SearchIndex getSearchIndex() {
+    SearchIndex index = searchIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = searchIndex;
+        if (index == null) {
+          index = new SearchIndex(this);
+          searchIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  private RouteTable getRouteTable(int fromId) {
+    RouteTable routeTable = initialRouteTable;
+    if (routeTable != null && routeTable.getSourceId() == fromId) {
+      return routeTable;
+    }
+
+    synchronized (routeTables) {
+      routeTable = routeTables.get(fromId);
+    }
+    if (routeTable == null) {
+      routeTable = new RouteTable(this, fromId);
+      synchronized (routeTables) {
+        routeTables.putIfAbsent(fromId, routeTable);
+      }
+    }
+    return routeTable;
+  }
+
+  /** Returns the {@link Position} of the entry named {@code name}, or null if there is no such. */
+  Position getPosition(String name) {
+    int id = getId(name);
+    return id == -1 ? null : getPosition(id);
+  }
+
+  /** Returns the {@link MenuEntry} of the {@code position}, or the initial one if it is null. */
+  MenuEntry get(Position position) {
+    int id = position == null ? getInitialId() : getId(position);
+    return id == -1 ? null : get(id);
+  }
+
+  boolean isLinked(Position from, Position to) {
+    int fromId = getId(from);
+    int toId = getId(to);
+    return fromId != -1 && toId != -1 && isLinked(fromId, toId);
+  }
+}
@@ -23,15 +23,64 @@
 
 package hu.zza.clim.menu;
 
+import static hu.zza.clim.menu.Message.INVALID_POSITIVE_ARGUMENT;
+import static hu.zza.clim.menu.Message.INVALID_STATE;
+
 import hu.zza.clim.Menu;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
-/** Represents the structure of a {@link Menu}. */
+/**
+ * Represents the structure of a {@link Menu}. When it is finalized, it is compiled into a dense
+ * {@link MenuGraph}, so lookups and link checks do not use hashing. A finalized structure can be
+ * exported into a binary file, and loaded from it without building and validating it again.
+ *
+ * <p>The shortest routes between nodes are searched once per starting node (the routes from the
+ * initial node are found at finalization), so any reachable node can be jumped to directly. The
+ * names of the entries can be searched with typos too.
+ *
+ * <p>Huge parts of the menu can be declared as lazily expanded {@link MenuEntry.Node nodes}: Their
+ * subtrees are loaded when they are visited, and kept in a bounded cache.
+ */
 public final class MenuStructure {
 
   private final HashMap<Position, MenuEntry> menu = new HashMap<>();
   private NodePosition initialPosition;
   private boolean finalized;
+  private MenuGraph graph;
+  private SubtreeCache subtreeCache = new SubtreeCache(SubtreeCache.DEFAULT_MAXIMUM_SIZE);
+
+  public MenuStructure() {}
+
+  private MenuStructure(MenuGraph graph) {
+    this.finalized = true;
+    this.graph = graph;
+    graph.precomputeRoutes();
+  }
+
+  /**
+   * Loads a {@link MenuStructure} exported by {@link #export(Path)}. The file is memory-mapped and
+   * its entries are materialized at their first use, so neither parsing nor validation is needed.
+   * The functions of the leaves are bound by their names, and every leaf needs one.
+   *
+   * @param path the path of the exported file
+   * @param leafFunctions the functions of the leaves by their names
+   * @return a finalized {@link MenuStructure}
+   * @throws IOException if the file can not be mapped
+   * @throws IllegalArgumentException if the file is not a valid export, or {@code leafFunctions}
+   *     do not match the leaves of it
+   * @since 0.3.2
+   */
+  public static MenuStructure load(
+      Path path, Map<String, Function<ProcessedInput, Integer>> leafFunctions) throws IOException {
+    Util.assertNonNull(List.of("path", "leafFunctions"), path, leafFunctions);
+    return new MenuStructure(MappedMenuGraph.map(path, leafFunctions));
+  }
 
   public void setInitialPosition(NodePosition initialPosition) {
     if (!finalized) {
@@ -52,12 +101,136 @@ public final class MenuStructure {
     return finalized ? null : menu.put(menuEntry.getPosition(), menuEntry);
   }
 
+  /**
+   * Sets the maximum count of the cached subtrees of lazily expanded {@link MenuEntry.Node nodes}
+   * (see {@link MenuEntry.Node#Node(NodePosition, String, SubtreeLoader)}). The least recently used
+   * subtree is evicted above this, and its entries are loaded again when they are needed. It has
+   * no effect after finalization.
+   *
+   * @param maximumSize the maximum count of the cached subtrees (at least 1)
+   * @since 0.3.2
+   */
+  public void setSubtreeCacheSize(int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException(INVALID_POSITIVE_ARGUMENT.getMessage("maximumSize"));
+    }
+
+    if (!finalized) {
+      subtreeCache = new SubtreeCache(maximumSize);
+    }
+  }
+
   public boolean containsKey(Position position) {
-    return menu.containsKey(position);
+    return get(position) != null;
   }
 
+  /**
+   * Returns the {@link MenuEntry} of the {@code position}. The entries of the loaded subtrees of
+   * lazily expanded nodes are found too, until their subtree is evicted.
+   *
+   * @param position the position of the entry (or null for the initial entry)
+   * @return the {@link MenuEntry}, or null if there is no such
+   */
   public MenuEntry get(Position position) {
-    return menu.get(position);
+    MenuEntry menuEntry = graph != null ? graph.get(position) : menu.get(position);
+    return menuEntry == null && position != null ? subtreeCache.find(position) : menuEntry;
+  }
+
+  /**
+   * Returns the {@link Position} of the {@link MenuEntry} named {@code name} in this structure.
+   * (Positions are registered per structure, so there is no global lookup by name.)
+   *
+   * @param name the name of the {@link Position}
+   * @return the {@link Position}, or null if there is no such entry
+   * @since 0.3.2
+   */
+  public Position getPosition(String name) {
+    Position position =
+        graph != null
+            ? graph.getPosition(name)
+            : menu.keySet().stream()
+                .filter(e -> e != null && e.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+    return position == null ? subtreeCache.findPosition(name) : position;
+  }
+
+  /**
+   * Checks whether {@code to} is among the links of {@code from}. (It is a lookup in the compiled
+   * links if the structure is finalized.)
+   *
+   * @param from the {@link Position} of the {@link MenuEntry.Node node}
+   * @param to the linked {@link Position} looking for
+   * @return true if {@code from} has a link to {@code to}
+   * @since 0.3.2
+   */
+  public boolean isLinked(Position from, Position to) {
+    if (graph != null) {
+      int fromId = graph.getId(from);
+
+      if (fromId != -1 && !graph.get(fromId).isLazy()) {
+        return graph.isLinked(from, to);
+      }
+    }
+
+    MenuEntry menuEntry = get(from);
+    return menuEntry != null && Arrays.asList(menuEntry.getLinks()).contains(to);
+  }
+
+  /**
+   * Returns the shortest route from the {@link MenuEntry.Node node} {@code from} to the node {@code
+   * to}. A route goes through nodes only (never calls the functions of leaves), and it does not
+   * enter the subtrees of lazily expanded nodes.
+   *
+   * @param from the {@link Position} of the starting node
+   * @param to the {@link Position} of the target node
+   * @return the positions of the route after {@code from} (ending with {@code to}), an empty array
+   *     if they are the same, or null if {@code to} is not reachable from {@code from}
+   * @throws IllegalStateException if this structure is not finalized
+   * @since 0.3.2
+   */
+  public NodePosition[] getRoute(Position from, Position to) {
+    if (graph == null) {
+      throw new IllegalStateException(
+          INVALID_STATE.getMessage("getRoute", "the MenuStructure is not finalized"));
+    }
+    int fromId = graph.getId(from);
+    int toId = graph.getId(to);
+
+    if (fromId == -1 || toId == -1 || graph.isLeaf(fromId) || graph.isLeaf(toId)) {
+      return null;
+    }
+
+    int[] route = graph.getRoute(fromId, toId);
+    return route == null
+        ? null
+        : Arrays.stream(route)
+            .mapToObj(e -> (NodePosition) graph.getPosition(e))
+            .toArray(NodePosition[]::new);
+  }
+
+  /**
+   * Searches the entries by name: The hits contain the query (ignoring case), or they are similar
+   * enough to it, so typos are tolerated. The names are indexed by trigrams at the first search,
+   * then a query takes time proportional to the count of candidates, not to the size of the
+   * structure. The entries of the subtrees of lazily expanded nodes are not searched.
+   *
+   * @param query the text to search for
+   * @param limit the maximum count of hits (at least 1)
+   * @return the best hits in descending order, with the paths leading to them
+   * @throws IllegalStateException if this structure is not finalized
+   * @since 0.3.2
+   */
+  public List<SearchHit> search(String query, int limit) {
+    Util.assertNonNull("query", query);
+    if (limit < 1) {
+      throw new IllegalArgumentException(INVALID_POSITIVE_ARGUMENT.getMessage("limit"));
+    }
+    if (graph == null) {
+      throw new IllegalStateException(
+          INVALID_STATE.getMessage("search", "the MenuStructure is not finalized"));
+    }
+    return graph.getSearchIndex().search(query, limit);
   }
 
   public boolean isFinalized() {
@@ -69,12 +242,39 @@ public final class MenuStructure {
    * method sets the initial (and fallback) position too.
    */
   public void setFinalized() {
+    if (finalized) {
+      return;
+    }
     finalized = true;
     menu.put(null, menu.get(initialPosition));
+    menu.values().stream()
+        .filter(e -> e != null && e.isLazy())
+        .forEach(e -> e.setSubtreeCache(subtreeCache));
+    graph = new DenseMenuGraph(menu.values(), initialPosition);
+    graph.precomputeRoutes();
+  }
+
+  /**
+   * Writes this finalized structure into a compact, versioned binary file, which can be loaded by
+   * {@link #load(Path, Map)}. The file contains the names, the links of the nodes and the links of
+   * the leaves, but not the functions of the leaves.
+   *
+   * @param path the path of the file to write
+   * @throws IOException if the file can not be written
+   * @throws IllegalStateException if this structure is not finalized
+   * @since 0.3.2
+   */
+  public void export(Path path) throws IOException {
+    Util.assertNonNull("path", path);
+    if (graph == null) {
+      throw new IllegalStateException(
+          INVALID_STATE.getMessage("export", "the MenuStructure is not finalized"));
+    }
+    MappedMenuGraph.write(graph, path);
   }
 
   public boolean isEmpty() {
-    return menu.isEmpty();
+    return graph != null ? graph.size() == 0 : menu.isEmpty();
   }
 
   public void clear() {
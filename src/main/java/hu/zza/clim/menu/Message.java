@@ -43,7 +43,10 @@ public enum Message {
 
   INVALID_NONNULL_ARGUMENT,
   INVALID_NONEMPTY_ARGUMENT,
+  INVALID_NONNEGATIVE_ARGUMENT,
+  INVALID_POSITIVE_ARGUMENT,
   INVALID_NULL_ELEMENT,
+  INVALID_REUSABLE_ARGUMENT,
   INVALID_STATE,
 
   INVALID_POSITION,
@@ -53,10 +56,16 @@ public enum Message {
   NODE_NAME_UNKNOWN,
   LEAF_NAME_UNKNOWN,
   INVALID_LINK,
+  LEAF_FUNCTION_MISSING,
+  INVALID_MENU_FILE,
 
   UNKNOWN_MENU_COMMAND,
   INVALID_MENU_ARGUMENT,
+  INVALID_PARAMETER_VALUE,
+  INVALID_NAMED_PARAMETER_VALUE,
+  MATCHING_STEP_LIMIT_EXCEEDED,
   INVALID_MENU_POSITION,
+  NO_ROUTE,
   NO_MENU_OPTIONS,
 
   SHORT_LICENSE,
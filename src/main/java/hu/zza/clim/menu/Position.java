@@ -24,30 +24,21 @@
 package hu.zza.clim.menu;
 
 import hu.zza.clim.Menu;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 
 /**
  * Represents positions that construct the structure of a {@link Menu} object: It can symbolize a
  * {@link NodePosition node} or a {@link LeafPosition leaf} by its subinterfaces. This and its
  * subtypes are marker interfaces for user defined enums. These enums function as ID collections.
+ *
+ * <p>There is no global registry of {@link Position positions}: A name is resolved by the {@link
+ * MenuStructure} which contains it (see {@link MenuStructure#getPosition(String)}), so discarded
+ * structures release their positions.
  */
 public abstract class Position {
-  private static final Map<String, Position> instances = new HashMap<>();
   private final String name;
 
   Position(String name) {
     this.name = name;
-    instances.put(name, this);
-  }
-
-  public static boolean existsByName(String name) {
-    return instances.containsKey(name);
-  }
-
-  public static Position getByName(String name) {
-    return instances.get(name);
   }
 
   public String getName() {
@@ -56,7 +47,7 @@ public abstract class Position {
 
   @Override
   public int hashCode() {
-    return Objects.hash(name);
+    return name.hashCode();
   }
 
   @Override
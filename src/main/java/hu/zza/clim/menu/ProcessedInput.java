@@ -23,34 +23,212 @@
 
 package hu.zza.clim.menu;
 
+import static hu.zza.clim.menu.Message.INVALID_STATE;
+
 import hu.zza.clim.parameter.Parameter;
 import hu.zza.clim.parameter.ParameterName;
-import java.util.HashMap;
-import java.util.Map;
+import hu.zza.clim.parameter.ParameterSlots;
+import hu.zza.clim.parameter.ProcessingBuffer;
+import java.util.List;
 
+/**
+ * Result of processing an input: the selected {@link Position} and the {@link Parameter parameters}
+ * (with their values) by {@link ParameterName}.
+ *
+ * <p>The {@link Parameter parameters} are stored in an array by the {@link ParameterSlots slots} of
+ * their names (in a {@link ProcessingBuffer}), so a lookup is an array access (for enum names)
+ * without any hashing.
+ *
+ * <p>{@link ProcessedInput} objects are immutable, except the {@link ProcessedInput#reusable()
+ * reusable} ones: they can be passed to {@link
+ * hu.zza.clim.parameter.ParameterMatcher#processText(CharSequence, ProcessedInput)} again and
+ * again, which overwrites their content. (So a reusable instance should be confined to one thread,
+ * e.g. a session or a {@link ThreadLocal}, and steady-state processing allocates only the values.)
+ */
 public final class ProcessedInput {
 
+  private static final Parameter[] NO_PARAMETERS = new Parameter[0];
   public static final ProcessedInput NULL = new ProcessedInput(null);
-  private final Position position;
-  private final Map<ParameterName, Parameter> parameterMap = new HashMap<>();
+  private final boolean reusable;
+  private final ProcessingBuffer buffer = new ProcessingBuffer();
 
   public ProcessedInput(Position position) {
-    this.position = position;
+    this(false, position, ParameterSlots.EMPTY, NO_PARAMETERS);
   }
 
-  public Position getPosition() {
-    return position;
+  /**
+   * @param position the selected {@link Position}
+   * @param parameterNames the names of the {@code parameters} in the same order
+   * @param parameters the {@link Parameter parameters} with their values
+   */
+  public ProcessedInput(
+      Position position, List<ParameterName> parameterNames, List<Parameter> parameters) {
+    this(
+        false,
+        position,
+        ParameterSlots.of(parameterNames),
+        parameters.subList(0, parameterNames.size()).toArray(NO_PARAMETERS));
+  }
+
+  /**
+   * Creates a {@link ProcessedInput} with {@link Parameter parameters} by slots.
+   *
+   * @param position the selected {@link Position}
+   * @param slots the slots of the {@link ParameterName parameter names}
+   * @param parameters the {@link Parameter parameters} with their values, in the order of the
+   *     {@code slots} (copied)
+   * @since 0.3.2
+   */
+  public ProcessedInput(Position position, ParameterSlots slots, Parameter[] parameters) {
+    this(false, position, slots, parameters);
+  }
+
+  private ProcessedInput(
+      boolean reusable, Position position, ParameterSlots slots, Parameter[] parameters) {
+    this.reusable = reusable;
+    buffer.set(position, slots, parameters);
+  }
+
+  private ProcessedInput(boolean reusable, ProcessingBuffer source) {
+    this.reusable = reusable;
+    buffer.copyFrom(source);
+  }
+
+  /**
+   * Creates an empty, reusable {@link ProcessedInput}. See {@link
+   * hu.zza.clim.parameter.ParameterMatcher#processText(CharSequence, ProcessedInput)}.
+   *
+   * @return a new reusable {@link ProcessedInput}
+   * @since 0.3.2
+   */
+  public static ProcessedInput reusable() {
+    return new ProcessedInput(true, null, ParameterSlots.EMPTY, NO_PARAMETERS);
+  }
+
+  /**
+   * Returns true if this {@link ProcessedInput} can be overwritten by processing.
+   *
+   * @return true if it is created by {@link ProcessedInput#reusable()}
+   * @since 0.3.2
+   */
+  public boolean isReusable() {
+    return reusable;
+  }
+
+  /**
+   * Returns the {@link ProcessingBuffer} of this reusable {@link ProcessedInput}, which is
+   * overwritten by {@link hu.zza.clim.parameter.ParameterMatcher}.
+   *
+   * @return the {@link ProcessingBuffer} of the content
+   * @throws IllegalStateException if this {@link ProcessedInput} is not reusable
+   * @since 0.3.2
+   */
+  public ProcessingBuffer getBuffer() {
+    if (!reusable) {
+      throw new IllegalStateException(
+          INVALID_STATE.getMessage("getBuffer", "the ProcessedInput is not reusable"));
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns an immutable copy of this {@link ProcessedInput}, or itself if it is not reusable. (So
+   * a result can be kept, while its reusable instance is overwritten by the next input.)
+   *
+   * @return an immutable {@link ProcessedInput} with the same content
+   * @since 0.3.2
+   */
+  public ProcessedInput copy() {
+    return reusable ? new ProcessedInput(false, buffer) : this;
+  }
+
+  /**
+   * Overwrites this reusable {@link ProcessedInput} with the content of {@code source}.
+   *
+   * @param source the {@link ProcessedInput} to copy
+   * @return this {@link ProcessedInput}
+   * @throws IllegalStateException if this {@link ProcessedInput} is not reusable
+   * @since 0.3.2
+   */
+  public ProcessedInput copyFrom(ProcessedInput source) {
+    Util.assertNonNull("source", source);
+    getBuffer().copyFrom(source.buffer);
+    return this;
   }
 
-  public void putParameter(ParameterName parameterName, Parameter parameter) {
-    parameterMap.put(parameterName, parameter);
+  public Position getPosition() {
+    return buffer.getPosition();
   }
 
   public boolean containsParameter(ParameterName parameterName) {
-    return parameterMap.containsKey(parameterName);
+    return buffer.getSlots().getSlot(parameterName) != -1;
   }
 
   public Parameter getParameter(ParameterName parameterName) {
-    return parameterMap.getOrDefault(parameterName, Parameter.NULL);
+    int slot = buffer.getSlots().getSlot(parameterName);
+    Parameter parameter = slot == -1 ? null : buffer.get(slot);
+    return parameter == null ? Parameter.NULL : parameter;
+  }
+
+  /**
+   * Returns the value of the {@link Parameter} as an {@code int} (without boxing). See {@link
+   * Parameter#getInt()}.
+   *
+   * @param parameterName the name of the {@link Parameter}
+   * @return the value as an {@code int}
+   * @since 0.3.2
+   */
+  public int getInt(ParameterName parameterName) {
+    return getParameter(parameterName).getInt();
+  }
+
+  /**
+   * Returns the value of the {@link Parameter} as a {@code long} (without boxing). See {@link
+   * Parameter#getLong()}.
+   *
+   * @param parameterName the name of the {@link Parameter}
+   * @return the value as a {@code long}
+   * @since 0.3.2
+   */
+  public long getLong(ParameterName parameterName) {
+    return getParameter(parameterName).getLong();
+  }
+
+  /**
+   * Returns the value of the {@link Parameter} as a {@code double} (without boxing). See {@link
+   * Parameter#getDouble()}.
+   *
+   * @param parameterName the name of the {@link Parameter}
+   * @return the value as a {@code double}
+   * @since 0.3.2
+   */
+  public double getDouble(ParameterName parameterName) {
+    return getParameter(parameterName).getDouble();
+  }
+
+  /**
+   * Returns the value of the {@link Parameter} as a {@code boolean} (without boxing). See {@link
+   * Parameter#getBoolean()}.
+   *
+   * @param parameterName the name of the {@link Parameter}
+   * @return the value as a {@code boolean}
+   * @since 0.3.2
+   */
+  public boolean getBoolean(ParameterName parameterName) {
+    return getParameter(parameterName).getBoolean();
+  }
+
+  /**
+   * Returns the value of the {@link Parameter} as a constant of {@code enumType}. See {@link
+   * Parameter#getEnum(Class)}.
+   *
+   * @param parameterName the name of the {@link Parameter}
+   * @param enumType the class of the enum
+   * @param <E> the type of the enum
+   * @return the value as a constant of {@code enumType}
+   * @since 0.3.2
+   */
+  public <E extends Enum<E>> E getEnum(ParameterName parameterName, Class<E> enumType) {
+    return getParameter(parameterName).getEnum(enumType);
   }
 }
@@ -0,0 +1,92 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Shortest routes from one node of a {@link MenuGraph} to every entry reachable from it. The routes
+ * are found by a breadth-first search over the links of {@link MenuEntry.Node nodes}: A route can
+ * end in a leaf, but it does not pass it, because choosing a leaf calls its function. So checking
+ * the reachability of an entry is an array access, and a route is read backwards without
+ * searching.
+ */
+final class RouteTable {
+  private final int sourceId;
+  private final int[] previousIds;
+  private final int[] distances;
+
+  RouteTable(MenuGraph graph, int sourceId) {
+    this.sourceId = sourceId;
+    previousIds = new int[graph.size()];
+    distances = new int[graph.size()];
+    Arrays.fill(previousIds, -1);
+    Arrays.fill(distances, -1);
+    distances[sourceId] = 0;
+
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.offer(sourceId);
+
+    while (!queue.isEmpty()) {
+      int id = queue.poll();
+
+      for (int link : graph.getLinks(id)) {
+        if (link != -1 && distances[link] == -1) {
+          previousIds[link] = id;
+          distances[link] = distances[id] + 1;
+
+          if (!graph.isLeaf(link)) {
+            queue.offer(link);
+          }
+        }
+      }
+    }
+  }
+
+  int getSourceId() {
+    return sourceId;
+  }
+
+  boolean isReachable(int toId) {
+    return distances[toId] != -1;
+  }
+
+  /**
+   * Returns the ids of the shortest route after the source (ending with {@code toId}), an empty
+   * array if {@code toId} is the source, or null if it is not reachable.
+   */
+  int[] getRoute(int toId) {
+    if (!isReachable(toId)) {
+      return null;
+    }
+
+    int[] route = new int[distances[toId]];
+    for (int i = route.length - 1, id = toId; i >= 0; i--, id = previousIds[id]) {
+      route[i] = id;
+    }
+    return route;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.List;
+
+/**
+ * A result of {@link MenuStructure#search(String, int)}: a matching {@link MenuEntry}, the
+ * similarity of its name to the query, and the path leading to it from the initial node.
+ *
+ * @since 0.3.2
+ */
+public final class SearchHit {
+  private final Position position;
+  private final double score;
+  private final List<Position> path;
+
+  SearchHit(Position position, double score, List<Position> path) {
+    this.position = position;
+    this.score = score;
+    this.path = path;
+  }
+
+  /**
+   * Returns the position of the matching entry.
+   *
+   * @return the {@link Position} of the hit
+   * @since 0.3.2
+   */
+  public Position getPosition() {
+    return position;
+  }
+
+  /**
+   * Returns the similarity of the name of the entry to the query, from 0 (nothing in common) to 1
+   * (the same, ignoring case).
+   *
+   * @return the score of the hit
+   * @since 0.3.2
+   */
+  public double getScore() {
+    return score;
+  }
+
+  /**
+   * Returns the shortest navigation path to the entry: the positions from the initial node to the
+   * hit (both included). It is empty if the entry can not be reached by navigation (e.g. it is
+   * loaded in the subtree of a lazily expanded node).
+   *
+   * @return the unmodifiable list of the positions on the path
+   * @since 0.3.2
+   */
+  public List<Position> getPath() {
+    return path;
+  }
+}
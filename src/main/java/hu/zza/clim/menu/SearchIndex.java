@@ -0,0 +1,198 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Trigram index of the names of the entries in a {@link MenuGraph}. Every name is split into its
+ * (case-insensitive, padded) trigrams, and every trigram has a sorted id array of the names
+ * containing it. A query is answered by counting the shared trigrams of the candidates only, so
+ * it does not scan the names, and typos change only a few trigrams of a name. (The counts are
+ * kept in graph-sized buffers, which are borrowed from a small shared pool for a query, and only
+ * the counts of the candidates are cleared while ranking, so a buffer is returned cleared.)
+ *
+ * <p>The hits are ranked by the Sørensen–Dice coefficient of the trigram sets. Names containing
+ * the query (if it has at least 3 characters) are always hits, and they precede the others.
+ */
+final class SearchIndex {
+  static final double MINIMUM_SCORE = 0.3;
+  private static final int GRAM_LENGTH = 3;
+  private static final int[] NO_IDS = new int[0];
+  private static final int POOLED_BUFFER_COUNT = Runtime.getRuntime().availableProcessors();
+
+  private final MenuGraph graph;
+  private final String[] names;
+  private final int[] gramCounts;
+  private final Map<String, int[]> postings = new HashMap<>();
+  private final BlockingQueue<int[]> sharedCountPool =
+      new ArrayBlockingQueue<>(POOLED_BUFFER_COUNT);
+
+  SearchIndex(MenuGraph graph) {
+    this.graph = graph;
+    names = new String[graph.size()];
+    gramCounts = new int[graph.size()];
+    Map<String, List<Integer>> ids = new HashMap<>();
+
+    for (int id = 0; id < names.length; id++) {
+      names[id] = normalize(graph.getPosition(id).getName());
+      Set<String> grams = getGrams(names[id]);
+      gramCounts[id] = grams.size();
+
+      for (String gram : grams) {
+        ids.computeIfAbsent(gram, k -> new ArrayList<>()).add(id);
+      }
+    }
+    ids.forEach((gram, list) -> postings.put(gram, list.stream().mapToInt(e -> e).toArray()));
+  }
+
+  private static String normalize(String text) {
+    return text.toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> getGrams(String normalized) {
+    String padded = "  " + normalized + " ";
+    Set<String> grams = new LinkedHashSet<>();
+
+    for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+      grams.add(padded.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+
+  /**
+   * Returns the best {@code limit} hits of the {@code query} in descending order. (Only the best
+   * ones are kept while counting, so a query matching many names is not slowed down by sorting.)
+   */
+  List<SearchHit> search(String query, int limit) {
+    String normalized = normalize(query);
+    Set<String> queryGrams = getGrams(normalized);
+    int[] pooled = sharedCountPool.poll();
+    int[] shared = pooled == null ? new int[names.length] : pooled;
+    int[] candidates = new int[16];
+    int candidateCount = 0;
+
+    for (String gram : queryGrams) {
+      for (int id : postings.getOrDefault(gram, NO_IDS)) {
+        if (shared[id]++ == 0) {
+          if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+          }
+          candidates[candidateCount++] = id;
+        }
+      }
+    }
+
+    // A name containing the query shares every trigram of it, except the (at most 3) padded ones.
+    int minimumSharedForContaining = queryGrams.size() - GRAM_LENGTH;
+    PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+
+    for (int i = 0; i < candidateCount; i++) {
+      int id = candidates[i];
+      int sharedCount = shared[id];
+      shared[id] = 0;
+      double score = 2.0 * sharedCount / (queryGrams.size() + gramCounts[id]);
+      boolean containing =
+          sharedCount >= minimumSharedForContaining && names[id].contains(normalized);
+
+      if ((containing || score >= MINIMUM_SCORE)
+          && (best.size() < limit || best.peek().isWorseThan(containing, score, names[id]))) {
+        best.offer(new Candidate(id, names[id], score, containing));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+    }
+    // Every count is cleared, so the buffer can be reused. (It is dropped if the pool is full.)
+    sharedCountPool.offer(shared);
+
+    List<Candidate> hits = new ArrayList<>(best);
+    Collections.sort(hits);
+    List<SearchHit> result = new ArrayList<>(hits.size());
+
+    for (Candidate hit : hits) {
+      result.add(new SearchHit(graph.getPosition(hit.id), hit.score, getPath(hit.id)));
+    }
+    return result;
+  }
+
+  private List<Position> getPath(int id) {
+    int initialId = graph.getInitialId();
+    int[] route = initialId == -1 ? null : graph.getRoute(initialId, id);
+
+    if (route == null) {
+      return List.of();
+    }
+
+    List<Position> path = new ArrayList<>(route.length + 1);
+    path.add(graph.getPosition(initialId));
+    Arrays.stream(route).mapToObj(graph::getPosition).forEach(path::add);
+    return Collections.unmodifiableList(path);
+  }
+
+  /** A hit while counting, ordered by rank: the containing ones, then by score, then by name. */
+  private static final class Candidate implements Comparable<Candidate> {
+    private final int id;
+    private final String name;
+    private final double score;
+    private final boolean containing;
+
+    private Candidate(int id, String name, double score, boolean containing) {
+      this.id = id;
+      this.name = name;
+      this.score = score;
+      this.containing = containing;
+    }
+
+    private boolean isWorseThan(boolean containing, double score, String name) {
+      if (this.containing != containing) {
+        return containing;
+      }
+      if (this.score != score) {
+        return this.score < score;
+      }
+      return this.name.compareTo(name) > 0;
+    }
+
+    @Override
+    public int compareTo(Candidate other) {
+      if (this.equals(other)) {
+        return 0;
+      }
+      return isWorseThan(other.containing, other.score, other.name) ? 1 : -1;
+    }
+  }
+}
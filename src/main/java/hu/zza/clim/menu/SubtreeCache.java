@@ -0,0 +1,151 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import static hu.zza.clim.menu.Message.INVALID_NONNULL_ARGUMENT;
+import static hu.zza.clim.menu.Message.INVALID_NULL_ELEMENT;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, thread-safe LRU cache of the subtrees of lazily expanded {@link MenuEntry.Node nodes}
+ * in a {@link MenuStructure}. The loaded entries are indexed by their positions, so they can be
+ * looked up like the entries of the structure, until their subtree is evicted.
+ *
+ * <p>A subtree is loaded without holding the lock, so a slow {@link SubtreeLoader} does not block
+ * the readers of other subtrees. (If two threads load the same subtree, the first one is kept.)
+ */
+final class SubtreeCache {
+  static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private final int maximumSize;
+  private final Map<Position, Subtree> subtrees;
+  private final Map<Position, Subtree> subtreesByEntry = new HashMap<>();
+
+  SubtreeCache(int maximumSize) {
+    this.maximumSize = maximumSize;
+    this.subtrees =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Position, Subtree> eldest) {
+            if (size() > SubtreeCache.this.maximumSize) {
+              Subtree subtree = eldest.getValue();
+              subtree.entries.keySet().forEach(e -> subtreesByEntry.remove(e, subtree));
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** Loads the subtree of the lazily expanded {@code node} without caching it. */
+  static Subtree load(MenuEntry node) {
+    return new Subtree(
+        node.getPosition(), node.getSubtreeLoader().load((NodePosition) node.getPosition()));
+  }
+
+  /** Returns the subtree of the lazily expanded {@code node}, and loads it if it is not cached. */
+  Subtree get(MenuEntry node) {
+    Position key = node.getPosition();
+
+    synchronized (this) {
+      Subtree subtree = subtrees.get(key);
+      if (subtree != null) {
+        return subtree;
+      }
+    }
+
+    Subtree loaded = load(node);
+    for (MenuEntry menuEntry : loaded.entries.values()) {
+      if (menuEntry.isLazy()) {
+        menuEntry.setSubtreeCache(this);
+      }
+    }
+
+    synchronized (this) {
+      Subtree subtree = subtrees.get(key);
+      if (subtree != null) {
+        return subtree;
+      }
+
+      subtrees.put(key, loaded);
+      loaded.entries.keySet().forEach(e -> subtreesByEntry.put(e, loaded));
+      return loaded;
+    }
+  }
+
+  /**
+   * Returns the loaded entry of the {@code position}, or null if its subtree is not cached. Its
+   * subtree becomes the most recently used one, so the visited part of the tree is kept.
+   */
+  synchronized MenuEntry find(Position position) {
+    Subtree subtree = subtreesByEntry.get(position);
+    if (subtree == null) {
+      return null;
+    }
+
+    subtrees.get(subtree.key);
+    return subtree.entries.get(position);
+  }
+
+  /** Returns the loaded position named {@code name}, or null if there is no such cached. */
+  synchronized Position findPosition(String name) {
+    for (Position position : List.of(new NodePosition(name), new LeafPosition(name))) {
+      if (subtreesByEntry.containsKey(position)) {
+        return subtreesByEntry.get(position).entries.get(position).getPosition();
+      }
+    }
+    return null;
+  }
+
+  /** The entries loaded for a lazily expanded node in the order of their links. */
+  static final class Subtree {
+    private final Position key;
+    private final Position[] links;
+    private final Map<Position, MenuEntry> entries = new LinkedHashMap<>();
+
+    private Subtree(Position key, List<MenuEntry> loadedEntries) {
+      if (loadedEntries == null) {
+        throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("subtree"));
+      }
+
+      for (MenuEntry menuEntry : loadedEntries) {
+        if (menuEntry == null) {
+          throw new IllegalArgumentException(INVALID_NULL_ELEMENT.getMessage("subtree"));
+        }
+        entries.put(menuEntry.getPosition(), menuEntry);
+      }
+
+      this.key = key;
+      this.links = entries.keySet().toArray(new Position[0]);
+    }
+
+    Position[] getLinks() {
+      return links;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import java.util.List;
+
+/**
+ * Produces the entries linked from a lazily expanded {@link MenuEntry.Node} (from a file, a
+ * database, or computed on the fly). The returned {@link MenuEntry.Node nodes} can be lazily
+ * expanded ones too, so a huge tree is loaded only as far as it is visited.
+ *
+ * @since 0.3.2
+ */
+@FunctionalInterface
+public interface SubtreeLoader {
+
+  /**
+   * Loads the entries which are linked from the node.
+   *
+   * @param position the position of the lazily expanded node
+   * @return the linked entries in the order of the options
+   */
+  List<MenuEntry> load(NodePosition position);
+}
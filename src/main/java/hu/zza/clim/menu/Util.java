@@ -65,4 +65,34 @@ public abstract class Util {
       }
     }
   }
+
+  /** Same as {@link String#isBlank()}, but for any {@link CharSequence} without copying it. */
+  public static boolean isBlank(CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (!Character.isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@link String#equalsIgnoreCase(String)}, but for any {@link CharSequence} without
+   * copying it.
+   */
+  public static boolean equalsIgnoreCase(CharSequence text, String other) {
+    if (text.length() != other.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < other.length(); i++) {
+      char c = text.charAt(i);
+      char o = other.charAt(i);
+
+      if (c != o && Character.toUpperCase(c) != Character.toUpperCase(o)) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
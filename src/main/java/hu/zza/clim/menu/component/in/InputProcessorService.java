@@ -42,4 +42,19 @@ public interface InputProcessorService {
   }
 
   ProcessedInput processInputRelatedToOptions(String input, Position[] options);
+
+  /**
+   * Processes the {@code input}, which can be a reused buffer (like a {@link StringBuilder} or a
+   * {@link java.nio.CharBuffer}). By default it is converted to a {@link String}, but the built-in
+   * implementations override it to process the {@code input} without copying, so only the
+   * extracted values are materialized.
+   *
+   * @param input the input of the user
+   * @param options the available options
+   * @return the processed input
+   * @since 0.3.2
+   */
+  default ProcessedInput processInputRelatedToOptions(CharSequence input, Position[] options) {
+    return processInputRelatedToOptions(input.toString(), options);
+  }
 }
@@ -32,13 +32,20 @@ public final class NominalInputProcessor implements InputProcessorService {
 
   @Override
   public ProcessedInput processInputRelatedToOptions(String input, Position[] options) {
-    Position selected = parseInputIntoPosition(input);
+    return processInputRelatedToOptions((CharSequence) input, options);
+  }
+
+  @Override
+  public ProcessedInput processInputRelatedToOptions(CharSequence input, Position[] options) {
+    Position selected = parseInputIntoPosition(input, options);
     return new ProcessedInput(selected);
   }
 
-  private Position parseInputIntoPosition(String input) {
-    if (Position.existsByName(input)) {
-      return Position.getByName(input);
+  private Position parseInputIntoPosition(CharSequence input, Position[] options) {
+    for (Position option : options) {
+      if (option.getName().contentEquals(input)) {
+        return option;
+      }
     }
     throw new IllegalArgumentException(UNKNOWN_MENU_COMMAND.getMessage(input));
   }
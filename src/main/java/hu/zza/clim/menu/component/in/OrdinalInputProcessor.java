@@ -33,14 +33,19 @@ public final class OrdinalInputProcessor implements InputProcessorService {
 
   @Override
   public ProcessedInput processInputRelatedToOptions(String input, Position[] options) {
+    return processInputRelatedToOptions((CharSequence) input, options);
+  }
+
+  @Override
+  public ProcessedInput processInputRelatedToOptions(CharSequence input, Position[] options) {
     int ordinal = parseInputIntoOrdinal(input);
     Position command = validateAndParseOrdinal(ordinal, options);
     return new ProcessedInput(command);
   }
 
-  private int parseInputIntoOrdinal(String input) {
+  private int parseInputIntoOrdinal(CharSequence input) {
     try {
-      return Integer.parseInt(input);
+      return Integer.parseInt(input, 0, input.length(), 10);
     } catch (NumberFormatException e) {
       throw new IllegalArgumentException(UNKNOWN_MENU_COMMAND.getMessage(input));
     }
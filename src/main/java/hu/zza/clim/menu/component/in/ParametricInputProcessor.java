@@ -36,6 +36,11 @@ public final class ParametricInputProcessor implements InputProcessorService {
 
   @Override
   public ProcessedInput processInputRelatedToOptions(String input, Position[] options) {
+    return processInputRelatedToOptions((CharSequence) input, options);
+  }
+
+  @Override
+  public ProcessedInput processInputRelatedToOptions(CharSequence input, Position[] options) {
     return parameterMatcher.processText(input);
   }
 }
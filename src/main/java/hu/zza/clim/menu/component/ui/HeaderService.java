@@ -28,6 +28,7 @@ import static hu.zza.clim.menu.Message.MENU_POSITION_SPACER;
 
 import hu.zza.clim.HeaderStyle;
 import hu.zza.clim.menu.component.NotImplementedException;
+import java.io.PrintStream;
 
 public interface HeaderService {
   static HeaderService of(HeaderStyle headerStyle) {
@@ -44,8 +45,8 @@ public interface HeaderService {
   }
 
   default void printHeaderForCurrentPositionAndHistory(
-      String currentPosition, String[] positionHistory) {
-    System.out.print(
+      PrintStream out, String currentPosition, String[] positionHistory) {
+    out.print(
         MENU_POSITION_SPACER.getMessage(MENU_POSITION_DECORATOR.getMessage(currentPosition)));
   }
 }
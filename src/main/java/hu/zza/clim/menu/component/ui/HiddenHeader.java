@@ -23,10 +23,12 @@
 
 package hu.zza.clim.menu.component.ui;
 
+import java.io.PrintStream;
+
 public class HiddenHeader implements HeaderService {
   @Override
   public void printHeaderForCurrentPositionAndHistory(
-      String currentPosition, String[] positionHistory) {
-    System.out.printf("%n%n");
+      PrintStream out, String currentPosition, String[] positionHistory) {
+    out.printf("%n%n");
   }
 }
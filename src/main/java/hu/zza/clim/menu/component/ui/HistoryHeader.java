@@ -27,11 +27,13 @@ import static hu.zza.clim.menu.Message.MENU_HISTORY_SEPARATOR;
 import static hu.zza.clim.menu.Message.MENU_POSITION_DECORATOR;
 import static hu.zza.clim.menu.Message.MENU_POSITION_SPACER;
 
+import java.io.PrintStream;
+
 public class HistoryHeader implements HeaderService {
 
   @Override
   public void printHeaderForCurrentPositionAndHistory(
-      String currentPosition, String[] positionHistory) {
+      PrintStream out, String currentPosition, String[] positionHistory) {
     String header = MENU_POSITION_DECORATOR.getMessage(currentPosition);
     String separator = MENU_HISTORY_SEPARATOR.getMessage();
     int historyToShow = 2;
@@ -40,6 +42,6 @@ public class HistoryHeader implements HeaderService {
       header = String.format("%s %s %s", positionHistory[i], separator, header);
     }
 
-    System.out.print(MENU_POSITION_SPACER.getMessage(header));
+    out.print(MENU_POSITION_SPACER.getMessage(header));
   }
 }
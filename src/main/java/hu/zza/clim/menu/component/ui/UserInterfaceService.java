@@ -29,6 +29,7 @@ import static hu.zza.clim.menu.Message.MENU_OPTION_SPACER;
 import hu.zza.clim.UserInterface;
 import hu.zza.clim.menu.Message;
 import hu.zza.clim.menu.component.NotImplementedException;
+import java.io.PrintStream;
 import java.util.List;
 
 public abstract class UserInterfaceService {
@@ -53,24 +54,24 @@ public abstract class UserInterfaceService {
   }
 
   public void printHeaderForCurrentPositionAndHistory(
-      String currentPosition, String[] positionHistory) {
-    headerService.printHeaderForCurrentPositionAndHistory(currentPosition, positionHistory);
+      PrintStream out, String currentPosition, String[] positionHistory) {
+    headerService.printHeaderForCurrentPositionAndHistory(out, currentPosition, positionHistory);
   }
 
   // Dummy...
-  public void printFooter() {
-    System.out.println();
+  public void printFooter(PrintStream out) {
+    out.println();
   }
 
-  public void printOptionList(List<String> options) {
-    printWarningIfEmpty(options);
+  public void printOptionList(PrintStream out, List<String> options) {
+    printWarningIfEmpty(out, options);
     options.forEach(
-        e -> System.out.print(MENU_OPTION_SPACER.getMessage(MENU_OPTION_DECORATOR.getMessage(e))));
+        e -> out.print(MENU_OPTION_SPACER.getMessage(MENU_OPTION_DECORATOR.getMessage(e))));
   }
 
-  void printWarningIfEmpty(List<String> options) {
+  void printWarningIfEmpty(PrintStream out, List<String> options) {
     if (options.isEmpty()) {
-      System.out.println(Message.NO_MENU_OPTIONS.getMessage());
+      out.println(Message.NO_MENU_OPTIONS.getMessage());
     }
   }
 }
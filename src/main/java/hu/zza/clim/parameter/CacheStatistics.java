@@ -0,0 +1,108 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+/**
+ * Snapshot of the statistics of the result cache of a {@link ParameterMatcher}. (See {@link
+ * ParameterMatcher#getCacheStatistics()}.)
+ *
+ * @since 0.3.2
+ */
+public final class CacheStatistics {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int size;
+  private final int maximumSize;
+
+  CacheStatistics(long hitCount, long missCount, long evictionCount, int size, int maximumSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns the count of inputs whose result is found in the cache.
+   *
+   * @return the count of cache hits
+   * @since 0.3.2
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the count of inputs which are processed because their result is not in the cache.
+   *
+   * @return the count of cache misses
+   * @since 0.3.2
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the ratio of hits to all lookups, or 0 if there is no lookup yet.
+   *
+   * @return the hit rate between 0 and 1
+   * @since 0.3.2
+   */
+  public double getHitRate() {
+    long requestCount = hitCount + missCount;
+    return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+  }
+
+  /**
+   * Returns the count of results which are removed as the least recently used ones.
+   *
+   * @return the count of evictions
+   * @since 0.3.2
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Returns the count of the cached results.
+   *
+   * @return the current size of the cache
+   * @since 0.3.2
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the maximum count of the cached results, or 0 if the cache is disabled.
+   *
+   * @return the maximum size of the cache
+   * @since 0.3.2
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import hu.zza.clim.menu.Position;
+import hu.zza.clim.parameter.ProcessingResult.ErrorType;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass command processing: all the leaves and their {@link ParameterPattern patterns} are
+ * compiled into one alternation, so one regex evaluation identifies the command and extracts its
+ * {@link Parameter parameters}.
+ *
+ * <p>Every leaf has its own capturing group (branch), which starts with a lookahead for the name of
+ * the leaf followed by the delimiter or the end of the input. So a branch of another leaf fails at
+ * the first different character. The pattern of the leaf has to match the whole input (including
+ * the command itself, usually by a command {@link Parameter}).
+ *
+ * <p>The branches are nested into a balanced binary tree of alternations, where the first half of
+ * every alternation is a capturing group. So the matched branch is found by checking one group per
+ * level, O(log(count of leaves)) groups instead of every branch. If no branch matches, a second
+ * regex of the names only tells an unknown command from invalid arguments.
+ *
+ * @since 0.3.2
+ */
+final class CommandDispatcher {
+  private final Pattern pattern;
+  private final Pattern commandPattern;
+  private final Position[] positions;
+  private final int[] branchGroups;
+  private final int[] firstHalfGroups;
+  private final GroupedRegex[] groupedRegexes;
+  private final ParameterSlots[] slots;
+  private final String[] branches;
+  private int groupCount;
+
+  CommandDispatcher(Map<Position, ParameterPattern> patternMap, MatchingEngine matchingEngine) {
+    positions = patternMap.keySet().toArray(new Position[0]);
+    branchGroups = new int[positions.length];
+    firstHalfGroups = new int[4 * positions.length];
+    groupedRegexes = new GroupedRegex[positions.length];
+    slots = new ParameterSlots[positions.length];
+    branches = new String[positions.length];
+    var commands = new StringJoiner("|");
+
+    for (int i = 0; i < positions.length; i++) {
+      ParameterPattern parameterPattern = patternMap.get(positions[i]);
+      groupedRegexes[i] = getGroupedRegex(parameterPattern, matchingEngine);
+      slots[i] = parameterPattern.getSlots();
+      String command =
+          String.format(
+              "%s(?:%s|$)",
+              Pattern.quote(positions[i].getName()), parameterPattern.getDelimiter());
+      branches[i] = String.format("(?=%s)%s", command, groupedRegexes[i].getRegex());
+      commands.add(command);
+    }
+
+    StringBuilder regexBuilder = new StringBuilder();
+    appendTree(regexBuilder, 1, 0, positions.length);
+    pattern = Pattern.compile(regexBuilder.toString());
+    commandPattern = Pattern.compile(commands.toString());
+  }
+
+  private static GroupedRegex getGroupedRegex(
+      ParameterPattern parameterPattern, MatchingEngine matchingEngine) {
+    if (matchingEngine == MatchingEngine.VARIANTS) {
+      long optionalCount =
+          parameterPattern.getParameterList().stream().filter(Parameter::isOptional).count();
+      return GroupedRegex.withVariants(
+          parameterPattern, PatternVariants.orderMasksByPriority((int) optionalCount));
+    }
+    return GroupedRegex.withOptionalGroups(parameterPattern);
+  }
+
+  /**
+   * Appends the alternation of the branches from {@code from} (inclusive) to {@code to} (exclusive)
+   * as the subtree of {@code node}, and numbers its groups in the order of their opening.
+   */
+  private void appendTree(StringBuilder regexBuilder, int node, int from, int to) {
+    if (to == from) {
+      regexBuilder.append("(?!)");
+      return;
+    }
+    if (to - from == 1) {
+      branchGroups[from] = ++groupCount;
+      groupCount += groupedRegexes[from].getGroupCount();
+      regexBuilder.append('(').append(branches[from]).append(')');
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    firstHalfGroups[node] = ++groupCount;
+    regexBuilder.append("(?:(");
+    appendTree(regexBuilder, 2 * node, from, middle);
+    regexBuilder.append(")|");
+    appendTree(regexBuilder, 2 * node + 1, middle, to);
+    regexBuilder.append(')');
+  }
+
+  /**
+   * Stores the result into the reusable {@code target}, and returns null, or the type of the
+   * error if the {@code text} does not fit any leaf.
+   */
+  ErrorType process(CharSequence text, ProcessingBuffer target) {
+    Matcher matcher = pattern.matcher(text);
+
+    if (!matcher.matches()) {
+      return commandPattern.matcher(text).lookingAt()
+          ? ErrorType.INVALID_ARGUMENTS
+          : ErrorType.UNKNOWN_COMMAND;
+    }
+
+    int node = 1;
+    int from = 0;
+    int to = positions.length;
+
+    while (to - from > 1) {
+      int middle = (from + to) >>> 1;
+
+      if (matcher.start(firstHalfGroups[node]) != -1) {
+        node = 2 * node;
+        to = middle;
+      } else {
+        node = 2 * node + 1;
+        from = middle;
+      }
+    }
+
+    Parameter[] parameterArray = target.reset(positions[from], slots[from]);
+    groupedRegexes[from].extract(text, matcher, branchGroups[from], parameterArray);
+    return null;
+  }
+}
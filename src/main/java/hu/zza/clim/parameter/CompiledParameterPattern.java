@@ -0,0 +1,74 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import hu.zza.clim.menu.component.NotImplementedException;
+
+/**
+ * The form of a {@link ParameterPattern} which is prepared for text processing by a given {@link
+ * MatchingEngine}.
+ *
+ * @since 0.3.2
+ */
+interface CompiledParameterPattern {
+  /**
+   * Returns the compiled form of {@code parameterPattern}. Patterns of tokens with a plain
+   * delimiter are always processed by {@link TokenPattern}, because its results are the same as by
+   * any {@code matchingEngine}. {@link MatchingEngine#LINEAR} falls back to {@link
+   * OptionalGroupPattern} if the regex is not supported by {@link LinearRegex}.
+   */
+  static CompiledParameterPattern of(
+      MatchingEngine matchingEngine, ParameterPattern parameterPattern) {
+    if (TokenPattern.isApplicable(parameterPattern)) {
+      return new TokenPattern(parameterPattern);
+    }
+
+    switch (matchingEngine) {
+      case VARIANTS:
+        return new PatternVariants(parameterPattern);
+      case OPTIONAL_GROUPS:
+        return new OptionalGroupPattern(parameterPattern);
+      case LINEAR:
+        LinearPattern linearPattern = LinearPattern.of(parameterPattern);
+        return linearPattern != null ? linearPattern : new OptionalGroupPattern(parameterPattern);
+      default:
+        throw new NotImplementedException();
+    }
+  }
+
+  ParameterSlots getSlots();
+
+  /**
+   * Matches the {@code text} and stores the {@link Parameter parameters} with the extracted values
+   * into {@code parameterArray} by their {@link ParameterSlots slots}. Implementations have to be
+   * stateless (thread-safe).
+   *
+   * @param text the input for processing
+   * @param parameterArray the array for the {@link Parameter parameters} (at least as long as the
+   *     count of the slots), its content is unspecified if the {@code text} does not fit the
+   *     pattern
+   * @return true if the {@code text} fits the pattern
+   */
+  boolean process(CharSequence text, Parameter[] parameterArray);
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Regex form of the {@link Parameter parameters} of a {@link ParameterPattern}, which can be
+ * embedded into a bigger regex.
+ *
+ * <p>Every occurrence of a {@link Parameter} regex is wrapped in an own capturing group, it shows
+ * whether the {@link Parameter} is present. (The value is the first group of the {@link Parameter}
+ * regex as usual, or the whole occurrence if the regex has no group.) Group indices are relative:
+ * they have to be shifted by the count of groups before the embedded regex.
+ *
+ * @since 0.3.2
+ */
+final class GroupedRegex {
+
+  private final ParameterSlots slots;
+  private final List<Parameter> parameters;
+  private final String delimiter;
+  private final List<List<int[]>> occurrences = new ArrayList<>();
+  private final String regex;
+  private int groupCount;
+
+  private GroupedRegex(ParameterPattern parameterPattern, int[] masks) {
+    slots = parameterPattern.getSlots();
+    parameters = List.copyOf(parameterPattern.getParameterList());
+    delimiter = String.format("(?:%s)", parameterPattern.getDelimiter());
+
+    for (int i = 0; i < parameters.size(); i++) {
+      occurrences.add(new ArrayList<>());
+    }
+
+    var regexBuilder = new StringBuilder();
+
+    if (masks == null) {
+      appendWithOptionalGroups(regexBuilder);
+    } else {
+      appendVariants(regexBuilder, masks);
+    }
+    regex = regexBuilder.toString();
+  }
+
+  /**
+   * Builds a regex in which every optional {@link Parameter} is an optional group.
+   *
+   * @see MatchingEngine#OPTIONAL_GROUPS
+   */
+  static GroupedRegex withOptionalGroups(ParameterPattern parameterPattern) {
+    return new GroupedRegex(parameterPattern, null);
+  }
+
+  /**
+   * Builds an alternation of the given variants (in the given order). The j-th bit of a mask is set
+   * if the j-th optional {@link Parameter} is present.
+   *
+   * @see MatchingEngine#VARIANTS
+   */
+  static GroupedRegex withVariants(ParameterPattern parameterPattern, int[] masks) {
+    return new GroupedRegex(parameterPattern, masks);
+  }
+
+  String getRegex() {
+    return regex;
+  }
+
+  int getGroupCount() {
+    return groupCount;
+  }
+
+  /**
+   * Stores the {@link Parameter parameters} (in sequential order, so by their slots) with the
+   * values of the {@code matchResult}. (Absent {@link Parameter parameters} are stored without
+   * value.)
+   *
+   * @param text the matched input
+   * @param matchResult the result of a successful match
+   * @param groupOffset the count of groups before this regex in the matched pattern
+   * @param parameterArray the array for the {@link Parameter parameters}
+   */
+  void extract(
+      CharSequence text, MatchResult matchResult, int groupOffset, Parameter[] parameterArray) {
+    for (int i = 0; i < parameters.size(); i++) {
+      Parameter parameter = parameters.get(i);
+      Parameter extracted = null;
+
+      for (int[] occurrence : occurrences.get(i)) {
+        int outerGroup = groupOffset + occurrence[0];
+
+        if (matchResult.start(outerGroup) != -1) {
+          int group = outerGroup + occurrence[1];
+          extracted =
+              parameter.withValue(
+                  slots.getName(i), text, matchResult.start(group), matchResult.end(group));
+          break;
+        }
+      }
+      parameterArray[i] = extracted != null ? extracted : parameter.withoutValue();
+    }
+  }
+
+  /**
+   * Optionals before the first concrete {@link Parameter} are followed by the delimiter, the others
+   * are preceded by it. If there is no concrete {@link Parameter} at all, any of them can be the
+   * first one, so there is an alternation for choosing the first present.
+   */
+  private void appendWithOptionalGroups(StringBuilder regexBuilder) {
+    int firstConcrete = 0;
+    while (firstConcrete < parameters.size() && parameters.get(firstConcrete).isOptional()) {
+      firstConcrete++;
+    }
+
+    if (firstConcrete < parameters.size()) {
+      for (int i = 0; i < firstConcrete; i++) {
+        regexBuilder.append("(?:");
+        appendParameter(regexBuilder, i);
+        regexBuilder.append(delimiter).append(")?");
+      }
+      appendParameter(regexBuilder, firstConcrete);
+      appendRest(regexBuilder, firstConcrete + 1);
+    } else {
+      regexBuilder.append("(?:");
+      for (int first = 0; first < parameters.size(); first++) {
+        regexBuilder.append(first == 0 ? "" : "|");
+        appendParameter(regexBuilder, first);
+        appendRest(regexBuilder, first + 1);
+      }
+      regexBuilder.append(")?");
+    }
+  }
+
+  private void appendRest(StringBuilder regexBuilder, int from) {
+    for (int i = from; i < parameters.size(); i++) {
+      boolean optional = parameters.get(i).isOptional();
+      regexBuilder.append(optional ? "(?:" : "").append(delimiter);
+      appendParameter(regexBuilder, i);
+      regexBuilder.append(optional ? ")?" : "");
+    }
+  }
+
+  private void appendVariants(StringBuilder regexBuilder, int[] masks) {
+    regexBuilder.append("(?:");
+
+    for (int m = 0; m < masks.length; m++) {
+      regexBuilder.append(m == 0 ? "" : "|");
+      boolean first = true;
+
+      for (int i = 0, j = 0; i < parameters.size(); i++) {
+        boolean present = !parameters.get(i).isOptional() || (masks[m] & (1 << j)) != 0;
+        j += parameters.get(i).isOptional() ? 1 : 0;
+
+        if (present) {
+          regexBuilder.append(first ? "" : delimiter);
+          appendParameter(regexBuilder, i);
+          first = false;
+        }
+      }
+    }
+    regexBuilder.append(')');
+  }
+
+  private void appendParameter(StringBuilder regexBuilder, int index) {
+    String parameterRegex = parameters.get(index).getRegex();
+    int innerGroupCount = Pattern.compile(parameterRegex).matcher("").groupCount();
+    int outerGroup = ++groupCount;
+
+    occurrences.get(index).add(new int[] {outerGroup, innerGroupCount == 0 ? 0 : 1});
+    groupCount += innerGroupCount;
+    regexBuilder.append('(').append(parameterRegex).append(')');
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Compiles a {@link ParameterPattern} into one regex like {@link OptionalGroupPattern}, but it is
+ * matched by {@link LinearRegex} in linear time.
+ *
+ * @see MatchingEngine#LINEAR
+ * @since 0.3.2
+ */
+final class LinearPattern implements CompiledParameterPattern {
+
+  private final ParameterSlots slots;
+  private final GroupedRegex groupedRegex;
+  private final LinearRegex linearRegex;
+  private final boolean hasOptional;
+
+  private LinearPattern(
+      ParameterPattern parameterPattern, GroupedRegex groupedRegex, LinearRegex linearRegex) {
+    this.slots = parameterPattern.getSlots();
+    this.groupedRegex = groupedRegex;
+    this.linearRegex = linearRegex;
+    this.hasOptional = parameterPattern.getParameterList().stream().anyMatch(Parameter::isOptional);
+  }
+
+  /**
+   * Returns the {@link LinearPattern} of {@code parameterPattern}, or null if its regex is not
+   * supported by {@link LinearRegex}.
+   */
+  static LinearPattern of(ParameterPattern parameterPattern) {
+    GroupedRegex groupedRegex = GroupedRegex.withOptionalGroups(parameterPattern);
+    LinearRegex linearRegex = LinearRegex.compile(groupedRegex.getRegex());
+    return linearRegex == null
+        ? null
+        : new LinearPattern(parameterPattern, groupedRegex, linearRegex);
+  }
+
+  @Override
+  public ParameterSlots getSlots() {
+    return slots;
+  }
+
+  @Override
+  public boolean process(CharSequence text, Parameter[] parameterArray) {
+    MatchResult matchResult = linearRegex.match(text, hasOptional);
+
+    if (matchResult != null) {
+      groupedRegex.extract(text, matchResult, 0, parameterArray);
+      return true;
+    }
+    return false;
+  }
+}
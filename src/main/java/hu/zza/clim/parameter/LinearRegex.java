@@ -0,0 +1,1059 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.MatchResult;
+
+/**
+ * A regex engine with linear time guarantee for a subset of the {@link java.util.regex.Pattern}
+ * syntax. The regex is compiled into a nondeterministic automaton which is simulated for all the
+ * alternatives at once (Pike VM): every position of the input is read only once, so the matching
+ * time is O(length of the input * size of the regex) even for hostile inputs.
+ *
+ * <p>The alternatives are prioritized like the backtracking engine of {@link
+ * java.util.regex.Pattern} would try them, so the matches and the captured groups are the same.
+ *
+ * <p>Supported: literals, {@code .}, character classes with ranges (without nesting and
+ * intersection), the predefined classes {@code \d \D \s \S \w \W}, the escapes of control
+ * characters, hexadecimal escapes ({@code \xhh} and its 4-digit unicode form), quotation ({@code
+ * \Q...\E}), capturing, named and non-capturing groups, alternation, greedy and lazy quantifiers
+ * ({@code * + ? {n} {n,} {n,m}}), and the boundaries {@code ^ $ \b \B}. Everything else
+ * (lookaround, backreferences, possessive quantifiers, flags, etc.) is unsupported: {@link
+ * #compile} returns null for them.
+ *
+ * <p>Iterations which match the empty string are handled like by {@link java.util.regex.Pattern}:
+ * such an iteration ends the repetition, and the optional iterations of a capturing group which
+ * can match only the empty string (like {@code (\b)*}) do not update its capture. The only
+ * difference is that {@link java.util.regex.Pattern} does not always reset the groups captured by
+ * a failed attempt (at an earlier start of {@code find()}, or in an abandoned iteration or
+ * alternative), while this engine reports only the captures of the match itself.
+ *
+ * @see MatchingEngine#LINEAR
+ * @since 0.3.2
+ */
+final class LinearRegex {
+  private static final int MAX_PROGRAM_SIZE = 10_000;
+  private static final int MAX_LOOP_DEPTH = 4;
+
+  private static final int CHAR = 0;
+  private static final int ANY = 1;
+  private static final int SPLIT = 2;
+  private static final int JUMP = 3;
+  private static final int SAVE = 4;
+  private static final int ASSERT = 5;
+  private static final int MATCH = 6;
+  /** Exits the repetition after an iteration which has matched nothing (like java.util.regex). */
+  private static final int LOOP = 7;
+
+  private static final int BEGIN = 0;
+  private static final int END = 1;
+  private static final int WORD_BOUNDARY = 2;
+  private static final int NON_WORD_BOUNDARY = 3;
+
+  private static final int[] DIGIT = {'0', '9'};
+  private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+  private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+
+  private final int[] opcodes;
+  private final int[] arguments;
+  private final int[] alternatives;
+  private final int[][] charRanges;
+  private final int[][] enclosingLoopSlots;
+  private final int loopDepth;
+  private final int groupCount;
+  private final int slotCount;
+
+  private LinearRegex(Program program, int groupCount) {
+    this.opcodes = Arrays.copyOf(program.opcodes, program.size);
+    this.arguments = Arrays.copyOf(program.arguments, program.size);
+    this.alternatives = Arrays.copyOf(program.alternatives, program.size);
+    this.charRanges = program.charRanges.toArray(new int[0][]);
+    this.enclosingLoopSlots = program.enclosingLoopSlots.toArray(new int[0][]);
+    this.loopDepth = program.maxLoopDepth;
+    this.groupCount = groupCount;
+    this.slotCount = 2 * (groupCount + 1) + program.loopCount;
+  }
+
+  /** Returns the compiled form of the {@code regex}, or null if its syntax is not supported. */
+  static LinearRegex compile(String regex) {
+    try {
+      Parser parser = new Parser(regex);
+      Node node = parser.parse();
+      Program program = new Program(2 * (parser.groupCount + 1));
+
+      program.emit(SAVE, 0, 0);
+      node.compile(program);
+      program.emit(SAVE, 1, 0);
+      program.emit(MATCH, 0, 0);
+      return new LinearRegex(program, parser.groupCount);
+    } catch (UnsupportedSyntaxException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Matches the {@code text} like {@link java.util.regex.Matcher#matches()} (if {@code
+   * wholeInput}) or {@link java.util.regex.Matcher#find()}, and returns the result, or null if
+   * there is no match.
+   */
+  MatchResult match(CharSequence text, boolean wholeInput) {
+    int length = text.length();
+    ThreadList current = new ThreadList(opcodes.length, loopDepth);
+    ThreadList next = new ThreadList(opcodes.length, loopDepth);
+    int[] matched = null;
+    int position = 0;
+
+    addThread(current, 0, newSlots(slotCount), text, position);
+
+    while (!current.isEmpty() || (matched == null && !wholeInput && position <= length)) {
+      int codePoint = position < length ? Character.codePointAt(text, position) : -1;
+      int nextPosition = codePoint < 0 ? position : position + Character.charCount(codePoint);
+      next.clear();
+
+      for (int i = 0; i < current.size; i++) {
+        int pc = current.pcs[i];
+        int[] slots = current.slots[i];
+
+        if (opcodes[pc] == MATCH) {
+          if (!wholeInput || position == length) {
+            matched = slots;
+            break;
+          }
+        } else if (codePoint >= 0 && matches(pc, codePoint)) {
+          addThread(next, pc + 1, slots, text, nextPosition);
+        }
+      }
+
+      if (codePoint < 0) {
+        break;
+      }
+
+      position = nextPosition;
+
+      if (matched == null && !wholeInput) {
+        addThread(next, 0, newSlots(slotCount), text, position);
+      }
+
+      ThreadList swap = current;
+      current = next;
+      next = swap;
+    }
+    return matched == null ? null : new Match(text, matched, groupCount);
+  }
+
+  private boolean matches(int pc, int codePoint) {
+    if (opcodes[pc] == ANY) {
+      return !isLineTerminator(codePoint);
+    }
+
+    int[] ranges = charRanges[arguments[pc]];
+    for (int i = 0; i < ranges.length && ranges[i] <= codePoint; i += 2) {
+      if (codePoint <= ranges[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the thread and all the threads reachable from it without reading a character to the
+   * {@code list}, in the order of their priority. (Splits are followed by an explicit stack.)
+   *
+   * <p>Only the splits and the added instructions are visited once per step: The same group end
+   * or {@link #LOOP} can be reached with different loop slots, which lead to different results.
+   * Every cycle goes through a split, so it terminates in O(size of the program) steps. For the
+   * same reason a split is visited once per state of its enclosing loops (whether their current
+   * iteration has started at this position or not). After reading a character this state is the
+   * same for every thread, so the added instructions are deduplicated by themselves.
+   */
+  private void addThread(
+      ThreadList list, int startPc, int[] startSlots, CharSequence text, int position) {
+    List<Object[]> stack = new ArrayList<>();
+    stack.add(new Object[] {startPc, startSlots});
+
+    while (!stack.isEmpty()) {
+      Object[] entry = stack.remove(stack.size() - 1);
+      int pc = (int) entry[0];
+      int[] slots = (int[]) entry[1];
+
+      while (true) {
+        int opcode = opcodes[pc];
+
+        if (opcode == JUMP) {
+          pc = arguments[pc];
+        } else if (opcode == SPLIT) {
+          if (!list.markSplit(getSplitKey(pc, slots, position))) {
+            break;
+          }
+          stack.add(new Object[] {alternatives[pc], slots});
+          pc = arguments[pc];
+        } else if (opcode == LOOP) {
+          pc = slots[arguments[pc]] == position ? alternatives[pc] : pc + 1;
+        } else if (opcode == SAVE) {
+          slots = slots.clone();
+          slots[arguments[pc]] = position;
+          pc++;
+        } else if (opcode == ASSERT) {
+          if (!holds(arguments[pc], text, position)) {
+            break;
+          }
+          pc++;
+        } else {
+          if (list.mark(pc)) {
+            list.add(pc, slots);
+          }
+          break;
+        }
+      }
+    }
+  }
+
+  private int getSplitKey(int pc, int[] slots, int position) {
+    int[] loopSlots = enclosingLoopSlots[pc];
+    int key = pc << loopDepth;
+
+    for (int i = 0; i < loopSlots.length; i++) {
+      if (slots[loopSlots[i]] == position) {
+        key |= 1 << i;
+      }
+    }
+    return key;
+  }
+
+  private static boolean holds(int assertion, CharSequence text, int position) {
+    switch (assertion) {
+      case BEGIN:
+        return position == 0;
+      case END:
+        return isEnd(text, position);
+      case WORD_BOUNDARY:
+        return isWordBoundary(text, position);
+      default:
+        return !isWordBoundary(text, position);
+    }
+  }
+
+  /** The same as {@code $} of {@link java.util.regex.Pattern} without flags. */
+  private static boolean isEnd(CharSequence text, int position) {
+    int length = text.length();
+
+    if (position == length) {
+      return true;
+    }
+
+    if (position == length - 2) {
+      return text.charAt(position) == '\r' && text.charAt(position + 1) == '\n';
+    }
+
+    if (position == length - 1) {
+      char c = text.charAt(position);
+      boolean isLastOfCrLf = c == '\n' && position > 0 && text.charAt(position - 1) == '\r';
+      return isLineTerminator(c) && !isLastOfCrLf;
+    }
+    return false;
+  }
+
+  private static boolean isWordBoundary(CharSequence text, int position) {
+    boolean before = position > 0 && isWordChar(text.charAt(position - 1));
+    boolean after = position < text.length() && isWordChar(text.charAt(position));
+    return before != after;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  private static boolean isLineTerminator(int codePoint) {
+    return codePoint == '\n'
+        || codePoint == '\r'
+        || codePoint == 0x85
+        || codePoint == 0x2028
+        || codePoint == 0x2029;
+  }
+
+  private static int[] newSlots(int slotCount) {
+    int[] slots = new int[slotCount];
+    Arrays.fill(slots, -1);
+    return slots;
+  }
+
+  /** The threads of one step, with a generation-based membership test over the program. */
+  private static final class ThreadList {
+    private final int[] pcs;
+    private final int[][] slots;
+    private final int[] marks;
+    private final int[] splitMarks;
+    private int generation = 1;
+    private int size;
+
+    ThreadList(int programSize, int loopDepth) {
+      pcs = new int[programSize];
+      slots = new int[programSize][];
+      marks = new int[programSize];
+      splitMarks = new int[programSize << loopDepth];
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void clear() {
+      size = 0;
+      generation++;
+    }
+
+    /** Returns false if the {@code pc} is already visited in this step. */
+    boolean mark(int pc) {
+      if (marks[pc] == generation) {
+        return false;
+      }
+      marks[pc] = generation;
+      return true;
+    }
+
+    /** Returns false if the split is already visited in this step (with the same loop state). */
+    boolean markSplit(int splitKey) {
+      if (splitMarks[splitKey] == generation) {
+        return false;
+      }
+      splitMarks[splitKey] = generation;
+      return true;
+    }
+
+    void add(int pc, int[] threadSlots) {
+      pcs[size] = pc;
+      slots[size] = threadSlots;
+      size++;
+    }
+  }
+
+  /** The result of a successful match, by the start and end positions of the groups. */
+  private static final class Match implements MatchResult {
+    private final CharSequence text;
+    private final int[] slots;
+    private final int groupCount;
+
+    Match(CharSequence text, int[] slots, int groupCount) {
+      this.text = text;
+      this.slots = slots;
+      this.groupCount = groupCount;
+    }
+
+    @Override
+    public int start() {
+      return start(0);
+    }
+
+    @Override
+    public int start(int group) {
+      return slots[2 * checkGroup(group)];
+    }
+
+    @Override
+    public int end() {
+      return end(0);
+    }
+
+    @Override
+    public int end(int group) {
+      return slots[2 * checkGroup(group) + 1];
+    }
+
+    @Override
+    public String group() {
+      return group(0);
+    }
+
+    @Override
+    public String group(int group) {
+      int start = start(group);
+      return start == -1 ? null : text.subSequence(start, end(group)).toString();
+    }
+
+    @Override
+    public int groupCount() {
+      return groupCount;
+    }
+
+    private int checkGroup(int group) {
+      if (group < 0 || group > groupCount()) {
+        throw new IndexOutOfBoundsException("No group " + group);
+      }
+      return group;
+    }
+  }
+
+  /** The instructions under construction. */
+  private static final class Program {
+    private final List<int[]> charRanges = new ArrayList<>();
+    private final List<int[]> enclosingLoopSlots = new ArrayList<>();
+    private final int firstLoopSlot;
+    private int[] currentLoopSlots = new int[0];
+    private int maxLoopDepth;
+    private int[] opcodes = new int[16];
+    private int[] arguments = new int[16];
+    private int[] alternatives = new int[16];
+    private int size;
+    private int loopCount;
+
+    /** The slots of the loops follow the {@code groupSlotCount} slots of the groups. */
+    Program(int groupSlotCount) {
+      firstLoopSlot = groupSlotCount;
+    }
+
+    int newLoopSlot() {
+      return firstLoopSlot + loopCount++;
+    }
+
+    /** The instructions emitted until {@link #exitLoop()} are in the loop (innermost first). */
+    void enterLoop(int loopSlot) {
+      if (currentLoopSlots.length == MAX_LOOP_DEPTH) {
+        throw new UnsupportedSyntaxException();
+      }
+
+      int[] loopSlots = new int[currentLoopSlots.length + 1];
+      loopSlots[0] = loopSlot;
+      System.arraycopy(currentLoopSlots, 0, loopSlots, 1, currentLoopSlots.length);
+      currentLoopSlots = loopSlots;
+      maxLoopDepth = Math.max(maxLoopDepth, loopSlots.length);
+    }
+
+    void exitLoop() {
+      currentLoopSlots = Arrays.copyOfRange(currentLoopSlots, 1, currentLoopSlots.length);
+    }
+
+    int emit(int opcode, int argument, int alternative) {
+      if (size == MAX_PROGRAM_SIZE) {
+        throw new UnsupportedSyntaxException();
+      }
+
+      if (size == opcodes.length) {
+        opcodes = Arrays.copyOf(opcodes, 2 * size);
+        arguments = Arrays.copyOf(arguments, 2 * size);
+        alternatives = Arrays.copyOf(alternatives, 2 * size);
+      }
+
+      opcodes[size] = opcode;
+      arguments[size] = argument;
+      alternatives[size] = alternative;
+      enclosingLoopSlots.add(currentLoopSlots);
+      return size++;
+    }
+
+    int emitChar(int[] ranges) {
+      charRanges.add(ranges);
+      return emit(CHAR, charRanges.size() - 1, 0);
+    }
+
+    /** Emits a split with the preferred branch next, and returns its index for patching. */
+    int emitSplit(boolean preferNext) {
+      int pc = emit(SPLIT, 0, 0);
+      patchSplit(pc, preferNext, pc + 1);
+      return pc;
+    }
+
+    /** Sets the branch of the split which is not the next instruction. */
+    void patchSplit(int pc, boolean preferNext, int target) {
+      if (preferNext) {
+        arguments[pc] = pc + 1;
+        alternatives[pc] = target;
+      } else {
+        arguments[pc] = target;
+        alternatives[pc] = pc + 1;
+      }
+    }
+  }
+
+  private static final class UnsupportedSyntaxException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedSyntaxException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /** A node of the syntax tree. */
+  private interface Node {
+    void compile(Program program);
+
+    /**
+     * Returns true if the node has a fixed structure which can match only the empty string (like
+     * a deterministic node of zero width in {@link java.util.regex.Pattern}).
+     */
+    default boolean isFixedEmpty() {
+      return false;
+    }
+  }
+
+  private static final class CharNode implements Node {
+    private final int[] ranges;
+
+    CharNode(int[] ranges) {
+      this.ranges = ranges;
+    }
+
+    @Override
+    public void compile(Program program) {
+      program.emitChar(ranges);
+    }
+  }
+
+  private static final class AnyNode implements Node {
+    @Override
+    public void compile(Program program) {
+      program.emit(ANY, 0, 0);
+    }
+  }
+
+  private static final class AssertNode implements Node {
+    private final int assertion;
+
+    AssertNode(int assertion) {
+      this.assertion = assertion;
+    }
+
+    @Override
+    public void compile(Program program) {
+      program.emit(ASSERT, assertion, 0);
+    }
+
+    @Override
+    public boolean isFixedEmpty() {
+      return true;
+    }
+  }
+
+  /** A capturing group, or a non-capturing one if {@code group} is negative. */
+  private static final class GroupNode implements Node {
+    private final Node body;
+    private final int group;
+
+    GroupNode(Node body, int group) {
+      this.body = body;
+      this.group = group;
+    }
+
+    boolean isCapturing() {
+      return group >= 0;
+    }
+
+    @Override
+    public void compile(Program program) {
+      if (!isCapturing()) {
+        body.compile(program);
+        return;
+      }
+
+      program.emit(SAVE, 2 * group, 0);
+      body.compile(program);
+      program.emit(SAVE, 2 * group + 1, 0);
+    }
+
+    @Override
+    public boolean isFixedEmpty() {
+      return body.isFixedEmpty();
+    }
+  }
+
+  private static final class ConcatNode implements Node {
+    private final List<Node> nodes;
+
+    ConcatNode(List<Node> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public void compile(Program program) {
+      nodes.forEach(node -> node.compile(program));
+    }
+
+    @Override
+    public boolean isFixedEmpty() {
+      return nodes.stream().allMatch(Node::isFixedEmpty);
+    }
+  }
+
+  private static final class AlternationNode implements Node {
+    private final List<Node> branches;
+
+    AlternationNode(List<Node> branches) {
+      this.branches = branches;
+    }
+
+    @Override
+    public void compile(Program program) {
+      List<Integer> jumps = new ArrayList<>();
+
+      for (int i = 0; i < branches.size() - 1; i++) {
+        int split = program.emitSplit(true);
+        branches.get(i).compile(program);
+        jumps.add(program.emit(JUMP, 0, 0));
+        program.patchSplit(split, true, program.size);
+      }
+      branches.get(branches.size() - 1).compile(program);
+
+      for (int jump : jumps) {
+        program.arguments[jump] = program.size;
+      }
+    }
+  }
+
+  private static final class RepeatNode implements Node {
+    private final Node body;
+    private final int min;
+    private final int max;
+    private final boolean greedy;
+
+    /** A negative {@code max} means unbounded. */
+    RepeatNode(Node body, int min, int max, boolean greedy) {
+      this.body = body;
+      this.min = min;
+      this.max = max;
+      this.greedy = greedy;
+    }
+
+    /**
+     * Compiles the mandatory iterations, then the optional ones, or a loop if {@code max} is
+     * unbounded. Like in {@link java.util.regex.Pattern}, an iteration which has matched nothing
+     * ends the repetition (except for {@code ?}), so every iteration starts with saving the
+     * position into the slot of the repetition, and ends with a {@link #LOOP} check.
+     *
+     * <p>If the body is a capturing group which can match only the empty string, its optional
+     * iterations do not update its capture in a greedy repetition: {@link java.util.regex.Pattern}
+     * restores the capture after such an iteration (but not the captures nested in it).
+     */
+    @Override
+    public void compile(Program program) {
+      if (min == 0 && max == 1) {
+        int split = program.emitSplit(greedy);
+        body.compile(program);
+        program.patchSplit(split, greedy, program.size);
+        return;
+      }
+
+      Node optionalBody = body;
+
+      if (greedy
+          && body instanceof GroupNode
+          && ((GroupNode) body).isCapturing()
+          && body.isFixedEmpty()) {
+        optionalBody = ((GroupNode) body).body;
+      }
+
+      int loopSlot = program.newLoopSlot();
+      List<Integer> exits = new ArrayList<>();
+      List<Integer> splits = new ArrayList<>();
+
+      for (int i = 0; i < min; i++) {
+        exits.add(compileIteration(program, loopSlot, body));
+      }
+
+      if (max < 0) {
+        int split = program.emitSplit(greedy);
+        splits.add(split);
+        exits.add(compileIteration(program, loopSlot, optionalBody));
+        program.emit(JUMP, split, 0);
+      } else {
+        for (int i = min; i < max; i++) {
+          splits.add(program.emitSplit(greedy));
+          exits.add(compileIteration(program, loopSlot, optionalBody));
+        }
+      }
+
+      for (int split : splits) {
+        program.patchSplit(split, greedy, program.size);
+      }
+
+      for (int exit : exits) {
+        program.alternatives[exit] = program.size;
+      }
+    }
+
+    @Override
+    public boolean isFixedEmpty() {
+      return min == max && body.isFixedEmpty();
+    }
+
+    /** Returns the index of the {@link #LOOP} instruction (for patching its target). */
+    private int compileIteration(Program program, int loopSlot, Node iteration) {
+      program.emit(SAVE, loopSlot, 0);
+      program.enterLoop(loopSlot);
+      iteration.compile(program);
+      program.exitLoop();
+      return program.emit(LOOP, loopSlot, 0);
+    }
+  }
+
+  /** Recursive descent parser of the supported syntax. */
+  private static final class Parser {
+    private final String regex;
+    private int index;
+    private int groupCount;
+
+    Parser(String regex) {
+      this.regex = regex;
+    }
+
+    Node parse() {
+      Node node = parseAlternation();
+      if (index != regex.length()) {
+        throw new UnsupportedSyntaxException();
+      }
+      return node;
+    }
+
+    private Node parseAlternation() {
+      List<Node> branches = new ArrayList<>();
+      branches.add(parseConcatenation());
+
+      while (accept('|')) {
+        branches.add(parseConcatenation());
+      }
+      return branches.size() == 1 ? branches.get(0) : new AlternationNode(branches);
+    }
+
+    private Node parseConcatenation() {
+      List<Node> nodes = new ArrayList<>();
+
+      while (index < regex.length() && peek() != '|' && peek() != ')') {
+        nodes.add(parseQuantified());
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new ConcatNode(nodes);
+    }
+
+    private Node parseQuantified() {
+      Node atom = parseAtom();
+      int min;
+      int max;
+
+      if (accept('*')) {
+        min = 0;
+        max = -1;
+      } else if (accept('+')) {
+        min = 1;
+        max = -1;
+      } else if (accept('?')) {
+        min = 0;
+        max = 1;
+      } else if (accept('{')) {
+        min = parseNumber();
+        max = accept(',') ? (peek() == '}' ? -1 : parseNumber()) : min;
+        expect('}');
+
+        if (max >= 0 && max < min) {
+          throw new UnsupportedSyntaxException();
+        }
+      } else {
+        return atom;
+      }
+
+      boolean greedy = !accept('?');
+
+      if (index < regex.length() && "*+?{".indexOf(peek()) != -1) {
+        throw new UnsupportedSyntaxException();
+      }
+      return new RepeatNode(atom, min, max, greedy);
+    }
+
+    private Node parseAtom() {
+      char c = next();
+
+      switch (c) {
+        case '(':
+          return parseGroup();
+        case '[':
+          return new CharNode(parseClass());
+        case '.':
+          return new AnyNode();
+        case '^':
+          return new AssertNode(BEGIN);
+        case '$':
+          return new AssertNode(END);
+        case '\\':
+          return parseEscape();
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+        case ')':
+          throw new UnsupportedSyntaxException();
+        default:
+          index--;
+          int codePoint = regex.codePointAt(index);
+          index += Character.charCount(codePoint);
+          return new CharNode(new int[] {codePoint, codePoint});
+      }
+    }
+
+    private Node parseGroup() {
+      int group = -1;
+
+      if (accept('?')) {
+        if (accept('<') && index < regex.length() && Character.isLetter(peek())) {
+          while (index < regex.length() && Character.isLetterOrDigit(peek())) {
+            index++;
+          }
+          expect('>');
+          group = ++groupCount;
+        } else if (!accept(':')) {
+          throw new UnsupportedSyntaxException();
+        }
+      } else {
+        group = ++groupCount;
+      }
+
+      Node body = parseAlternation();
+      expect(')');
+      return new GroupNode(body, group);
+    }
+
+    private Node parseEscape() {
+      char c = next();
+
+      switch (c) {
+        case 'b':
+          return new AssertNode(WORD_BOUNDARY);
+        case 'B':
+          return new AssertNode(NON_WORD_BOUNDARY);
+        case 'Q':
+          return parseQuotation();
+        default:
+          index--;
+          return new CharNode(parseClassEscape());
+      }
+    }
+
+    private Node parseQuotation() {
+      int end = regex.indexOf("\\E", index);
+      end = end == -1 ? regex.length() : end;
+      List<Node> nodes = new ArrayList<>();
+
+      while (index < end) {
+        int codePoint = regex.codePointAt(index);
+        index += Character.charCount(codePoint);
+        nodes.add(new CharNode(new int[] {codePoint, codePoint}));
+      }
+
+      index = Math.min(end + 2, regex.length());
+      return new ConcatNode(nodes);
+    }
+
+    /** Parses the escape (after the backslash) which stands for a set of characters. */
+    private int[] parseClassEscape() {
+      char c = next();
+
+      switch (c) {
+        case 'd':
+          return DIGIT;
+        case 'D':
+          return complement(DIGIT);
+        case 's':
+          return SPACE;
+        case 'S':
+          return complement(SPACE);
+        case 'w':
+          return WORD;
+        case 'W':
+          return complement(WORD);
+        default:
+          int codePoint = parseCharEscape(c);
+          return new int[] {codePoint, codePoint};
+      }
+    }
+
+    private int parseCharEscape(char c) {
+      switch (c) {
+        case 't':
+          return '\t';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 'f':
+          return '\f';
+        case 'a':
+          return '\u0007';
+        case 'e':
+          return '\u001B';
+        case 'x':
+          return parseHex(2);
+        case 'u':
+          return parseHex(4);
+        default:
+          if (('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || ('0' <= c && c <= '9')) {
+            throw new UnsupportedSyntaxException();
+          }
+          return c;
+      }
+    }
+
+    private int[] parseClass() {
+      boolean negated = accept('^');
+      List<int[]> items = new ArrayList<>();
+
+      if (index < regex.length() && peek() == ']') {
+        throw new UnsupportedSyntaxException();
+      }
+
+      while (!accept(']')) {
+        if (index == regex.length() || peek() == '[' || regex.startsWith("&&", index)) {
+          throw new UnsupportedSyntaxException();
+        }
+
+        int[] item = parseClassAtom();
+        boolean isRange =
+            item.length == 2
+                && item[0] == item[1]
+                && index + 1 < regex.length()
+                && peek() == '-'
+                && regex.charAt(index + 1) != ']';
+
+        if (isRange) {
+          index++;
+          int[] end = parseClassAtom();
+
+          if (end.length != 2 || end[0] != end[1] || end[0] < item[0]) {
+            throw new UnsupportedSyntaxException();
+          }
+          item = new int[] {item[0], end[0]};
+        }
+        items.add(item);
+      }
+
+      int[] ranges = normalize(items);
+      return negated ? complement(ranges) : ranges;
+    }
+
+    private int[] parseClassAtom() {
+      if (accept('\\')) {
+        if (index < regex.length() && (peek() == 'Q' || peek() == 'b' || peek() == 'B')) {
+          throw new UnsupportedSyntaxException();
+        }
+        return parseClassEscape();
+      }
+
+      int codePoint = regex.codePointAt(index);
+      index += Character.charCount(codePoint);
+      return new int[] {codePoint, codePoint};
+    }
+
+    private int parseHex(int digits) {
+      int value = 0;
+
+      for (int i = 0; i < digits; i++) {
+        int digit = Character.digit(next(), 16);
+
+        if (digit < 0) {
+          throw new UnsupportedSyntaxException();
+        }
+        value = 16 * value + digit;
+      }
+      return value;
+    }
+
+    private int parseNumber() {
+      int start = index;
+      while (index < regex.length() && '0' <= peek() && peek() <= '9') {
+        index++;
+      }
+
+      if (start == index || index - start > 4) {
+        throw new UnsupportedSyntaxException();
+      }
+      return Integer.parseInt(regex, start, index, 10);
+    }
+
+    private char peek() {
+      return regex.charAt(index);
+    }
+
+    private char next() {
+      if (index == regex.length()) {
+        throw new UnsupportedSyntaxException();
+      }
+      return regex.charAt(index++);
+    }
+
+    private boolean accept(char c) {
+      if (index < regex.length() && peek() == c) {
+        index++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!accept(c)) {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  /** Sorts and merges the ranges (pairs of inclusive bounds) of the {@code items}. */
+  private static int[] normalize(List<int[]> items) {
+    List<int[]> ranges = new ArrayList<>();
+
+    for (int[] item : items) {
+      for (int i = 0; i < item.length; i += 2) {
+        ranges.add(new int[] {item[i], item[i + 1]});
+      }
+    }
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+    List<int[]> merged = new ArrayList<>();
+    for (int[] range : ranges) {
+      int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+
+      if (last != null && range[0] <= last[1] + 1) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(range);
+      }
+    }
+    return merged.stream().flatMapToInt(Arrays::stream).toArray();
+  }
+
+  /** Returns the complement of the normalized {@code ranges} within all the code points. */
+  private static int[] complement(int[] ranges) {
+    List<Integer> result = new ArrayList<>();
+    int next = 0;
+
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (next < ranges[i]) {
+        result.add(next);
+        result.add(ranges[i] - 1);
+      }
+      next = ranges[i + 1] + 1;
+    }
+
+    if (next <= Character.MAX_CODE_POINT) {
+      result.add(next);
+      result.add(Character.MAX_CODE_POINT);
+    }
+    return result.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+/**
+ * Represents the strategies of {@link ParameterMatcher} for matching the {@link Parameter
+ * parameters} of a {@link ParameterPattern}.
+ *
+ * @since 0.3.2
+ */
+public enum MatchingEngine {
+  /**
+   * Every combination of the optional {@link Parameter parameters} is compiled as a separate
+   * variant, and they are tried one by one: first with all optionals, then with one less, and so
+   * on. It always finds the variant with the most optionals present, but for a pattern with n
+   * optionals there are up to 2^n variants (to compile and to try).
+   */
+  VARIANTS,
+
+  /**
+   * Every {@link ParameterPattern} is compiled into a single regex in which each optional {@link
+   * Parameter} is an optional group. The matching cost does not depend on the count of optionals.
+   *
+   * <p>Optionals are evaluated greedily from left to right: an optional is present if the rest of
+   * the input can be matched with it. For independent optionals (the common case) the result is the
+   * same as by {@link MatchingEngine#VARIANTS}, but if an earlier optional "consumes" the place of
+   * more later ones, this engine keeps the earlier one.
+   */
+  OPTIONAL_GROUPS,
+
+  /**
+   * The same single regex as by {@link MatchingEngine#OPTIONAL_GROUPS} (with the same results),
+   * but it is matched by an automaton simulation instead of backtracking, so the matching time is
+   * linear in the length of the input even for pathological patterns and hostile inputs.
+   *
+   * <p>It supports the common subset of the regex syntax (literals, character classes, groups,
+   * alternation, quantifiers, {@code ^ $ \b}), but not lookarounds, backreferences, possessive
+   * quantifiers and flags. A {@link ParameterPattern} which needs them is matched by backtracking
+   * like by {@link MatchingEngine#OPTIONAL_GROUPS}, as well as the single-pass processing (with
+   * blank command regex). Those can be limited by {@link
+   * hu.zza.clim.ParameterMatcherBuilder#setStepLimit(long)}.
+   */
+  LINEAR
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a {@link ParameterPattern} into one regex, in which every optional {@link Parameter} is
+ * an optional group. So the matching is a single regex evaluation, independently of the count of
+ * optionals.
+ *
+ * @see MatchingEngine#OPTIONAL_GROUPS
+ * @see GroupedRegex#withOptionalGroups(ParameterPattern)
+ * @since 0.3.2
+ */
+final class OptionalGroupPattern implements CompiledParameterPattern {
+
+  private final ParameterSlots slots;
+  private final GroupedRegex groupedRegex;
+  private final Pattern pattern;
+  private final boolean hasOptional;
+
+  OptionalGroupPattern(ParameterPattern parameterPattern) {
+    slots = parameterPattern.getSlots();
+    groupedRegex = GroupedRegex.withOptionalGroups(parameterPattern);
+    pattern = Pattern.compile(groupedRegex.getRegex());
+    hasOptional = parameterPattern.getParameterList().stream().anyMatch(Parameter::isOptional);
+  }
+
+  @Override
+  public ParameterSlots getSlots() {
+    return slots;
+  }
+
+  @Override
+  public boolean process(CharSequence text, Parameter[] parameterArray) {
+    Matcher matcher = pattern.matcher(text);
+
+    if (hasOptional ? matcher.matches() : matcher.find()) {
+      groupedRegex.extract(text, matcher, 0, parameterArray);
+      return true;
+    }
+    return false;
+  }
+}
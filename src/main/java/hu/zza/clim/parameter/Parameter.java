@@ -23,6 +23,7 @@
 
 package hu.zza.clim.parameter;
 
+import static hu.zza.clim.menu.Message.INVALID_NAMED_PARAMETER_VALUE;
 import static hu.zza.clim.menu.Message.INVALID_NONEMPTY_ARGUMENT;
 
 import java.util.function.Supplier;
@@ -30,66 +31,236 @@ import java.util.function.UnaryOperator;
 /**
  * Represents a specific parameter (processed input value container), but it is nameless
  * ( = reusable). A parameter can be concrete or optional.
+ *
+ * <p>{@link Parameter} objects are immutable: The processing of an input does not change the
+ * {@link Parameter parameters} of a {@link ParameterPattern}, it creates new ones with the
+ * extracted values. So they can be shared between threads freely.
+ *
+ * <p>The {@code parsingOperator} is applied lazily, on the first access of the value, and the
+ * result of the {@code defaultValueSupplier} is memoized per processed input. (So the operator and
+ * the supplier should not depend on when they are called.) Typed values without {@code
+ * parsingOperator} are still parsed during the processing, so an invalid one is rejected there.
  * @since 0.1
  */
-public final class Parameter implements Cloneable {
+public final class Parameter {
 
   /**
    * Null-safe representation of a completely empty {@link Parameter}.
    * @since 0.1
    */
-  public static final Parameter NULL = new Parameter("()", null, null);
-
-  static {
-    NULL.setValue("");
-  }
+  public static final Parameter NULL =
+      new Parameter("()", null, ValueType.STRING, null, null, null, false, true, true, "", 0);
 
   private final String regex;
+  private final TokenType tokenType;
+  private final ValueType valueType;
+  private final Enum<?>[] enumConstants;
   private final UnaryOperator<String> parsingOperator;
   private final Supplier<String> defaultValueSupplier;
-  private boolean present;
+  private final boolean cachingDefault;
+  private final String rawValue;
+  private volatile boolean evaluated;
+  private boolean assigned;
   private String value;
+  private long typedValue;
+  private volatile boolean defaultEvaluated;
+  private String defaultValue;
 
   Parameter(
       String regex, UnaryOperator<String> parsingOperator, Supplier<String> defaultValueSupplier) {
+    this(regex, null, ValueType.STRING, null, parsingOperator, defaultValueSupplier);
+  }
+
+  Parameter(
+      TokenType tokenType,
+      UnaryOperator<String> parsingOperator,
+      Supplier<String> defaultValueSupplier) {
+    this(
+        tokenType == null ? null : tokenType.getRegex(),
+        tokenType,
+        ValueType.STRING,
+        null,
+        parsingOperator,
+        defaultValueSupplier);
+  }
+
+  /**
+   * Creates a typed {@link Parameter}: A regex-free one if {@code tokenType} is not null, otherwise
+   * one which is extracted by {@code regex}.
+   */
+  Parameter(String regex, TokenType tokenType, ValueType valueType, Enum<?>[] enumConstants) {
+    this(
+        tokenType == null ? regex : tokenType.getRegex(),
+        tokenType,
+        valueType,
+        enumConstants,
+        null,
+        null);
+  }
+
+  private Parameter(
+      String regex,
+      TokenType tokenType,
+      ValueType valueType,
+      Enum<?>[] enumConstants,
+      UnaryOperator<String> parsingOperator,
+      Supplier<String> defaultValueSupplier) {
+    this(
+        regex,
+        tokenType,
+        valueType,
+        enumConstants,
+        parsingOperator,
+        defaultValueSupplier,
+        false,
+        true,
+        false,
+        null,
+        0);
+  }
+
+  /**
+   * If {@code evaluated} is false, {@code value} is the raw value for the {@code parsingOperator},
+   * and {@code assigned} and {@code typedValue} are determined on the first access.
+   */
+  private Parameter(
+      String regex,
+      TokenType tokenType,
+      ValueType valueType,
+      Enum<?>[] enumConstants,
+      UnaryOperator<String> parsingOperator,
+      Supplier<String> defaultValueSupplier,
+      boolean cachingDefault,
+      boolean evaluated,
+      boolean assigned,
+      String value,
+      long typedValue) {
     if (regex == null || regex.isEmpty()) {
       throw new IllegalArgumentException(INVALID_NONEMPTY_ARGUMENT.getMessage("regex"));
     }
 
     this.regex = regex;
+    this.tokenType = tokenType;
+    this.valueType = valueType;
+    this.enumConstants = enumConstants;
     this.parsingOperator = parsingOperator;
     this.defaultValueSupplier = defaultValueSupplier;
-    this.present = true;
+    this.cachingDefault = cachingDefault;
+    this.rawValue = evaluated ? null : value;
+    this.assigned = assigned;
+    this.value = evaluated ? value : null;
+    this.typedValue = typedValue;
+    this.evaluated = evaluated;
   }
 
   String getRegex() {
     return regex;
   }
 
-  boolean isPresent() {
-    return !isOptional() || present; // = isOptional() ? present : true
+  TokenType getTokenType() {
+    return tokenType;
   }
 
   boolean isOptional() {
     return defaultValueSupplier != null;
   }
 
-  void setPresent(boolean present) {
-    this.present = present;
+  /**
+   * Applies the {@code parsingOperator} on the raw value if it has not been applied yet. (Racing
+   * threads can apply it more than once, but they store the same result.)
+   */
+  private void evaluate() {
+    if (evaluated) {
+      return;
+    }
+
+    String parsedValue = parsingOperator.apply(rawValue);
+
+    if (valueType == ValueType.STRING || parsedValue == null) {
+      value = parsedValue;
+    } else {
+      typedValue = valueType.parse(parsedValue, enumConstants);
+    }
+    assigned = parsedValue != null;
+    evaluated = true;
   }
 
   /**
-   * Returns the {@link Parameter parameters} value as a {@link String}.
+   * Returns the {@link Parameter parameters} value as a {@link String}. (The value of a typed
+   * {@link Parameter} is formatted on demand, so it can differ from the input: {@code +7} becomes
+   * {@code 7}.)
    *
    * @return the {@link Parameter parameters} value as a {@link String}
    * @since 0.1
    */
   public String getValue() {
-    return value;
+    evaluate();
+    return assigned && valueType != ValueType.STRING
+        ? valueType.format(typedValue, enumConstants)
+        : value;
   }
 
-  void setValue(String value) {
-    this.value = parsingOperator == null ? value : parsingOperator.apply(value);
+  /**
+   * Returns a copy of this {@link Parameter} with the value extracted from the input. (The {@code
+   * parsingOperator} is applied on the {@code rawValue} on the first access of the value.)
+   */
+  Parameter withValue(String rawValue) {
+    if (parsingOperator != null) {
+      return withValue(false, false, rawValue, 0);
+    }
+
+    if (valueType == ValueType.STRING || rawValue == null) {
+      return withValue(true, rawValue != null, rawValue, 0);
+    }
+    return withValue(true, true, null, valueType.parse(rawValue, enumConstants));
+  }
+
+  /**
+   * Returns a copy of this {@link Parameter} with the value extracted from the region of the
+   * {@code text} between {@code start} (inclusive) and {@code end} (exclusive). A negative {@code
+   * start} means that the region is missing. Typed values without {@code parsingOperator} are
+   * parsed directly from the region, without creating a {@link String}. If the parsing fails, the
+   * exception names the {@link Parameter} by its {@code name}.
+   */
+  Parameter withValue(ParameterName name, CharSequence text, int start, int end) {
+    if (start < 0) {
+      return withValue(null);
+    }
+
+    if (valueType != ValueType.STRING && parsingOperator == null) {
+      long parsedValue;
+      try {
+        parsedValue = valueType.parse(text, start, end, enumConstants);
+      } catch (IllegalArgumentException exception) {
+        throw new IllegalArgumentException(
+            INVALID_NAMED_PARAMETER_VALUE.getMessage(name, exception.getMessage()), exception);
+      }
+      return withValue(true, true, null, parsedValue);
+    }
+    return withValue(text.subSequence(start, end).toString());
+  }
+
+  /**
+   * Returns this {@link Parameter} for an input in which it is missing. If its default is not
+   * cached for its lifetime, it returns a copy, so the default is memoized per processed input.
+   */
+  Parameter withoutValue() {
+    return defaultValueSupplier == null || cachingDefault ? this : withValue(true, false, null, 0);
+  }
+
+  private Parameter withValue(boolean evaluated, boolean assigned, String value, long typedValue) {
+    return new Parameter(
+        regex,
+        tokenType,
+        valueType,
+        enumConstants,
+        parsingOperator,
+        defaultValueSupplier,
+        true,
+        evaluated,
+        assigned,
+        value,
+        typedValue);
   }
 
   /**
@@ -104,35 +275,140 @@ public final class Parameter implements Cloneable {
    * @since 0.1
    */
   public String getOrDefault() {
-    return value != null ? value : defaultValueSupplier != null ? defaultValueSupplier.get() : "";
+    evaluate();
+
+    if (assigned) {
+      return getValue();
+    }
+
+    if (defaultValueSupplier == null) {
+      return "";
+    }
+
+    if (!cachingDefault) {
+      return defaultValueSupplier.get();
+    }
+
+    if (!defaultEvaluated) {
+      defaultValue = defaultValueSupplier.get();
+      defaultEvaluated = true;
+    }
+    return defaultValue;
   }
 
   /**
-   * Returns a copy of this {@link Parameter} with the specified {@code parsingOperator}.
+   * Returns the value as an {@code int}. The value of an {@code int} {@link Parameter} (created by
+   * {@link Parameters#ofInt()}) is returned without conversion, otherwise {@link #getOrDefault()}
+   * is parsed.
+   *
+   * @return the value as an {@code int}
+   * @throws NumberFormatException if the value can not be parsed
+   * @since 0.3.2
+   */
+  public int getInt() {
+    return (int) getTypedValue(ValueType.INT, null);
+  }
+
+  /**
+   * Returns the value as a {@code long}. The value of an {@code int} or {@code long} {@link
+   * Parameter} is returned without conversion, otherwise {@link #getOrDefault()} is parsed.
+   *
+   * @return the value as a {@code long}
+   * @throws NumberFormatException if the value can not be parsed
+   * @since 0.3.2
+   */
+  public long getLong() {
+    evaluate();
+    return assigned && valueType == ValueType.INT
+        ? typedValue
+        : getTypedValue(ValueType.LONG, null);
+  }
+
+  /**
+   * Returns the value as a {@code double}. The value of a numeric {@link Parameter} is returned
+   * without parsing, otherwise {@link #getOrDefault()} is parsed.
+   *
+   * @return the value as a {@code double}
+   * @throws NumberFormatException if the value can not be parsed
+   * @since 0.3.2
+   */
+  public double getDouble() {
+    evaluate();
+    return assigned && (valueType == ValueType.INT || valueType == ValueType.LONG)
+        ? typedValue
+        : Double.longBitsToDouble(getTypedValue(ValueType.DOUBLE, null));
+  }
+
+  /**
+   * Returns the value as a {@code boolean}. The value of a {@code boolean} {@link Parameter} is
+   * returned without conversion, otherwise {@link #getOrDefault()} is parsed. (Only {@code true}
+   * and {@code false} are accepted, ignoring case.)
+   *
+   * @return the value as a {@code boolean}
+   * @throws IllegalArgumentException if the value can not be parsed
+   * @since 0.3.2
+   */
+  public boolean getBoolean() {
+    return getTypedValue(ValueType.BOOLEAN, null) != 0;
+  }
+
+  /**
+   * Returns the value as a constant of {@code enumType}. The value of an enum {@link Parameter} of
+   * the same type is returned without conversion, otherwise {@link #getOrDefault()} is parsed.
+   * (The name of the constant is matched ignoring case.)
+   *
+   * @param enumType the class of the enum
+   * @param <E> the type of the enum
+   * @return the value as a constant of {@code enumType}
+   * @throws IllegalArgumentException if the value can not be parsed
+   * @since 0.3.2
+   */
+  public <E extends Enum<E>> E getEnum(Class<E> enumType) {
+    E[] constants = enumType.getEnumConstants();
+    return constants[(int) getTypedValue(ValueType.ENUM, constants)];
+  }
+
+  private long getTypedValue(ValueType requestedType, Enum<?>[] requestedConstants) {
+    evaluate();
+
+    if (assigned
+        && valueType == requestedType
+        && (requestedConstants == null
+            || enumConstants.getClass() == requestedConstants.getClass())) {
+      return typedValue;
+    }
+    return requestedType.parse(getOrDefault(), requestedConstants);
+  }
+
+  /**
+   * Returns a copy of this {@link Parameter} with the specified {@code parsingOperator}. (The
+   * value of a typed {@link Parameter} with {@code parsingOperator} is parsed from the result of
+   * the operator.)
    *
    * @param parsingOperator the {@link UnaryOperator} to use
    * @return a {@link Parameter} based on this instance with the specified {@code parsingOperator}
    * @since 0.1
    */
   public Parameter with(UnaryOperator<String> parsingOperator) {
-    return new Parameter(regex, parsingOperator, defaultValueSupplier);
+    return with(parsingOperator, defaultValueSupplier, cachingDefault);
   }
 
   /**
    * Returns a copy of this {@link Parameter} with the specified {@code defaultValue}. Works same as
    * {@link Parameter#with(Supplier)} is called with constant {@link Supplier}: {@code
-   * Parameter.with(() -> <defaultValue>)}
+   * Parameter.with(() -> <defaultValue>)}, but the constant is shared by every processed input.
    *
    * @param defaultValue the {@link String} to use
    * @return a {@link Parameter} based on this instance with the specified {@code defaultValue}
    * @since 0.1
    */
   public Parameter with(String defaultValue) {
-    return new Parameter(regex, parsingOperator, () -> defaultValue);
+    return with(parsingOperator, () -> defaultValue, true);
   }
 
   /**
-   * Returns a copy of this {@link Parameter} with the specified {@code defaultValueSupplier}.
+   * Returns a copy of this {@link Parameter} with the specified {@code defaultValueSupplier}. It is
+   * called at most once per processed input (when the default is needed).
    *
    * @param defaultValueSupplier the {@link Supplier} to use
    * @return a {@link Parameter} based on this instance with the specified {@code
@@ -140,20 +416,37 @@ public final class Parameter implements Cloneable {
    * @since 0.1
    */
   public Parameter with(Supplier<String> defaultValueSupplier) {
-    return new Parameter(regex, parsingOperator, defaultValueSupplier);
+    return with(parsingOperator, defaultValueSupplier, false);
   }
 
   /**
-   * Returns a copy of this {@link Parameter}.
-   * @return A non-null copy of the {@link Parameter}.
-   * @since 0.1
+   * Returns a copy of this {@link Parameter} which calls its {@code defaultValueSupplier} at most
+   * once during its lifetime (instead of once per processed input). It is for suppliers with a
+   * constant, but costly result.
+   *
+   * @return a {@link Parameter} based on this instance with cached default value
+   * @since 0.3.2
    */
-  @Override
-  protected Parameter clone() {
-    try {
-      return (Parameter) super.clone();
-    } catch (CloneNotSupportedException e) {
-      return new Parameter(regex, parsingOperator, defaultValueSupplier);
-    }
+  public Parameter withCachedDefault() {
+    return cachingDefault ? this : with(parsingOperator, defaultValueSupplier, true);
+  }
+
+  private Parameter with(
+      UnaryOperator<String> parsingOperator,
+      Supplier<String> defaultValueSupplier,
+      boolean cachingDefault) {
+    evaluate();
+    return new Parameter(
+        regex,
+        tokenType,
+        valueType,
+        enumConstants,
+        parsingOperator,
+        defaultValueSupplier,
+        cachingDefault,
+        true,
+        assigned,
+        value,
+        typedValue);
   }
 }
@@ -25,27 +25,44 @@ package hu.zza.clim.parameter;
 
 import static hu.zza.clim.menu.Message.INVALID_MENU_ARGUMENT;
 import static hu.zza.clim.menu.Message.INVALID_NONEMPTY_ARGUMENT;
+import static hu.zza.clim.menu.Message.INVALID_NONNEGATIVE_ARGUMENT;
+import static hu.zza.clim.menu.Message.INVALID_NONNULL_ARGUMENT;
+import static hu.zza.clim.menu.Message.INVALID_REUSABLE_ARGUMENT;
+import static hu.zza.clim.menu.Message.UNKNOWN_MENU_COMMAND;
 
+import hu.zza.clim.ClimException;
 import hu.zza.clim.menu.Position;
 import hu.zza.clim.menu.ProcessedInput;
 import hu.zza.clim.menu.Util;
-import java.util.ArrayList;
+import hu.zza.clim.parameter.ProcessingResult.ErrorType;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * {@link ParameterMatcher} executes text processing based on the given {@link ParameterPattern
  * patterns}.
+ *
+ * <p>{@link ParameterMatcher} is immutable and stateless: Every {@link ParameterPattern} is
+ * compiled at construction, and processing does not modify anything, it only creates the
+ * resulting {@link ProcessedInput} (or fills a {@link ProcessedInput#reusable() reusable} one of
+ * the caller). So one instance can serve many threads without locking.
  * @since 0.1
  */
 public final class ParameterMatcher {
 
   private final Pattern commandRegex;
   private final Map<Position, ParameterPattern> patternMap;
-  private String text;
+  private final Map<String, Position> positionsByName;
+  private final Map<Position, CompiledParameterPattern> compiledPatternMap;
+  private final CommandDispatcher commandDispatcher;
+  private final long stepLimit;
+  private final ResultCache resultCache;
 
   /**
    * Creates a {@link ParameterMatcher} object with simple {@code commandRegex} (without flags) and
@@ -63,7 +80,7 @@ public final class ParameterMatcher {
   }
 
   /**
-   * Creates a {@link ParameterMatcher} object.
+   * Creates a {@link ParameterMatcher} object with {@link MatchingEngine#VARIANTS}.
    *
    * <p>While many different input regexes can be set using different {@link ParameterPattern}
    * objects, the command regex should be uniform and universal.
@@ -75,16 +92,136 @@ public final class ParameterMatcher {
    */
   public ParameterMatcher(
       String commandRegex, int flags, Map<Position, ParameterPattern> patternMap) {
-    if (commandRegex == null || commandRegex.isBlank()) {
-      throw new IllegalArgumentException(INVALID_NONEMPTY_ARGUMENT.getMessage("commandRegex"));
+    this(commandRegex, flags, patternMap, MatchingEngine.VARIANTS);
+  }
+
+  /**
+   * Creates a {@link ParameterMatcher} object.
+   *
+   * <p>While many different input regexes can be set using different {@link ParameterPattern}
+   * objects, the command regex should be uniform and universal.
+   *
+   * <p>Every {@link ParameterPattern} is compiled here according to the {@code matchingEngine}, so
+   * {@link ParameterMatcher#processText(String)} never compiles any regex.
+   *
+   * <p>If the {@code commandRegex} is blank, the command is identified in a single pass together
+   * with the {@link Parameter parameters}: all the leaves are compiled into one alternation, in
+   * which every branch starts with the name of its leaf (followed by the delimiter or the end of
+   * the input), and the {@link ParameterPattern} of the leaf has to match the whole input.
+   *
+   * @param commandRegex same as {@code regex} in {@link Pattern#compile(String, int)}, or blank for
+   *     single-pass processing
+   * @param flags same as {@code flags} in {@link Pattern#compile(String, int)}
+   * @param patternMap {@link Map} of {@link Position} - {@link ParameterPattern} bindings
+   * @param matchingEngine the {@link MatchingEngine} for the {@link Parameter parameters}
+   * @since 0.3.2
+   */
+  public ParameterMatcher(
+      String commandRegex,
+      int flags,
+      Map<Position, ParameterPattern> patternMap,
+      MatchingEngine matchingEngine) {
+    this(commandRegex, flags, patternMap, matchingEngine, 0);
+  }
+
+  /**
+   * Creates a {@link ParameterMatcher} object like {@link ParameterMatcher#ParameterMatcher(String,
+   * int, Map, MatchingEngine)}, with a limit for the backtracking regex engine.
+   *
+   * <p>The {@code stepLimit} is the maximum count of characters the regex engine can read while
+   * processing one input (including the command regex). Backtracking rereads the input, so the
+   * count is proportional to the work done: If the limit is exceeded, the processing is aborted
+   * with a {@link ClimException}. (A catastrophic backtracking can be stopped this way.) The
+   * {@link MatchingEngine#LINEAR linear} engine reads every character only a few times, and the
+   * regex-free {@link TokenType token} matching tries every parameter at a token start at most
+   * once, so their count is bounded by the size of the input and the pattern.
+   *
+   * @param commandRegex same as {@code regex} in {@link Pattern#compile(String, int)}, or blank for
+   *     single-pass processing
+   * @param flags same as {@code flags} in {@link Pattern#compile(String, int)}
+   * @param patternMap {@link Map} of {@link Position} - {@link ParameterPattern} bindings
+   * @param matchingEngine the {@link MatchingEngine} for the {@link Parameter parameters}
+   * @param stepLimit the maximum count of steps per input, or 0 for no limit
+   * @since 0.3.2
+   */
+  public ParameterMatcher(
+      String commandRegex,
+      int flags,
+      Map<Position, ParameterPattern> patternMap,
+      MatchingEngine matchingEngine,
+      long stepLimit) {
+    this(commandRegex, flags, patternMap, matchingEngine, stepLimit, 0);
+  }
+
+  /**
+   * Creates a {@link ParameterMatcher} object like {@link ParameterMatcher#ParameterMatcher(String,
+   * int, Map, MatchingEngine, long)}, with a cache of the results.
+   *
+   * <p>If {@code cacheSize} is positive, the results of the successfully processed inputs are
+   * cached by the raw input text, and the least recently used ones are evicted above {@code
+   * cacheSize}. So a repeated input is not matched again: it gets the same immutable {@link
+   * ProcessedInput}. (Its lazily parsed values and its default values are shared too, so the
+   * cache does not fit defaults with a changing result, like the current date.)
+   *
+   * @param commandRegex same as {@code regex} in {@link Pattern#compile(String, int)}, or blank for
+   *     single-pass processing
+   * @param flags same as {@code flags} in {@link Pattern#compile(String, int)}
+   * @param patternMap {@link Map} of {@link Position} - {@link ParameterPattern} bindings
+   * @param matchingEngine the {@link MatchingEngine} for the {@link Parameter parameters}
+   * @param stepLimit the maximum count of steps per input, or 0 for no limit
+   * @param cacheSize the maximum count of cached results, or 0 for no cache
+   * @since 0.3.2
+   */
+  public ParameterMatcher(
+      String commandRegex,
+      int flags,
+      Map<Position, ParameterPattern> patternMap,
+      MatchingEngine matchingEngine,
+      long stepLimit,
+      int cacheSize) {
+    if (commandRegex == null) {
+      throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("commandRegex"));
     }
 
     if (patternMap == null || patternMap.isEmpty()) {
       throw new IllegalArgumentException(INVALID_NONEMPTY_ARGUMENT.getMessage("patternMap"));
     }
 
-    this.commandRegex = Pattern.compile(commandRegex, flags);
-    this.patternMap = patternMap;
+    if (matchingEngine == null) {
+      throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("matchingEngine"));
+    }
+
+    if (stepLimit < 0) {
+      throw new IllegalArgumentException(INVALID_NONNEGATIVE_ARGUMENT.getMessage("stepLimit"));
+    }
+
+    if (cacheSize < 0) {
+      throw new IllegalArgumentException(INVALID_NONNEGATIVE_ARGUMENT.getMessage("cacheSize"));
+    }
+
+    this.stepLimit = stepLimit;
+    this.resultCache = cacheSize == 0 ? null : new ResultCache(cacheSize);
+
+    this.patternMap = Map.copyOf(patternMap);
+    this.positionsByName =
+        this.patternMap.keySet().stream()
+            .collect(
+                Collectors.toUnmodifiableMap(Position::getName, Function.identity(), (a, b) -> a));
+
+    if (commandRegex.isBlank()) {
+      this.commandRegex = null;
+      this.compiledPatternMap = Map.of();
+      this.commandDispatcher = new CommandDispatcher(this.patternMap, matchingEngine);
+    } else {
+      this.commandRegex = Pattern.compile(commandRegex, flags);
+      this.compiledPatternMap =
+          this.patternMap.entrySet().stream()
+              .collect(
+                  Collectors.toUnmodifiableMap(
+                      Map.Entry::getKey,
+                      e -> CompiledParameterPattern.of(matchingEngine, e.getValue())));
+      this.commandDispatcher = null;
+    }
   }
 
   /**
@@ -96,7 +233,7 @@ public final class ParameterMatcher {
    * @since 0.1
    */
   public boolean containsKeyInPatternMap(Position position) {
-    return patternMap.containsKey(position);
+    return position != null && patternMap.containsKey(position);
   }
 
   /**
@@ -107,142 +244,179 @@ public final class ParameterMatcher {
    * @since 0.1
    */
   public ProcessedInput processText(String text) {
-    Util.assertNonNull("text", text);
-    setText(text);
-
-    String commandString =
-        this.commandRegex.matcher(text).results().findFirst().map(m -> m.group(1)).orElseThrow();
-
-    Position commandPosition = Position.getByName(commandString);
-    ParameterPattern parameterPattern = patternMap.get(commandPosition);
-    List<ParameterName> parameterNames = parameterPattern.getParameterNameList();
-    List<Parameter> parameterList = getAndPrepareParameterList(parameterPattern);
-
-    String regex = ParameterPattern.getRegex(parameterPattern.getDelimiter(), parameterList);
-
-    Matcher matcher = Pattern.compile(regex).matcher(text);
+    return processText((CharSequence) text);
+  }
 
-    if (matcher.find()) {
-      var matchResult = matcher.toMatchResult();
+  /**
+   * Processes the given {@link CharSequence} without copying it and returns a {@link
+   * ProcessedInput} object. Only the values of the {@link Parameter parameters} are materialized,
+   * so {@code text} can be a reused buffer (like a {@link StringBuilder} or a decoded {@link
+   * java.nio.CharBuffer}), which can be changed after this method returns. The result is not
+   * {@link ProcessedInput#isReusable() reusable}, so it can be kept.
+   *
+   * @param text the input for processing
+   * @return the processed input in the form of a {@link ProcessedInput} object
+   * @throws ClimException if the step limit is exceeded
+   * @since 0.3.2
+   */
+  public ProcessedInput processText(CharSequence text) {
+    Util.assertNonNull("text", text);
+    return resultCache == null
+        ? processOrThrow(text, ProcessedInput.reusable()).copy()
+        : processCached(text.toString());
+  }
 
-      var updateList =
-          parameterList.stream().filter(Parameter::isPresent).collect(Collectors.toList());
+  /**
+   * Processes the given {@link CharSequence} like {@link
+   * ParameterMatcher#processText(CharSequence)}, but stores the result into the {@link
+   * ProcessedInput#reusable() reusable} {@code target} instead of creating a new one. Its previous
+   * content is overwritten, and it is unspecified if the processing fails.
+   *
+   * <p>Reusing one {@code target} per thread (or per session), the steady-state processing creates
+   * almost no garbage: no maps or lists, only the {@link Parameter parameters} with values.
+   *
+   * @param text the input for processing
+   * @param target the reusable {@link ProcessedInput} for the result
+   * @return the {@code target} with the result
+   * @throws ClimException if the step limit is exceeded
+   * @since 0.3.2
+   */
+  public ProcessedInput processText(CharSequence text, ProcessedInput target) {
+    Util.assertNonNull("text", text);
+    Util.assertNonNull("target", target);
 
-      for (int i = 1; i <= matchResult.groupCount(); i++) {
-        try {
-          updateList.get(i - 1).setValue(matchResult.group(i));
-        } catch (IllegalArgumentException exception) {
-          throw new IllegalArgumentException(
-              String.format(exception.getMessage(), parameterNames.get(i).toString()));
-        }
-      }
-    } else {
-      throw new IllegalArgumentException(INVALID_MENU_ARGUMENT.getMessage());
+    if (!target.isReusable()) {
+      throw new IllegalArgumentException(INVALID_REUSABLE_ARGUMENT.getMessage("target"));
     }
 
-    ProcessedInput result = new ProcessedInput(commandPosition);
-
-    for (int i = 0; i < parameterNames.size(); i++) {
-      result.putParameter(parameterNames.get(i), parameterList.get(i));
-    }
+    return resultCache == null
+        ? processOrThrow(text, target)
+        : target.copyFrom(processCached(text.toString()));
+  }
 
-    return result;
+  /**
+   * Returns the statistics of the result cache. (If there is no cache, every count is 0.)
+   *
+   * @return a snapshot of the {@link CacheStatistics}
+   * @see ParameterMatcher#ParameterMatcher(String, int, Map, MatchingEngine, long, int)
+   * @since 0.3.2
+   */
+  public CacheStatistics getCacheStatistics() {
+    return resultCache == null ? new CacheStatistics(0, 0, 0, 0, 0) : resultCache.getStatistics();
   }
 
-  private void setText(String text) {
-    this.text = text;
+  /**
+   * Processes all lines of the given {@link Stream} in parallel (on the common fork-join pool) and
+   * returns the results in the order of the lines. Invalid lines do not stop the processing: their
+   * results contain the {@link ProcessingResult.ErrorType type of the error} instead of throwing
+   * exceptions.
+   *
+   * <p>The lines are read during the whole processing, so they should not be changed meanwhile.
+   *
+   * @param lines the inputs for processing, one command per element
+   * @return a {@link ProcessingResult} for every line (in the same order)
+   * @since 0.3.2
+   */
+  public List<ProcessingResult> processAll(Stream<? extends CharSequence> lines) {
+    Util.assertNonNull("lines", lines);
+    List<? extends CharSequence> lineList = lines.collect(Collectors.toList());
+
+    return IntStream.range(0, lineList.size())
+        .parallel()
+        .mapToObj(i -> processLine(i + 1, lineList.get(i)))
+        .collect(Collectors.toList());
   }
 
-  private List<Parameter> getAndPrepareParameterList(ParameterPattern parameterPattern) {
-    String delimiter = parameterPattern.getDelimiter();
-    List<Parameter> parameterList = parameterPattern.getParameterClonesList();
+  private ProcessingResult processLine(int lineNumber, CharSequence text) {
+    if (text == null) {
+      return ProcessingResult.failure(
+          lineNumber, ErrorType.INVALID_ARGUMENTS, INVALID_NONNULL_ARGUMENT.getMessage("text"));
+    }
 
-    int[] positionsOfOptional =
-        parameterList.stream()
-            .filter(Parameter::isOptional)
-            .mapToInt(parameterList::indexOf)
-            .toArray();
+    try {
+      String key = resultCache == null ? null : text.toString();
+      ProcessedInput processedInput = key == null ? null : resultCache.get(key);
 
-    if (positionsOfOptional.length == 0) {
-      return parameterList;
-    } else {
-      return getFittingParameterListVariant(delimiter, parameterList, positionsOfOptional);
-    }
-  }
+      if (processedInput == null) {
+        processedInput = ProcessedInput.reusable();
+        ErrorType error = process(text, processedInput);
 
-  private List<Parameter> getFittingParameterListVariant(
-      String delimiter, List<Parameter> parameterList, int[] positionsOfOptional) {
-    // First try to match with all (positionsOfOptional.length) optionals ( + all non-optionals),
-    // then with optionalCount - 1, and so on... At least without any optional (all non-optionals
-    // only).
-    // The inner cycle iterates through all combinations with given count (i) of optionals.
-    for (int i = positionsOfOptional.length; 0 <= i; i--) {
-      for (int[] selectedIndices : generateCombinations(positionsOfOptional.length, i)) {
-        var selectedOptional = new int[i];
-        for (int j = 0; j < i; j++) {
-          selectedOptional[j] = positionsOfOptional[selectedIndices[j]];
+        if (error != null) {
+          return ProcessingResult.failure(lineNumber, error, getMessage(error, text));
         }
 
-        setPresentFields(parameterList, positionsOfOptional, selectedOptional);
-
-        if (Pattern.matches(ParameterPattern.getRegex(delimiter, parameterList), text)) {
-          return parameterList;
+        if (key != null) {
+          processedInput = processedInput.copy();
+          resultCache.put(key, processedInput);
         }
       }
+      return ProcessingResult.success(lineNumber, processedInput);
+    } catch (ClimException exception) {
+      return ProcessingResult.failure(
+          lineNumber, ErrorType.STEP_LIMIT_EXCEEDED, exception.getMessage());
+    } catch (RuntimeException exception) {
+      return ProcessingResult.failure(
+          lineNumber, ErrorType.PARSING_FAILED, String.valueOf(exception.getMessage()));
     }
-    throw new IllegalArgumentException(INVALID_MENU_ARGUMENT.getMessage());
   }
 
-  /**
-   * Generates all {@code r} sized combinations for range 0..{@code n} (included, excluded).
-   *
-   * @param n upper boundary for the generation (excluded)
-   * @param r size of a generated set
-   * @return combinations in lexicographic order
-   * @since 0.1
-   */
-  private List<int[]> generateCombinations(int n, int r) {
-    List<int[]> combinations = new ArrayList<>();
-    int[] combination = new int[r];
+  /** Returns the cached result of the {@code text}, or processes and caches it. */
+  private ProcessedInput processCached(String text) {
+    ProcessedInput processedInput = resultCache.get(text);
 
-    // Initialize with lowest lexicographic combination
-    for (int i = 0; i < r; i++) {
-      combination[i] = i;
+    if (processedInput == null) {
+      processedInput = processOrThrow(text, ProcessedInput.reusable()).copy();
+      resultCache.put(text, processedInput);
     }
+    return processedInput;
+  }
 
-    // PATCH...
-    if (r == 0) {
-      return List.of(new int[] {0});
+  private ProcessedInput processOrThrow(CharSequence text, ProcessedInput target) {
+    ErrorType error = process(text, target);
+
+    if (error != null) {
+      throw new IllegalArgumentException(getMessage(error, text));
     }
-    if (r == n) {
-      return List.of(combination);
+    return target;
+  }
+
+  /** Stores the result into the reusable {@code target}, and returns the error type or null. */
+  private ErrorType process(CharSequence text, ProcessedInput target) {
+    if (stepLimit > 0) {
+      text = new StepLimitedCharSequence(text, stepLimit);
     }
 
-    while (combination[r - 1] < n) {
-      combinations.add(combination.clone());
+    if (commandDispatcher != null) {
+      return commandDispatcher.process(text, target.getBuffer());
+    }
 
-      // Generate next combination in lexicographic order
-      int t = r - 1;
-      while (t != 0 && combination[t] == n - r + t) {
-        t--;
-      }
-      combination[t]++;
-      for (int i = t + 1; i < r; i++) {
-        combination[i] = combination[i - 1] + 1;
-      }
+    String commandString = getCommandString(text);
+    Position commandPosition = commandString == null ? null : positionsByName.get(commandString);
+    CompiledParameterPattern compiledPattern =
+        commandPosition == null ? null : compiledPatternMap.get(commandPosition);
+
+    if (compiledPattern == null) {
+      return ErrorType.UNKNOWN_COMMAND;
     }
 
-    return combinations;
+    Parameter[] parameterArray =
+        target.getBuffer().reset(commandPosition, compiledPattern.getSlots());
+    return compiledPattern.process(text, parameterArray) ? null : ErrorType.INVALID_ARGUMENTS;
   }
 
-  private void setPresentFields(
-      List<Parameter> parameterList, int[] optionalIndices, int[] selectedIndices) {
-    for (int i : optionalIndices) {
-      parameterList.get(i).setPresent(false);
+  private String getCommandString(CharSequence text) {
+    if (commandRegex == null) {
+      return null;
     }
+    Matcher commandMatcher = commandRegex.matcher(text);
+    return commandMatcher.find() ? commandMatcher.group(1) : null;
+  }
 
-    for (int i : selectedIndices) {
-      parameterList.get(i).setPresent(true);
+  private String getMessage(ErrorType error, CharSequence text) {
+    if (error == ErrorType.UNKNOWN_COMMAND) {
+      String commandString = getCommandString(text);
+      return UNKNOWN_MENU_COMMAND.getMessage(commandString == null ? text : commandString);
     }
+    return INVALID_MENU_ARGUMENT.getMessage();
   }
 }
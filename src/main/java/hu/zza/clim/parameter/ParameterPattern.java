@@ -31,7 +31,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
 
 /**
  * Represents a complex pattern of {@link Parameter parameters} that is used for evaluating user
@@ -42,6 +41,7 @@ public final class ParameterPattern {
 
   private final String delimiter;
   private final Map<ParameterName, Parameter> parameters = new LinkedHashMap<>();
+  private final ParameterSlots slots;
 
   /**
    * Creates a {@link ParameterPattern}. A {@link ParameterPattern} object has only {@code
@@ -72,14 +72,26 @@ public final class ParameterPattern {
     for (int i = 0; i < parameterNames.size(); i++) {
       this.parameters.put(parameterNames.get(i), parameters.get(i));
     }
+    this.slots = ParameterSlots.of(getParameterNameList());
+  }
+
+  /**
+   * Returns a copy of this {@link ParameterPattern} in which every optional {@link Parameter} calls
+   * its {@code defaultValueSupplier} at most once during its lifetime. (See {@link
+   * Parameter#withCachedDefault()}.)
+   *
+   * @return a {@link ParameterPattern} with cached default values
+   * @since 0.3.2
+   */
+  public ParameterPattern withCachedDefaults() {
+    List<Parameter> parameterList = getParameterList();
+    parameterList.replaceAll(e -> e.isOptional() ? e.withCachedDefault() : e);
+    return new ParameterPattern(delimiter, getParameterNameList(), parameterList);
   }
 
   static String getRegex(String delimiter, List<Parameter> parameterList) {
     var stringJoiner = new StringJoiner(delimiter);
-    parameterList.stream()
-        .filter(Parameter::isPresent)
-        .map(Parameter::getRegex)
-        .forEach(stringJoiner::add);
+    parameterList.stream().map(Parameter::getRegex).forEach(stringJoiner::add);
 
     return stringJoiner.toString();
   }
@@ -92,7 +104,18 @@ public final class ParameterPattern {
     return new ArrayList<>(parameters.keySet());
   }
 
-  List<Parameter> getParameterClonesList() {
-    return parameters.values().stream().map(Parameter::clone).collect(Collectors.toList());
+  List<Parameter> getParameterList() {
+    return new ArrayList<>(parameters.values());
+  }
+
+  /**
+   * Returns the slots of the {@link Parameter parameters}, which are assigned in sequential order
+   * at construction.
+   *
+   * @return the {@link ParameterSlots} of this pattern
+   * @since 0.3.2
+   */
+  public ParameterSlots getSlots() {
+    return slots;
   }
 }
@@ -0,0 +1,134 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Slot indices of the {@link ParameterName parameter names}: the i-th name (in sequential order) is
+ * in the i-th slot. {@link ParameterPattern} assigns its slots at construction, so a {@link
+ * hu.zza.clim.menu.ProcessedInput} can store its {@link Parameter parameters} in a plain array.
+ *
+ * <p>If all the names are constants of the same enum (the usual case), a name is looked up by its
+ * ordinal, otherwise by a linear search. {@link ParameterSlots} objects are immutable.
+ *
+ * @since 0.3.2
+ */
+public final class ParameterSlots {
+
+  public static final ParameterSlots EMPTY = new ParameterSlots(new ParameterName[0]);
+  private final ParameterName[] names;
+  private final Class<?> enumType;
+  private final int[] slotsByOrdinal;
+
+  private ParameterSlots(ParameterName[] names) {
+    this.names = names;
+    this.enumType = getCommonEnumType(names);
+
+    if (enumType == null) {
+      slotsByOrdinal = null;
+    } else {
+      slotsByOrdinal = new int[enumType.getEnumConstants().length];
+      Arrays.fill(slotsByOrdinal, -1);
+
+      for (int i = 0; i < names.length; i++) {
+        slotsByOrdinal[((Enum<?>) names[i]).ordinal()] = i;
+      }
+    }
+  }
+
+  /**
+   * Returns the {@link ParameterSlots} of the {@code parameterNames}: the i-th name is in the i-th
+   * slot. (If a name occurs more than once, its last slot is used for looking up.)
+   *
+   * @param parameterNames the names in sequential order
+   * @return the {@link ParameterSlots} of the {@code parameterNames}
+   * @since 0.3.2
+   */
+  public static ParameterSlots of(List<ParameterName> parameterNames) {
+    return parameterNames.isEmpty()
+        ? EMPTY
+        : new ParameterSlots(parameterNames.toArray(new ParameterName[0]));
+  }
+
+  private static Class<?> getCommonEnumType(ParameterName[] names) {
+    Class<?> enumType = null;
+
+    for (ParameterName name : names) {
+      if (!(name instanceof Enum)) {
+        return null;
+      }
+
+      Class<?> type = ((Enum<?>) name).getDeclaringClass();
+      if (enumType != null && enumType != type) {
+        return null;
+      }
+      enumType = type;
+    }
+    return enumType;
+  }
+
+  /**
+   * Returns the count of the slots.
+   *
+   * @return the count of the slots
+   * @since 0.3.2
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the {@link ParameterName} in the given slot.
+   *
+   * @param slot the index of the slot
+   * @return the {@link ParameterName} in the slot
+   * @since 0.3.2
+   */
+  public ParameterName getName(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * Returns the slot of the {@code parameterName}, or -1 if it has no slot.
+   *
+   * @param parameterName the name looking for
+   * @return the index of the slot, or -1
+   * @since 0.3.2
+   */
+  public int getSlot(ParameterName parameterName) {
+    if (enumType != null && enumType.isInstance(parameterName)) {
+      return slotsByOrdinal[((Enum<?>) parameterName).ordinal()];
+    }
+
+    for (int i = names.length - 1; 0 <= i; i--) {
+      if (Objects.equals(names[i], parameterName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
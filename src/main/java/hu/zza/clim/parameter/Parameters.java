@@ -23,6 +23,9 @@
 
 package hu.zza.clim.parameter;
 
+import static hu.zza.clim.menu.Message.INVALID_NONNULL_ARGUMENT;
+
+import hu.zza.clim.menu.ProcessedInput;
 import java.util.List;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -79,7 +82,7 @@ public interface Parameters {
    * @since 0.1
    */
   static Parameter of(String regex, String defaultValue) {
-    return new Parameter(regex, null, () -> defaultValue);
+    return new Parameter(regex, null, null).with(defaultValue);
   }
 
   /**
@@ -94,6 +97,161 @@ public interface Parameters {
     return new Parameter(regex, null, defaultValueSupplier);
   }
 
+  /**
+   * Returns a concrete, non-parser, regex-free {@link Parameter} of the given {@link TokenType}.
+   * Optional and parser variants can be created by {@link Parameter#with} methods.
+   *
+   * <p>A {@link ParameterPattern} which contains only this kind of {@link Parameter parameters}
+   * and a plain delimiter (like a space or a comma) is processed without {@code java.util.regex}.
+   *
+   * @param tokenType the class of the token for value extraction from the raw input
+   * @return the concrete, non-parser {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter of(TokenType tokenType) {
+    if (tokenType == null) {
+      throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("tokenType"));
+    }
+    return new Parameter(tokenType, null, null);
+  }
+
+  /**
+   * Returns a concrete, regex-free {@link Parameter} with {@code int} value: an optionally signed
+   * integer. The value is parsed directly from the input, and it can be read by {@link
+   * ProcessedInput#getInt} without conversion.
+   *
+   * @return the concrete {@code int} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofInt() {
+    return new Parameter(null, TokenType.INTEGER, ValueType.INT, null);
+  }
+
+  /**
+   * Returns a concrete {@link Parameter} with {@code int} value. The value is parsed directly from
+   * the region matched by {@code regex}, and it can be read by {@link ProcessedInput#getInt}
+   * without conversion.
+   *
+   * @param regex the regex pattern for value extraction from the raw input
+   * @return the concrete {@code int} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofInt(String regex) {
+    return new Parameter(regex, null, ValueType.INT, null);
+  }
+
+  /**
+   * Returns a concrete, regex-free {@link Parameter} with {@code long} value: an optionally signed
+   * integer. The value is parsed directly from the input, and it can be read by {@link
+   * ProcessedInput#getLong} without conversion.
+   *
+   * @return the concrete {@code long} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofLong() {
+    return new Parameter(null, TokenType.INTEGER, ValueType.LONG, null);
+  }
+
+  /**
+   * Returns a concrete {@link Parameter} with {@code long} value. The value is parsed directly from
+   * the region matched by {@code regex}, and it can be read by {@link ProcessedInput#getLong}
+   * without conversion.
+   *
+   * @param regex the regex pattern for value extraction from the raw input
+   * @return the concrete {@code long} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofLong(String regex) {
+    return new Parameter(regex, null, ValueType.LONG, null);
+  }
+
+  /**
+   * Returns a concrete, regex-free {@link Parameter} with {@code double} value: an optionally
+   * signed decimal number. The value is parsed directly from the input, and it can be read by
+   * {@link ProcessedInput#getDouble} without conversion.
+   *
+   * @return the concrete {@code double} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofDouble() {
+    return new Parameter(null, TokenType.DECIMAL, ValueType.DOUBLE, null);
+  }
+
+  /**
+   * Returns a concrete {@link Parameter} with {@code double} value. The value is parsed directly
+   * from the region matched by {@code regex}, and it can be read by {@link
+   * ProcessedInput#getDouble} without conversion.
+   *
+   * @param regex the regex pattern for value extraction from the raw input
+   * @return the concrete {@code double} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofDouble(String regex) {
+    return new Parameter(regex, null, ValueType.DOUBLE, null);
+  }
+
+  /**
+   * Returns a concrete, regex-free {@link Parameter} with {@code boolean} value: {@code true} or
+   * {@code false} (ignoring case). The value is parsed directly from the input, and it can be read
+   * by {@link ProcessedInput#getBoolean} without conversion.
+   *
+   * @return the concrete {@code boolean} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofBoolean() {
+    return new Parameter(null, TokenType.WORD, ValueType.BOOLEAN, null);
+  }
+
+  /**
+   * Returns a concrete {@link Parameter} with {@code boolean} value. The value is parsed directly
+   * from the region matched by {@code regex}, and it can be read by {@link
+   * ProcessedInput#getBoolean} without conversion.
+   *
+   * @param regex the regex pattern for value extraction from the raw input
+   * @return the concrete {@code boolean} {@link Parameter}
+   * @since 0.3.2
+   */
+  static Parameter ofBoolean(String regex) {
+    return new Parameter(regex, null, ValueType.BOOLEAN, null);
+  }
+
+  /**
+   * Returns a concrete, regex-free {@link Parameter} with enum value: a word which is the name of a
+   * constant of {@code enumType} (ignoring case). The value can be read by {@link
+   * ProcessedInput#getEnum} without conversion.
+   *
+   * @param enumType the class of the enum
+   * @param <E> the type of the enum
+   * @return the concrete enum {@link Parameter}
+   * @since 0.3.2
+   */
+  static <E extends Enum<E>> Parameter ofEnum(Class<E> enumType) {
+    return ofEnum(null, TokenType.WORD, enumType);
+  }
+
+  /**
+   * Returns a concrete {@link Parameter} with enum value: the name of a constant of {@code
+   * enumType} (ignoring case) in the region matched by {@code regex}. The value can be read by
+   * {@link ProcessedInput#getEnum} without conversion.
+   *
+   * @param regex the regex pattern for value extraction from the raw input
+   * @param enumType the class of the enum
+   * @param <E> the type of the enum
+   * @return the concrete enum {@link Parameter}
+   * @since 0.3.2
+   */
+  static <E extends Enum<E>> Parameter ofEnum(String regex, Class<E> enumType) {
+    return ofEnum(regex, null, enumType);
+  }
+
+  private static <E extends Enum<E>> Parameter ofEnum(
+      String regex, TokenType tokenType, Class<E> enumType) {
+    if (enumType == null) {
+      throw new IllegalArgumentException(INVALID_NONNULL_ARGUMENT.getMessage("enumType"));
+    }
+    return new Parameter(regex, tokenType, ValueType.ENUM, enumType.getEnumConstants());
+  }
+
   /**
    * Creates a {@link ParameterPattern}. A {@link ParameterPattern} object has only {@code
    * delimiter}, but no regex. The reason is that every {@link Parameter} has its own, so only a
@@ -0,0 +1,153 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled form of a {@link ParameterPattern}: every presence variant of its optional {@link
+ * Parameter parameters} is compiled once, so text processing only has to run the matchers.
+ *
+ * <p>A variant is identified by its presence mask: the j-th bit is set if the j-th optional
+ * parameter (in sequential order) is present. The variants are built as {@link GroupedRegex}, so
+ * the values are extracted from the same groups as by the other engines.
+ *
+ * @see MatchingEngine#VARIANTS
+ * @since 0.3.2
+ */
+final class PatternVariants implements CompiledParameterPattern {
+
+  private final ParameterSlots slots;
+  private final GroupedRegex[] groupedRegexes;
+  private final Pattern[] variants;
+  private final int[] masksByPriority;
+
+  PatternVariants(ParameterPattern parameterPattern) {
+    slots = parameterPattern.getSlots();
+    int optionalCount =
+        (int) parameterPattern.getParameterList().stream().filter(Parameter::isOptional).count();
+
+    groupedRegexes = new GroupedRegex[1 << optionalCount];
+    variants = new Pattern[groupedRegexes.length];
+    for (int mask = 0; mask < variants.length; mask++) {
+      groupedRegexes[mask] = GroupedRegex.withVariants(parameterPattern, new int[] {mask});
+      variants[mask] = Pattern.compile(groupedRegexes[mask].getRegex());
+    }
+
+    masksByPriority = orderMasksByPriority(optionalCount);
+  }
+
+  @Override
+  public ParameterSlots getSlots() {
+    return slots;
+  }
+
+  @Override
+  public boolean process(CharSequence text, Parameter[] parameterArray) {
+    for (int mask : masksByPriority) {
+      if (extract(text, mask, parameterArray)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Extracts the values by the variant of {@code mask}, and returns false if it does not fit. */
+  private boolean extract(CharSequence text, int mask, Parameter[] parameterArray) {
+    Matcher matcher = variants[mask].matcher(text);
+
+    if (!matcher.matches()) {
+      return false;
+    }
+
+    groupedRegexes[mask].extract(text, matcher, 0, parameterArray);
+    return true;
+  }
+
+  /**
+   * Returns the presence masks in the order of evaluation: First with all optionals, then with
+   * optionalCount - 1, and so on... At least without any optional (all non-optionals only). Masks
+   * with the same count of optionals are in the lexicographic order of their combinations.
+   */
+  static int[] orderMasksByPriority(int optionalCount) {
+    int[] masks = new int[1 << optionalCount];
+    int next = 0;
+
+    for (int i = optionalCount; 0 <= i; i--) {
+      for (int[] selectedIndices : generateCombinations(optionalCount, i)) {
+        int mask = 0;
+        for (int j = 0; j < i; j++) {
+          mask |= 1 << selectedIndices[j];
+        }
+        masks[next++] = mask;
+      }
+    }
+    return masks;
+  }
+
+  /**
+   * Generates all {@code r} sized combinations for range 0..{@code n} (included, excluded).
+   *
+   * @param n upper boundary for the generation (excluded)
+   * @param r size of a generated set
+   * @return combinations in lexicographic order
+   * @since 0.1
+   */
+  private static List<int[]> generateCombinations(int n, int r) {
+    List<int[]> combinations = new ArrayList<>();
+    int[] combination = new int[r];
+
+    // Initialize with lowest lexicographic combination
+    for (int i = 0; i < r; i++) {
+      combination[i] = i;
+    }
+
+    // PATCH...
+    if (r == 0) {
+      return List.of(new int[] {0});
+    }
+    if (r == n) {
+      return List.of(combination);
+    }
+
+    while (combination[r - 1] < n) {
+      combinations.add(combination.clone());
+
+      // Generate next combination in lexicographic order
+      int t = r - 1;
+      while (t != 0 && combination[t] == n - r + t) {
+        t--;
+      }
+      combination[t]++;
+      for (int i = t + 1; i < r; i++) {
+        combination[i] = combination[i - 1] + 1;
+      }
+    }
+
+    return combinations;
+  }
+}
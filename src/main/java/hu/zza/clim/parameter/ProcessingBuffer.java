@@ -0,0 +1,107 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import hu.zza.clim.menu.Position;
+import java.util.Arrays;
+
+/**
+ * Content of a {@link hu.zza.clim.menu.ProcessedInput}: the selected {@link Position} and the
+ * {@link Parameter parameters} in an array by their {@link ParameterSlots slots}.
+ *
+ * <p>The buffer of a {@link hu.zza.clim.menu.ProcessedInput#reusable() reusable} {@link
+ * hu.zza.clim.menu.ProcessedInput} is overwritten by {@link ParameterMatcher}, which fills its
+ * array directly (the array is reused if it is large enough). The array is never handed out, so
+ * the others can only copy a content into the buffer.
+ *
+ * @since 0.3.2
+ */
+public final class ProcessingBuffer {
+
+  private static final Parameter[] NO_PARAMETERS = new Parameter[0];
+  private Position position;
+  private ParameterSlots slots = ParameterSlots.EMPTY;
+  private Parameter[] parameters = NO_PARAMETERS;
+
+  public Position getPosition() {
+    return position;
+  }
+
+  public ParameterSlots getSlots() {
+    return slots;
+  }
+
+  /**
+   * Returns the {@link Parameter} in the {@code slot}.
+   *
+   * @param slot the slot of the {@link Parameter} (less than {@code getSlots().size()})
+   * @return the {@link Parameter}, or null if it is not set
+   */
+  public Parameter get(int slot) {
+    return parameters[slot];
+  }
+
+  /**
+   * Overwrites the content with a copy of the given one.
+   *
+   * @param position the selected {@link Position}
+   * @param slots the slots of the {@link ParameterName parameter names}
+   * @param parameters the {@link Parameter parameters} in the order of the {@code slots} (the
+   *     missing ones are null)
+   * @return this {@link ProcessingBuffer}
+   */
+  public ProcessingBuffer set(Position position, ParameterSlots slots, Parameter[] parameters) {
+    int count = Math.min(parameters.length, slots.size());
+    Parameter[] parameterArray = reset(position, slots);
+    System.arraycopy(parameters, 0, parameterArray, 0, count);
+    Arrays.fill(parameterArray, count, slots.size(), null);
+    return this;
+  }
+
+  /**
+   * Overwrites the content with a copy of the content of {@code source}.
+   *
+   * @param source the {@link ProcessingBuffer} to copy
+   * @return this {@link ProcessingBuffer}
+   */
+  public ProcessingBuffer copyFrom(ProcessingBuffer source) {
+    return set(source.position, source.slots, source.parameters);
+  }
+
+  /**
+   * Prepares the buffer for a new result, and returns its array of {@link Parameter parameters},
+   * which has to be filled by slots.
+   */
+  Parameter[] reset(Position position, ParameterSlots slots) {
+    if (parameters.length < slots.size()) {
+      parameters = new Parameter[slots.size()];
+    } else {
+      Arrays.fill(parameters, slots.size(), parameters.length, null);
+    }
+
+    this.position = position;
+    this.slots = slots;
+    return parameters;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import hu.zza.clim.menu.ProcessedInput;
+
+/**
+ * Represents the outcome of processing one line by {@link ParameterMatcher#processAll}: either the
+ * {@link ProcessedInput} or the {@link ErrorType} with its message.
+ *
+ * @since 0.3.2
+ */
+public final class ProcessingResult {
+
+  /**
+   * Represents the reasons why a line can not be processed.
+   *
+   * @since 0.3.2
+   */
+  public enum ErrorType {
+    /** The command is not found or there is no {@link ParameterPattern} for it. */
+    UNKNOWN_COMMAND,
+
+    /** The command is known, but the line does not fit its {@link ParameterPattern}. */
+    INVALID_ARGUMENTS,
+
+    /** The value of a typed {@link Parameter} can not be parsed. */
+    PARSING_FAILED,
+
+    /** The matching is aborted because it has exceeded the step limit of the regex engine. */
+    STEP_LIMIT_EXCEEDED
+  }
+
+  private final int lineNumber;
+  private final ProcessedInput processedInput;
+  private final ErrorType error;
+  private final String message;
+
+  private ProcessingResult(
+      int lineNumber, ProcessedInput processedInput, ErrorType error, String message) {
+    this.lineNumber = lineNumber;
+    this.processedInput = processedInput;
+    this.error = error;
+    this.message = message;
+  }
+
+  static ProcessingResult success(int lineNumber, ProcessedInput processedInput) {
+    return new ProcessingResult(lineNumber, processedInput, null, "");
+  }
+
+  static ProcessingResult failure(int lineNumber, ErrorType error, String message) {
+    return new ProcessingResult(lineNumber, ProcessedInput.NULL, error, message);
+  }
+
+  /**
+   * Returns the (1-based) number of the line in the processed stream.
+   *
+   * @return the number of the line
+   * @since 0.3.2
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns true if the line is processed successfully.
+   *
+   * @return true if there is no error
+   * @since 0.3.2
+   */
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * Returns the result of the processing, or {@link ProcessedInput#NULL} if it is failed.
+   *
+   * @return the {@link ProcessedInput} of the line
+   * @since 0.3.2
+   */
+  public ProcessedInput getProcessedInput() {
+    return processedInput;
+  }
+
+  /**
+   * Returns the reason of the failure, or null if the line is processed successfully.
+   *
+   * @return the {@link ErrorType} or null
+   * @since 0.3.2
+   */
+  public ErrorType getError() {
+    return error;
+  }
+
+  /**
+   * Returns the description of the failure, or an empty string if the line is processed
+   * successfully.
+   *
+   * @return the error message or ""
+   * @since 0.3.2
+   */
+  public String getMessage() {
+    return message;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import hu.zza.clim.menu.ProcessedInput;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe LRU cache of the immutable {@link ProcessedInput results} of a {@link
+ * ParameterMatcher} by the raw input text. Failed inputs are not cached.
+ *
+ * @since 0.3.2
+ */
+final class ResultCache {
+
+  private final int maximumSize;
+  private final Map<String, ProcessedInput> results;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  ResultCache(int maximumSize) {
+    this.maximumSize = maximumSize;
+    this.results =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, ProcessedInput> eldest) {
+            if (size() > ResultCache.this.maximumSize) {
+              evictionCount.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** Returns the cached result of the {@code text}, or null if it is not cached. */
+  ProcessedInput get(String text) {
+    ProcessedInput processedInput;
+
+    synchronized (results) {
+      processedInput = results.get(text);
+    }
+
+    (processedInput == null ? missCount : hitCount).increment();
+    return processedInput;
+  }
+
+  void put(String text, ProcessedInput processedInput) {
+    synchronized (results) {
+      results.put(text, processedInput);
+    }
+  }
+
+  CacheStatistics getStatistics() {
+    int size;
+
+    synchronized (results) {
+      size = results.size();
+    }
+
+    return new CacheStatistics(
+        hitCount.sum(), missCount.sum(), evictionCount.sum(), size, maximumSize);
+  }
+}
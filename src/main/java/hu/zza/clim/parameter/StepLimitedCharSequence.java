@@ -0,0 +1,72 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import static hu.zza.clim.menu.Message.MATCHING_STEP_LIMIT_EXCEEDED;
+
+import hu.zza.clim.ClimException;
+
+/**
+ * Wraps the input of the backtracking regex engine and counts the characters read by it. Every
+ * step of the matching reads a character, so the count is proportional to the work done: If it
+ * exceeds the limit, the matching is aborted with a {@link ClimException}.
+ *
+ * <p>Only the reads of the regex engine are counted, {@link #subSequence} returns an unwrapped
+ * part of the input (for extracting the values).
+ *
+ * @since 0.3.2
+ */
+final class StepLimitedCharSequence implements CharSequence {
+  private final CharSequence text;
+  private final long stepLimit;
+  private long steps;
+
+  StepLimitedCharSequence(CharSequence text, long stepLimit) {
+    this.text = text;
+    this.stepLimit = stepLimit;
+  }
+
+  @Override
+  public int length() {
+    return text.length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (++steps > stepLimit) {
+      throw new ClimException(MATCHING_STEP_LIMIT_EXCEEDED.getMessage(stepLimit));
+    }
+    return text.charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return text.subSequence(start, end);
+  }
+
+  @Override
+  public String toString() {
+    return text.toString();
+  }
+}
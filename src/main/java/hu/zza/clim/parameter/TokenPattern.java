@@ -0,0 +1,166 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Regex-free form of a {@link ParameterPattern} which contains only token {@link Parameter
+ * parameters} (see {@link TokenType}) and a plain delimiter. The input is split on the delimiter
+ * with index arithmetic, and only the values of the present {@link Parameter parameters} are
+ * materialized.
+ *
+ * <p>Optionals are evaluated greedily from left to right like by {@link
+ * MatchingEngine#OPTIONAL_GROUPS}: an optional is present if its token fits and the rest of the
+ * input can be matched with it. This is the result of {@link MatchingEngine#VARIANTS} too: the
+ * tokens of an input do not depend on the {@link Parameter parameters} (a quoted token starts with
+ * a double quote, the others end at the next delimiter), so every fitting combination has the same
+ * count of optionals present, and the first of them in the order of the variants is the greedy one.
+ *
+ * <p>Without memoization the count of tried combinations can be exponential in the count of
+ * optionals, so for more than {@value #MAX_UNMEMOIZED_OPTIONALS} optionals the failed (parameter,
+ * token start) pairs are stored in a bit matrix, which is the only allocation besides the values.
+ * Then every pair is tried at most once, even if many optionals can be skipped in different
+ * combinations.
+ *
+ * @since 0.3.2
+ */
+final class TokenPattern implements CompiledParameterPattern {
+  private static final int MAX_UNMEMOIZED_OPTIONALS = 8;
+  private static final Pattern regexMetacharacters = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+  private final ParameterSlots slots;
+  private final List<Parameter> parameters;
+  private final TokenType[] tokenTypes;
+  private final boolean[] optional;
+  private final boolean memoized;
+  private final String delimiter;
+
+  TokenPattern(ParameterPattern parameterPattern) {
+    slots = parameterPattern.getSlots();
+    parameters = List.copyOf(parameterPattern.getParameterList());
+    delimiter = parameterPattern.getDelimiter();
+    tokenTypes = parameters.stream().map(Parameter::getTokenType).toArray(TokenType[]::new);
+    optional = new boolean[parameters.size()];
+
+    for (int i = 0; i < optional.length; i++) {
+      optional[i] = parameters.get(i).isOptional();
+    }
+    memoized =
+        parameters.stream().filter(Parameter::isOptional).count() > MAX_UNMEMOIZED_OPTIONALS;
+  }
+
+  /**
+   * Checks whether the {@link ParameterPattern} can be processed without regex: all of its {@link
+   * Parameter parameters} are tokens (at most 63), and its delimiter is a non-empty, plain text.
+   */
+  static boolean isApplicable(ParameterPattern parameterPattern) {
+    String delimiter = parameterPattern.getDelimiter();
+    List<Parameter> parameterList = parameterPattern.getParameterList();
+
+    return !delimiter.isEmpty()
+        && !regexMetacharacters.matcher(delimiter).find()
+        && parameterList.size() < Long.SIZE
+        && parameterList.stream().allMatch(e -> e.getTokenType() != null);
+  }
+
+  @Override
+  public ParameterSlots getSlots() {
+    return slots;
+  }
+
+  @Override
+  public boolean process(CharSequence text, Parameter[] parameterArray) {
+    long[] failures = memoized ? new long[tokenTypes.length * getRowLength(text)] : null;
+    long presenceMask = findPresence(text, 0, text.length() == 0 ? -1 : 0, failures);
+
+    if (presenceMask == -1) {
+      return false;
+    }
+
+    int start = 0;
+
+    for (int i = 0; i < tokenTypes.length; i++) {
+      Parameter parameter = parameters.get(i);
+
+      if ((presenceMask & (1L << i)) != 0) {
+        int end = tokenTypes[i].findEnd(text, start, delimiter);
+        parameterArray[i] =
+            parameter.withValue(
+                slots.getName(i),
+                text,
+                tokenTypes[i].getValueStart(start),
+                tokenTypes[i].getValueEnd(end));
+        start = end + delimiter.length();
+      } else {
+        parameterArray[i] = parameter.withoutValue();
+      }
+    }
+    return true;
+  }
+
+  /** Returns the count of longs in a row of the failure matrix: a bit for every start and -1. */
+  private static int getRowLength(CharSequence text) {
+    return (text.length() + 2 + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * Returns the presence mask of the {@link Parameter parameters} from {@code index}, or -1 if the
+   * rest of the {@code text} does not fit them. ({@code start} is the beginning of the next token,
+   * or -1 if the whole text is consumed.) The failed pairs are stored in the row {@code index} of
+   * {@code failures} (if the pattern is memoized, otherwise it is null).
+   */
+  private long findPresence(CharSequence text, int index, int start, long[] failures) {
+    if (index == tokenTypes.length) {
+      return start == -1 ? 0 : -1;
+    }
+
+    int word = failures == null ? 0 : index * getRowLength(text) + (start + 1) / Long.SIZE;
+    long bit = 1L << (start + 1);
+
+    if (failures != null && (failures[word] & bit) != 0) {
+      return -1;
+    }
+
+    if (start != -1) {
+      int end = tokenTypes[index].findEnd(text, start, delimiter);
+
+      if (end != -1) {
+        int next = end == text.length() ? -1 : end + delimiter.length();
+        long rest = findPresence(text, index + 1, next, failures);
+        if (rest != -1) {
+          return rest | (1L << index);
+        }
+      }
+    }
+
+    long presenceMask = optional[index] ? findPresence(text, index + 1, start, failures) : -1;
+
+    if (presenceMask == -1 && failures != null) {
+      failures[word] |= bit;
+    }
+    return presenceMask;
+  }
+}
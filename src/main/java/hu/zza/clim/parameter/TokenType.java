@@ -0,0 +1,186 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+/**
+ * Represents the token classes of regex-free {@link Parameter parameters} (created by {@link
+ * Parameters#of(TokenType)}).
+ *
+ * <p>If every {@link Parameter} of a {@link ParameterPattern} is a token and its delimiter is a
+ * plain text (without regex metacharacters), {@link ParameterMatcher} splits the input on the
+ * delimiter without {@code java.util.regex}, and the whole input has to be covered by the tokens.
+ * Otherwise the token is matched by its regex equivalent alongside the other {@link Parameter
+ * parameters}.
+ *
+ * @since 0.3.2
+ */
+public enum TokenType {
+  /** One or more word characters: {@code [a-zA-Z_0-9]}. */
+  WORD("(\\w+)"),
+
+  /** An optionally signed integer, like {@code 42} or {@code -7}. */
+  INTEGER("([+-]?\\d+)"),
+
+  /**
+   * An optionally signed decimal number, like {@code 42}, {@code -0.5}, {@code 3.} or {@code .5}.
+   */
+  DECIMAL("([+-]?(?:\\d+(?:\\.\\d*)?|\\.\\d+))"),
+
+  /**
+   * Text between double quotes (it can contain the delimiter, but not a double quote). The value is
+   * the text without the quotes.
+   */
+  QUOTED("\"([^\"]*)\"");
+
+  private final String regex;
+
+  TokenType(String regex) {
+    this.regex = regex;
+  }
+
+  String getRegex() {
+    return regex;
+  }
+
+  /**
+   * Returns the end (exclusive) of the token which starts at {@code start}, or -1 if there is no
+   * such token. The token should be followed by the {@code delimiter} or the end of the {@code
+   * text}.
+   */
+  int findEnd(CharSequence text, int start, String delimiter) {
+    if (this == QUOTED) {
+      return findQuotedEnd(text, start, delimiter);
+    }
+
+    int end = indexOf(text, delimiter, start);
+    end = end == -1 ? text.length() : end;
+    return isValid(text, start, end) ? end : -1;
+  }
+
+  /** Returns the start of the value in the token: after the opening quote if it is quoted. */
+  int getValueStart(int tokenStart) {
+    return this == QUOTED ? tokenStart + 1 : tokenStart;
+  }
+
+  /** Returns the end of the value in the token: before the closing quote if it is quoted. */
+  int getValueEnd(int tokenEnd) {
+    return this == QUOTED ? tokenEnd - 1 : tokenEnd;
+  }
+
+  private static int findQuotedEnd(CharSequence text, int start, String delimiter) {
+    if (start == text.length() || text.charAt(start) != '"') {
+      return -1;
+    }
+
+    int end = start + 1;
+    while (end < text.length() && text.charAt(end) != '"') {
+      end++;
+    }
+
+    if (end == text.length()) {
+      return -1;
+    }
+
+    end++;
+    return end == text.length() || startsWith(text, delimiter, end) ? end : -1;
+  }
+
+  private boolean isValid(CharSequence text, int start, int end) {
+    switch (this) {
+      case WORD:
+        return start < end && countWordChars(text, start, end) == end - start;
+      case INTEGER:
+        int digitsStart = skipSign(text, start, end);
+        return digitsStart < end && countDigits(text, digitsStart, end) == end - digitsStart;
+      case DECIMAL:
+        return isDecimal(text, skipSign(text, start, end), end);
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isDecimal(CharSequence text, int start, int end) {
+    int integerDigits = countDigits(text, start, end);
+    int point = start + integerDigits;
+
+    if (point == end) {
+      return integerDigits != 0;
+    }
+
+    if (text.charAt(point) != '.') {
+      return false;
+    }
+
+    int fractionDigits = countDigits(text, point + 1, end);
+    return point + 1 + fractionDigits == end && integerDigits + fractionDigits != 0;
+  }
+
+  private static int skipSign(CharSequence text, int start, int end) {
+    return start < end && (text.charAt(start) == '+' || text.charAt(start) == '-')
+        ? start + 1
+        : start;
+  }
+
+  private static int countDigits(CharSequence text, int start, int end) {
+    int i = start;
+    while (i < end && '0' <= text.charAt(i) && text.charAt(i) <= '9') {
+      i++;
+    }
+    return i - start;
+  }
+
+  private static int countWordChars(CharSequence text, int start, int end) {
+    int i = start;
+    while (i < end && isWordChar(text.charAt(i))) {
+      i++;
+    }
+    return i - start;
+  }
+
+  private static boolean isWordChar(char c) {
+    return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || ('0' <= c && c <= '9') || c == '_';
+  }
+
+  static int indexOf(CharSequence text, String delimiter, int from) {
+    for (int i = from; i <= text.length() - delimiter.length(); i++) {
+      if (startsWith(text, delimiter, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static boolean startsWith(CharSequence text, String prefix, int offset) {
+    if (text.length() - offset < prefix.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(offset + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.parameter;
+
+import static hu.zza.clim.menu.Message.INVALID_PARAMETER_VALUE;
+
+/**
+ * Represents the type of the value of a {@link Parameter}. Typed values are parsed directly from
+ * the matched region of the input, and they are stored as a primitive {@code long} (a double by
+ * its raw bits, a boolean as 0 or 1, an enum constant by its ordinal).
+ */
+enum ValueType {
+  STRING,
+  INT,
+  LONG,
+  DOUBLE,
+  BOOLEAN,
+  ENUM;
+
+  /** Exact powers of ten for the fast path of {@link #parseDouble}. */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** The longest mantissa (in significant digits) which can be represented exactly by a double. */
+  private static final int MAX_EXACT_DIGITS = 15;
+
+  long parse(String text, Enum<?>[] enumConstants) {
+    return parse(text, 0, text.length(), enumConstants);
+  }
+
+  /**
+   * Parses the region of the {@code text} between {@code start} (inclusive) and {@code end}
+   * (exclusive) without creating a {@link String}. {@link #STRING} has no primitive form.
+   */
+  long parse(CharSequence text, int start, int end, Enum<?>[] enumConstants) {
+    switch (this) {
+      case INT:
+        return Integer.parseInt(text, start, end, 10);
+      case LONG:
+        return Long.parseLong(text, start, end, 10);
+      case DOUBLE:
+        return Double.doubleToRawLongBits(parseDouble(text, start, end));
+      case BOOLEAN:
+        return parseBoolean(text, start, end);
+      case ENUM:
+        return parseEnum(text, start, end, enumConstants);
+      default:
+        throw new UnsupportedOperationException(name());
+    }
+  }
+
+  /** Returns the {@link String} form of the value parsed by {@link #parse}. */
+  String format(long value, Enum<?>[] enumConstants) {
+    switch (this) {
+      case INT:
+      case LONG:
+        return Long.toString(value);
+      case DOUBLE:
+        return Double.toString(Double.longBitsToDouble(value));
+      case BOOLEAN:
+        return Boolean.toString(value != 0);
+      case ENUM:
+        return enumConstants[(int) value].name();
+      default:
+        throw new UnsupportedOperationException(name());
+    }
+  }
+
+  /**
+   * Parses simple decimals (like {@code -12.5}) with at most 15 significant digits and 22
+   * fractional digits directly: Both the mantissa and the power of ten are exact doubles, so their
+   * quotient is correctly rounded. Everything else is left to {@link Double#parseDouble}.
+   */
+  private static double parseDouble(CharSequence text, int start, int end) {
+    int i = start;
+    boolean negative = false;
+
+    if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+      negative = text.charAt(i) == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int significantDigits = 0;
+    int scale = 0;
+    boolean hasDigit = false;
+    boolean hasPoint = false;
+
+    for (; i < end; i++) {
+      char c = text.charAt(i);
+
+      if ('0' <= c && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        significantDigits += mantissa == 0 ? 0 : 1;
+        scale += hasPoint ? 1 : 0;
+        hasDigit = true;
+
+        if (significantDigits > MAX_EXACT_DIGITS || scale >= POWERS_OF_TEN.length) {
+          return Double.parseDouble(text.subSequence(start, end).toString());
+        }
+      } else if (c == '.' && !hasPoint) {
+        hasPoint = true;
+      } else {
+        return Double.parseDouble(text.subSequence(start, end).toString());
+      }
+    }
+
+    if (!hasDigit) {
+      throw new NumberFormatException(
+          INVALID_PARAMETER_VALUE.getMessage("double", text.subSequence(start, end)));
+    }
+
+    double value = mantissa / POWERS_OF_TEN[scale];
+    return negative ? -value : value;
+  }
+
+  private static long parseBoolean(CharSequence text, int start, int end) {
+    if (regionEqualsIgnoreCase(text, start, end, "true")) {
+      return 1;
+    }
+
+    if (regionEqualsIgnoreCase(text, start, end, "false")) {
+      return 0;
+    }
+
+    throw new IllegalArgumentException(
+        INVALID_PARAMETER_VALUE.getMessage("boolean", text.subSequence(start, end)));
+  }
+
+  /** Finds the enum constant by its name, ignoring case. */
+  private static long parseEnum(
+      CharSequence text, int start, int end, Enum<?>[] enumConstants) {
+    for (Enum<?> constant : enumConstants) {
+      if (regionEqualsIgnoreCase(text, start, end, constant.name())) {
+        return constant.ordinal();
+      }
+    }
+
+    throw new IllegalArgumentException(
+        INVALID_PARAMETER_VALUE.getMessage(
+            enumConstants.getClass().getComponentType().getSimpleName(),
+            text.subSequence(start, end)));
+  }
+
+  private static boolean regionEqualsIgnoreCase(
+      CharSequence text, int start, int end, String other) {
+    if (end - start != other.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < other.length(); i++) {
+      char c = text.charAt(start + i);
+      char o = other.charAt(i);
+
+      if (c != o && Character.toUpperCase(c) != Character.toUpperCase(o)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
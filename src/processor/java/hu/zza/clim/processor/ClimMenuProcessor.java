@@ -0,0 +1,401 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor of the {@code hu.zza.clim.annotation} package: For every {@code ClimMenu}
+ * class it checks the declared nodes, leaves and parameter patterns, reports every inconsistency
+ * (unknown names, duplicates, wrong method signatures) as a compile error, and generates the class
+ * {@code <SimpleName>Structure}, which builds the menu structure and the parameter matcher
+ * directly.
+ *
+ * <p>The annotations are read as {@link AnnotationMirror mirrors} by their names, so the processor
+ * does not depend on the classes of clim.
+ *
+ * @since 0.3.2
+ */
+@SupportedAnnotationTypes({
+  ClimMenuProcessor.CLIM_MENU,
+  ClimMenuProcessor.MENU_NODE,
+  ClimMenuProcessor.MENU_NODES,
+  ClimMenuProcessor.MENU_LEAF,
+  ClimMenuProcessor.LEAF_PARAMETERS
+})
+public final class ClimMenuProcessor extends AbstractProcessor {
+  static final String CLIM_MENU = "hu.zza.clim.annotation.ClimMenu";
+  static final String MENU_NODE = "hu.zza.clim.annotation.MenuNode";
+  static final String MENU_NODES = "hu.zza.clim.annotation.MenuNodes";
+  static final String MENU_LEAF = "hu.zza.clim.annotation.MenuLeaf";
+  static final String LEAF_PARAMETERS = "hu.zza.clim.annotation.LeafParameters";
+  private static final String PROCESSED_INPUT = "hu.zza.clim.menu.ProcessedInput";
+  private static final String PARAMETER_PATTERN = "hu.zza.clim.parameter.ParameterPattern";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      String name = annotation.getQualifiedName().toString();
+
+      if (name.equals(CLIM_MENU)) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+          new MenuDeclaration((TypeElement) element).generate();
+        }
+      } else if (name.equals(MENU_LEAF) || name.equals(LEAF_PARAMETERS)) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+          if (getAnnotation(element.getEnclosingElement(), CLIM_MENU) == null) {
+            error(element, "@%s is allowed only in a @ClimMenu class.", simpleName(name));
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private void error(Element element, String format, Object... args) {
+    processingEnv
+        .getMessager()
+        .printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+  }
+
+  private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      if (mirror.getAnnotationType().toString().equals(annotationName)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private Object getValue(AnnotationMirror mirror, String name) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  private String getString(AnnotationMirror mirror, String name) {
+    return (String) getValue(mirror, name);
+  }
+
+  private List<String> getStrings(AnnotationMirror mirror, String name) {
+    return ((List<?>) getValue(mirror, name))
+        .stream().map(e -> (String) ((AnnotationValue) e).getValue()).collect(Collectors.toList());
+  }
+
+  private List<AnnotationMirror> getNodeAnnotations(TypeElement type) {
+    List<AnnotationMirror> nodes = new ArrayList<>();
+    AnnotationMirror node = getAnnotation(type, MENU_NODE);
+    AnnotationMirror container = getAnnotation(type, MENU_NODES);
+
+    if (node != null) {
+      nodes.add(node);
+    }
+
+    if (container != null) {
+      for (Object value : (List<?>) getValue(container, "value")) {
+        nodes.add((AnnotationMirror) ((AnnotationValue) value).getValue());
+      }
+    }
+    return nodes;
+  }
+
+  private static String simpleName(String qualifiedName) {
+    return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+  }
+
+  private static String newPositions(String positionClass, List<String> names) {
+    return names.stream()
+        .map(e -> "new " + positionClass + "(" + literal(e) + ")")
+        .collect(Collectors.joining(", "));
+  }
+
+  /** Returns the Java string literal of {@code text}. */
+  private static String literal(String text) {
+    StringBuilder result = new StringBuilder("\"");
+
+    for (char c : text.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < ' ' || c > '~') {
+        result.append(String.format("\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  /** The nodes, leaves and parameter patterns declared by a {@code ClimMenu} class. */
+  private final class MenuDeclaration {
+    private final TypeElement type;
+    private final Map<String, List<String>> nodeLinks = new LinkedHashMap<>();
+    private final Map<String, List<String>> leafLinks = new LinkedHashMap<>();
+    private final Map<String, ExecutableElement> leafFunctions = new LinkedHashMap<>();
+    private final Map<String, ExecutableElement> leafParameters = new LinkedHashMap<>();
+    private final String initialPosition;
+    private final String commandRegex;
+    private boolean valid = true;
+
+    private MenuDeclaration(TypeElement type) {
+      this.type = type;
+      AnnotationMirror climMenu = getAnnotation(type, CLIM_MENU);
+      initialPosition = getString(climMenu, "initialPosition");
+      commandRegex = getString(climMenu, "commandRegex");
+
+      for (AnnotationMirror node : getNodeAnnotations(type)) {
+        String name = getString(node, "name");
+        if (nodeLinks.put(name, getStrings(node, "links")) != null) {
+          fail(type, "Duplicate node: '%s'.", name);
+        }
+      }
+
+      for (Element element : type.getEnclosedElements()) {
+        if (element.getKind() == ElementKind.METHOD) {
+          collectMethod((ExecutableElement) element);
+        }
+      }
+      check();
+    }
+
+    private void collectMethod(ExecutableElement method) {
+      AnnotationMirror leaf = getAnnotation(method, MENU_LEAF);
+      AnnotationMirror parameters = getAnnotation(method, LEAF_PARAMETERS);
+
+      if (leaf != null) {
+        String name = getString(leaf, "name");
+        name = name.isEmpty() ? method.getSimpleName().toString() : name;
+        checkMethod(method, int.class.getName(), PROCESSED_INPUT);
+
+        if (nodeLinks.containsKey(name) || leafFunctions.put(name, method) != null) {
+          fail(method, "Duplicate node or leaf: '%s'.", name);
+        }
+        leafLinks.put(name, getStrings(leaf, "links"));
+      }
+
+      if (parameters != null) {
+        String name = getString(parameters, "value");
+        checkMethod(method, PARAMETER_PATTERN);
+
+        if (leafParameters.put(name, method) != null) {
+          fail(method, "Duplicate parameters of leaf: '%s'.", name);
+        }
+      }
+    }
+
+    /** Checks that the method is callable from the package, and its signature. */
+    private void checkMethod(
+        ExecutableElement method, String returnType, String... parameterTypes) {
+      List<String> parameters =
+          method.getParameters().stream()
+              .map(e -> processingEnv.getTypeUtils().erasure(e.asType()).toString())
+              .collect(Collectors.toList());
+      String result =
+          method.getReturnType().getKind() == TypeKind.INT
+              ? int.class.getName()
+              : processingEnv.getTypeUtils().erasure(method.getReturnType()).toString();
+
+      if (!method.getModifiers().contains(Modifier.STATIC)
+          || method.getModifiers().contains(Modifier.PRIVATE)
+          || !result.equals(returnType)
+          || !parameters.equals(List.of(parameterTypes))) {
+        fail(
+            method,
+            "The method has to be a non-private static %s method with parameters (%s).",
+            returnType,
+            String.join(", ", parameterTypes));
+      }
+    }
+
+    private void check() {
+      if (!nodeLinks.containsKey(initialPosition)) {
+        fail(type, "The initial position '%s' is not a node.", initialPosition);
+      }
+
+      nodeLinks.forEach(
+          (node, links) ->
+              links.stream()
+                  .filter(e -> !nodeLinks.containsKey(e) && !leafLinks.containsKey(e))
+                  .forEach(e -> fail(type, "Node '%s' links to unknown '%s'.", node, e)));
+
+      leafLinks.forEach(
+          (leaf, links) -> {
+            ExecutableElement method = leafFunctions.get(leaf);
+            if (links.isEmpty()) {
+              fail(method, "Leaf '%s' has no link.", leaf);
+            }
+            links.stream()
+                .filter(e -> !nodeLinks.containsKey(e))
+                .forEach(e -> fail(method, "Leaf '%s' links to unknown node '%s'.", leaf, e));
+          });
+
+      leafParameters.forEach(
+          (leaf, method) -> {
+            if (!leafLinks.containsKey(leaf)) {
+              fail(method, "Parameters of unknown leaf: '%s'.", leaf);
+            }
+          });
+    }
+
+    private void fail(Element element, String format, Object... args) {
+      valid = false;
+      error(element, format, args);
+    }
+
+    private void generate() {
+      if (!valid) {
+        return;
+      }
+
+      String packageName =
+          processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+      String className = type.getSimpleName() + "Structure";
+      String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+      try (Writer writer =
+          processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+        writer.write(generateSource(packageName, className));
+      } catch (IOException e) {
+        error(type, "Can not generate %s: %s", qualifiedName, e.getMessage());
+      }
+    }
+
+    private String generateSource(String packageName, String className) {
+      List<String> nodes = new ArrayList<>(nodeLinks.keySet());
+      List<String> leaves = new ArrayList<>(leafLinks.keySet());
+      String declaring = type.getQualifiedName().toString();
+      StringBuilder source = new StringBuilder();
+
+      if (!packageName.isEmpty()) {
+        source.append("package ").append(packageName).append(";\n\n");
+      }
+
+      source
+          .append("import hu.zza.clim.ParameterMatcherBuilder;\n")
+          .append("import hu.zza.clim.menu.LeafPosition;\n")
+          .append("import hu.zza.clim.menu.MenuEntry;\n")
+          .append("import hu.zza.clim.menu.MenuStructure;\n")
+          .append("import hu.zza.clim.menu.NodePosition;\n")
+          .append("import hu.zza.clim.parameter.ParameterMatcher;\n\n")
+          .append("/** Generated by ClimMenuProcessor from {@link ")
+          .append(declaring)
+          .append("}. Do not edit. */\n")
+          .append(type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "")
+          .append("final class ")
+          .append(className)
+          .append(" {\n\n  private ")
+          .append(className)
+          .append("() {}\n\n  public static MenuStructure menuStructure() {\n")
+          .append("    NodePosition[] nodes = {")
+          .append(newPositions("NodePosition", nodes))
+          .append("};\n    LeafPosition[] leaves = {")
+          .append(newPositions("LeafPosition", leaves))
+          .append("};\n    MenuStructure menuStructure = new MenuStructure();\n")
+          .append("    menuStructure.setInitialPosition(nodes[")
+          .append(nodes.indexOf(initialPosition))
+          .append("]);\n");
+
+      for (int i = 0; i < nodes.size(); i++) {
+        source
+            .append("    menuStructure.put(new MenuEntry.Node(nodes[")
+            .append(i)
+            .append("], ")
+            .append(literal(nodes.get(i)));
+
+        for (String link : nodeLinks.get(nodes.get(i))) {
+          source.append(
+              nodeLinks.containsKey(link)
+                  ? ", nodes[" + nodes.indexOf(link) + "]"
+                  : ", leaves[" + leaves.indexOf(link) + "]");
+        }
+        source.append("));\n");
+      }
+
+      for (int i = 0; i < leaves.size(); i++) {
+        source
+            .append("    menuStructure.put(new MenuEntry.Leaf(leaves[")
+            .append(i)
+            .append("], ")
+            .append(literal(leaves.get(i)))
+            .append(", ")
+            .append(declaring)
+            .append("::")
+            .append(leafFunctions.get(leaves.get(i)).getSimpleName());
+
+        for (String link : leafLinks.get(leaves.get(i))) {
+          source.append(", nodes[").append(nodes.indexOf(link)).append("]");
+        }
+        source.append("));\n");
+      }
+
+      source
+          .append("    menuStructure.setFinalized();\n    return menuStructure;\n  }\n\n")
+          .append("  public static ParameterMatcher parameterMatcher() {\n")
+          .append("    return new ParameterMatcherBuilder()\n        .setCommandRegex(")
+          .append(literal(commandRegex))
+          .append(")\n");
+
+      leafParameters.forEach(
+          (leaf, method) ->
+              source
+                  .append("        .setLeafParameters(")
+                  .append(literal(leaf))
+                  .append(", ")
+                  .append(declaring)
+                  .append(".")
+                  .append(method.getSimpleName())
+                  .append("())\n"));
+
+      return source.append("        .build();\n  }\n}\n").toString();
+    }
+  }
+}
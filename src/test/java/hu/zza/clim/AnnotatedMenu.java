@@ -0,0 +1,58 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.annotation.ClimMenu;
+import hu.zza.clim.annotation.LeafParameters;
+import hu.zza.clim.annotation.MenuLeaf;
+import hu.zza.clim.annotation.MenuNode;
+import hu.zza.clim.menu.ProcessedInput;
+import hu.zza.clim.parameter.Parameter;
+import hu.zza.clim.parameter.ParameterPattern;
+import hu.zza.clim.parameter.Parameters;
+import java.util.List;
+
+/** Menu declaration for testing the generated {@code AnnotatedMenuStructure}. */
+@ClimMenu(initialPosition = "root", commandRegex = "^(\\w+)\\b")
+@MenuNode(name = "root", links = {"settings", "echo"})
+@MenuNode(name = "settings", links = "reset")
+public class AnnotatedMenu {
+
+  @MenuLeaf(links = {"root", "settings"})
+  static int echo(ProcessedInput processedInput) {
+    return processedInput.getParameter(ParameterName.VALUE).getValue().equals("stay") ? 1 : 0;
+  }
+
+  @MenuLeaf(name = "reset", links = "root")
+  static int resetSettings(ProcessedInput processedInput) {
+    return 0;
+  }
+
+  @LeafParameters("echo")
+  static ParameterPattern echoParameters() {
+    Parameter word = Parameters.of("(\\b\\w+\\b)");
+    return new ParameterPattern(
+        " ", List.of(ParameterName.COMMAND, ParameterName.VALUE), List.of(word, word));
+  }
+}
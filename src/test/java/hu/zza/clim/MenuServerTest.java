@@ -0,0 +1,80 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import java.io.IOException;
+import java.net.Socket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MenuServerTest {
+
+  /** Clients of a server should have their own sessions and outputs. */
+  @Test
+  void testServer() throws IOException {
+    MenuDefinition definition =
+        new MenuBuilder()
+            .setMenuStructure(AnnotatedMenuStructure.menuStructure())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition();
+
+    try (MenuServer server = MenuServer.start(definition, 0);
+        MenuClient first = MenuClient.connect(server.getAddress());
+        MenuClient second = MenuClient.connect(server.getAddress())) {
+      Assertions.assertTrue(first.readResponse().contains("[ root ]"));
+      Assertions.assertTrue(second.readResponse().contains("echo"));
+
+      String response = first.send("settings");
+      Assertions.assertTrue(response.contains("[ settings ]"));
+      Assertions.assertTrue(response.contains("reset"));
+
+      response = second.send("unknown");
+      Assertions.assertTrue(response.contains("unknown"));
+      Assertions.assertTrue(response.contains("[ root ]"));
+    }
+  }
+
+  /** Connections reset right after connecting should not stop the server accepting new ones. */
+  @Test
+  void testResetConnections() throws IOException {
+    MenuDefinition definition =
+        new MenuBuilder()
+            .setMenuStructure(AnnotatedMenuStructure.menuStructure())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition();
+
+    try (MenuServer server = MenuServer.start(definition, 0)) {
+      for (int i = 0; i < 20; i++) {
+        Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort());
+        socket.setSoLinger(true, 0);
+        socket.close();
+      }
+
+      try (MenuClient client = MenuClient.connect(server.getAddress())) {
+        Assertions.assertTrue(client.readResponse().contains("[ root ]"));
+        Assertions.assertTrue(client.send("settings").contains("[ settings ]"));
+      }
+    }
+  }
+}
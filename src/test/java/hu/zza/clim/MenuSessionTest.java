@@ -0,0 +1,174 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.MenuStructure;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MenuSessionTest {
+
+  /** Sessions of a shared definition should navigate independently. */
+  @Test
+  void testSessions() {
+    MenuDefinition definition =
+        new MenuBuilder()
+            .setMenuStructure(AnnotatedMenuStructure.menuStructure())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition();
+    MenuSession first = definition.newSession();
+    MenuSession second = definition.newSession();
+
+    first.chooseOption("settings");
+    Assertions.assertEquals("settings", first.getPosition());
+    Assertions.assertEquals(List.of("reset"), first.getOptions());
+    Assertions.assertEquals("root", second.getPosition());
+    Assertions.assertEquals(List.of("settings", "echo"), second.getOptions());
+    Assertions.assertSame(definition, second.getDefinition());
+  }
+
+  /** A session should jump along the shortest route, and refuse unreachable targets. */
+  @Test
+  void testGoTo() {
+    MenuStructure menuStructure =
+        new MenuStructureBuilder()
+            .setRawMenuStructure(
+                "{\"root\": [\"a\", {\"b\": [\"c\"]}], \"a\": [\"b\", \"leaf\"], \"c\": []}")
+            .setInitialPosition("root")
+            .setLeaf("leaf", a -> 0, "c")
+            .build();
+    MenuSession session =
+        new MenuBuilder()
+            .setMenuStructure(menuStructure)
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition()
+            .newSession();
+    session.goTo("c");
+    Assertions.assertEquals("c", session.getPosition());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> session.goTo("root"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> session.goTo("leaf"));
+  }
+
+  /** Asynchronous choices should not block, and they should be processed in order. */
+  @Test
+  void testAsyncLeaf() {
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    MenuSession session =
+        new MenuBuilder()
+            .setMenuStructure(
+                new MenuStructureBuilder()
+                    .setRawMenuStructure("{\"root\": [\"slow\", {\"done\": [\"root\"]}]}")
+                    .setInitialPosition("root")
+                    .setAsyncLeaf("slow", a -> result, "root", "done")
+                    .build())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition()
+            .newSession();
+
+    CompletableFuture<String> first = session.chooseOptionAsync("slow").toCompletableFuture();
+    CompletableFuture<String> second = session.chooseOptionAsync("root").toCompletableFuture();
+    Assertions.assertFalse(first.isDone() || second.isDone());
+    Assertions.assertEquals("root", session.getPosition());
+
+    result.complete(1);
+    Assertions.assertEquals("done", first.join());
+    Assertions.assertEquals("root", second.join());
+
+    CompletableFuture<String> failed = session.chooseOptionAsync("unknown").toCompletableFuture();
+    Assertions.assertTrue(failed.isCompletedExceptionally());
+    Assertions.assertThrows(ClimException.class, () -> session.chooseOption("unknown"));
+  }
+
+  /** An asynchronous choice submitted while a synchronous one is waiting should be queued. */
+  @Test
+  void testSyncChoiceWaitingForAsyncLeaf() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    MenuSession session =
+        new MenuBuilder()
+            .setMenuStructure(
+                new MenuStructureBuilder()
+                    .setRawMenuStructure("{\"root\": [\"slow\", {\"done\": [\"root\"]}]}")
+                    .setInitialPosition("root")
+                    .setAsyncLeaf(
+                        "slow",
+                        a -> {
+                          started.countDown();
+                          return result;
+                        },
+                        "root",
+                        "done")
+                    .build())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition()
+            .newSession();
+
+    Thread chooser = new Thread(() -> session.chooseOption("slow"));
+    chooser.start();
+    Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<String> next = session.chooseOptionAsync("root").toCompletableFuture();
+    Assertions.assertFalse(next.isDone());
+    Assertions.assertEquals("root", session.getPosition());
+
+    result.complete(1);
+    chooser.join(5000);
+    Assertions.assertFalse(chooser.isAlive());
+    Assertions.assertEquals("root", next.join());
+    Assertions.assertEquals("root", session.getPosition());
+  }
+
+  /** A jump submitted while an asynchronous choice is pending should start after it. */
+  @Test
+  void testGoToWaitingForAsyncLeaf() throws InterruptedException {
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    MenuSession session =
+        new MenuBuilder()
+            .setMenuStructure(
+                new MenuStructureBuilder()
+                    .setRawMenuStructure("{\"root\": [\"slow\", {\"done\": [\"root\"]}]}")
+                    .setInitialPosition("root")
+                    .setAsyncLeaf("slow", a -> result, "root", "done")
+                    .build())
+            .setClimOptions(UserInterface.NOMINAL)
+            .buildDefinition()
+            .newSession();
+
+    CompletableFuture<String> choice = session.chooseOptionAsync("slow").toCompletableFuture();
+    Thread jumper = new Thread(() -> session.goTo("done"));
+    jumper.start();
+    jumper.join(200);
+    Assertions.assertTrue(jumper.isAlive());
+
+    result.complete(0);
+    jumper.join(5000);
+    Assertions.assertFalse(jumper.isAlive());
+    Assertions.assertEquals("root", choice.join());
+    Assertions.assertEquals("done", session.getPosition());
+  }
+}
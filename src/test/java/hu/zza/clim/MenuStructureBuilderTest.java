@@ -25,17 +25,29 @@ package hu.zza.clim;
 
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import hu.zza.clim.menu.LeafPosition;
+import hu.zza.clim.menu.MenuEntry;
+import hu.zza.clim.menu.MenuStructure;
+import hu.zza.clim.menu.NodePosition;
+import hu.zza.clim.menu.Position;
+import hu.zza.clim.menu.ProcessedInput;
+import hu.zza.clim.menu.SubtreeLoader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -249,4 +261,213 @@ public class MenuStructureBuilderTest {
       }
     }
   }
+
+  /** A finalized structure should find entries and links by positions, even by new instances. */
+  @Test
+  void testFinalizedStructureLookup() {
+    setBuilderCompletely();
+    MenuStructure menuStructure = builder.build();
+    Position node1 = menuStructure.getPosition("node1");
+    Position leaf1 = menuStructure.getPosition("leaf1");
+
+    Assertions.assertEquals("node3", menuStructure.get(null).getName());
+    Assertions.assertEquals("node1", menuStructure.get(node1).getName());
+    Assertions.assertTrue(menuStructure.isLinked(node1, leaf1));
+    Assertions.assertFalse(menuStructure.isLinked(node1, menuStructure.getPosition("leaf3")));
+    Assertions.assertFalse(menuStructure.isLinked(leaf1, node1));
+    Assertions.assertTrue(
+        menuStructure.isLinked(new NodePosition("node1"), new LeafPosition("leaf1")));
+    Assertions.assertFalse(menuStructure.containsKey(new NodePosition("unknown")));
+  }
+
+  /** Structures with the same names should not share their positions. */
+  @Test
+  void testSeparatePositionRegistries() {
+    setBuilderCompletely();
+    MenuStructure menuStructure = builder.build();
+    MenuStructure otherMenuStructure =
+        new MenuStructureBuilder()
+            .setRawMenuStructure("{\"node1\": [\"leaf1\"]}")
+            .setLeaf("leaf1", a -> 0, "node1")
+            .build();
+
+    Assertions.assertNotSame(
+        menuStructure.getPosition("node1"), otherMenuStructure.getPosition("node1"));
+    Assertions.assertNotNull(menuStructure.getPosition("leaf2"));
+    Assertions.assertNull(otherMenuStructure.getPosition("leaf2"));
+  }
+
+  /** Nested nodes should not affect the links of their parent, whatever the source is. */
+  @Test
+  void testNestedNodeLinks() throws IOException {
+    builder.setRawMenuStructure(structurePath);
+    builder.setInitialPosition("node3");
+    setAllLeaf();
+    MenuStructure menuStructure = builder.build();
+    Position root = menuStructure.getPosition("root");
+
+    for (var name : List.of("node1", "node2", "leaf6", "leaf7")) {
+      Assertions.assertTrue(menuStructure.isLinked(root, menuStructure.getPosition(name)));
+    }
+    Assertions.assertTrue(
+        menuStructure.isLinked(
+            menuStructure.getPosition("node2"), menuStructure.getPosition("leaf5")));
+    Assertions.assertFalse(menuStructure.isLinked(root, menuStructure.getPosition("leaf3")));
+  }
+
+  /** An exported structure should be loaded with the same entries, links and leaf functions. */
+  @Test
+  void testExportAndLoad() throws IOException {
+    setBuilderCompletely();
+    builder.setLeaf("leaf5", a -> 1, "node1", "node2");
+    MenuStructure menuStructure = builder.build();
+    Path file = Files.createTempFile("menu", ".bin");
+
+    try {
+      menuStructure.export(file);
+      Map<String, Function<ProcessedInput, Integer>> functions = new HashMap<>();
+      for (var name : returnAllLeafNameExceptNth(4)) {
+        functions.put(name, a -> 0);
+      }
+      Assertions.assertThrows(
+          IllegalArgumentException.class, () -> MenuStructure.load(file, functions));
+
+      functions.put("leaf5", a -> 1);
+      MenuStructure loaded = MenuStructure.load(file, functions);
+      List<String> names = new ArrayList<>(returnAllLeafNameExceptNth(4));
+      names.addAll(List.of("leaf5", "root", "node1", "node2", "node3", "node9", "node13"));
+
+      Assertions.assertEquals("node3", loaded.get(null).getName());
+      for (var from : names) {
+        for (var to : names) {
+          Position fromPosition = menuStructure.getPosition(from);
+          Position toPosition = menuStructure.getPosition(to);
+          Assertions.assertEquals(
+              menuStructure.isLinked(fromPosition, toPosition),
+              loaded.isLinked(loaded.getPosition(from), loaded.getPosition(to)));
+        }
+      }
+      Assertions.assertEquals(
+          "node2", loaded.get(loaded.getPosition("leaf5")).select(null).getName());
+      Assertions.assertSame(loaded.getPosition("leaf5"), loaded.getPosition("leaf5"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * A truncated or corrupt export should be rejected at load.
+   *
+   * @param offset the offset of the corrupted int from the start of the section
+   * @param section the section: 0 header, 1 entry records, 2 name index, 3 link table
+   * @param value the new value of the int, or -1 to truncate the file there
+   */
+  @DisplayName("testLoadCorruptExport")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({"0, 4, -1", "0, 0, 99", "1, 0, 100000", "1, 4, 7", "2, 4, 0", "3, 0, 100000"})
+  void testLoadCorruptExport(int section, int offset, int value) throws IOException {
+    setBuilderCompletely();
+    builder.setLeaf("leaf5", a -> 1, "node1", "node2");
+    MenuStructure menuStructure = builder.build();
+    Path file = Files.createTempFile("menu", ".bin");
+
+    try {
+      menuStructure.export(file);
+      Map<String, Function<ProcessedInput, Integer>> functions = new HashMap<>();
+      for (var name : returnAllLeafNameExceptNth(4)) {
+        functions.put(name, a -> 0);
+      }
+      functions.put("leaf5", a -> 1);
+      Assertions.assertNotNull(MenuStructure.load(file, functions));
+
+      ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+      int size = bytes.getInt(8);
+      int[] sectionStarts = {0, 28, 28 + size * 16, 28 + size * 20};
+      int position = sectionStarts[section] + offset;
+
+      if (value == -1) {
+        Files.write(file, Arrays.copyOf(bytes.array(), position));
+      } else {
+        Files.write(file, bytes.putInt(position, value).array());
+      }
+
+      Assertions.assertThrows(
+          IllegalArgumentException.class, () -> MenuStructure.load(file, functions));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /** Validation should collect every error, and analyse the reachability from the initial node. */
+  @Test
+  void testValidate() {
+    setBuilderCompletely();
+    MenuStructureReport report = builder.validate();
+
+    Assertions.assertTrue(report.isValid());
+    Assertions.assertEquals(14, report.getNodeCount());
+    Assertions.assertEquals(12, report.getLeafCount());
+    Assertions.assertEquals(3, report.getMaximumDepth());
+    Assertions.assertEquals(List.of("node10"), report.getDeadEndNodes());
+    Assertions.assertTrue(report.getUnreachablePositions().containsAll(List.of("root", "leaf6")));
+    Assertions.assertFalse(report.getUnreachablePositions().contains("leaf5"));
+
+    builder.setInitialPosition("node99");
+    builder.setLeaf("leaf99", a -> 0, "node1");
+    builder.setLeaf("leaf1", a -> 0, "node99");
+    Assertions.assertEquals(3, builder.validate().getErrors().size());
+  }
+
+  /** Lazy nodes should load their subtree at the first use, and again after its eviction. */
+  @Test
+  void testLazyNodes() {
+    List<String> loads = new ArrayList<>();
+    SubtreeLoader loader =
+        new SubtreeLoader() {
+          @Override
+          public List<MenuEntry> load(NodePosition position) {
+            loads.add(position.getName());
+            String child = position.getName() + "/a";
+            return List.of(
+                new MenuEntry.Node(new NodePosition(child), child, this),
+                new MenuEntry.Leaf(
+                    new LeafPosition(child + "!"), child + "!", a -> 0, new NodePosition("root")));
+          }
+        };
+    MenuStructure menuStructure =
+        new MenuStructureBuilder()
+            .setRawMenuStructure("{\"root\": [\"catalogue\"], \"catalogue\": []}")
+            .setInitialPosition("root")
+            .setLazyNode("catalogue", loader)
+            .setSubtreeCacheSize(1)
+            .build();
+    Position catalogue = menuStructure.getPosition("catalogue");
+
+    Assertions.assertTrue(loads.isEmpty());
+    Assertions.assertTrue(menuStructure.isLinked(catalogue, new NodePosition("catalogue/a")));
+    Position child = menuStructure.getPosition("catalogue/a");
+    Assertions.assertEquals("catalogue/a/a", menuStructure.get(child).getLinks()[0].getName());
+    Assertions.assertEquals(List.of("catalogue", "catalogue/a"), loads);
+
+    Assertions.assertNull(menuStructure.get(child));
+    Assertions.assertEquals(2, menuStructure.get(catalogue).getLinks().length);
+    Assertions.assertEquals(List.of("catalogue", "catalogue/a", "catalogue"), loads);
+  }
+
+  /** The structure generated from {@link AnnotatedMenu} should match its declaration. */
+  @Test
+  void testGeneratedStructure() {
+    MenuStructure menuStructure = AnnotatedMenuStructure.menuStructure();
+    Position root = menuStructure.getPosition("root");
+    Position echo = menuStructure.getPosition("echo");
+
+    Assertions.assertEquals("root", menuStructure.get(null).getName());
+    Assertions.assertTrue(menuStructure.isLinked(root, echo));
+    Assertions.assertFalse(menuStructure.isLinked(root, menuStructure.getPosition("reset")));
+
+    ProcessedInput processedInput =
+        AnnotatedMenuStructure.parameterMatcher().processText("echo stay");
+    Assertions.assertEquals(echo, processedInput.getPosition());
+    Assertions.assertEquals("settings", menuStructure.get(echo).select(processedInput).getName());
+  }
 }
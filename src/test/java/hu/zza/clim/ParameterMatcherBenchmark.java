@@ -0,0 +1,106 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.parameter.MatchingEngine;
+import hu.zza.clim.parameter.Parameter;
+import hu.zza.clim.parameter.ParameterMatcher;
+import hu.zza.clim.parameter.Parameters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Simple benchmark for comparing the {@link MatchingEngine matching engines} of {@link
+ * ParameterMatcher}. The measured leaf has a concrete command and many optional flags. Run it with
+ * {@code gradle benchmark}.
+ */
+public class ParameterMatcherBenchmark {
+  private static final int OPTIONAL_COUNT = 10;
+  private static final int WARMUP_ROUNDS = 20_000;
+  private static final int MEASURED_ROUNDS = 20_000;
+
+  private static final List<String> inputs =
+      List.of(
+          "bench",
+          "bench --flag0 --flag5 --flag9",
+          IntStream.range(0, OPTIONAL_COUNT)
+              .mapToObj(i -> "--flag" + i)
+              .collect(Collectors.joining(" ", "bench ", "")));
+
+  private static volatile Object sink;
+
+  public static void main(String[] args) {
+    new MenuStructureBuilder()
+        .setRawMenuStructure("{\"root\": [\"bench\"]}")
+        .setLeaf("bench", a -> 0, "root")
+        .build();
+
+    System.out.printf("%-16s %-8s %14s%n", "engine", "flags", "ns/op");
+
+    for (var matchingEngine : MatchingEngine.values()) {
+      ParameterMatcher parameterMatcher = buildMatcher(matchingEngine);
+
+      for (String input : inputs) {
+        measure(parameterMatcher, input, WARMUP_ROUNDS);
+      }
+
+      for (String input : inputs) {
+        long nanos = measure(parameterMatcher, input, MEASURED_ROUNDS);
+
+        System.out.printf(
+            "%-16s %-8d %14.1f%n",
+            matchingEngine, input.split(" ").length - 1, (double) nanos / MEASURED_ROUNDS);
+      }
+    }
+  }
+
+  private static ParameterMatcher buildMatcher(MatchingEngine matchingEngine) {
+    List<hu.zza.clim.parameter.ParameterName> parameterNames = new ArrayList<>();
+    List<Parameter> parameters = new ArrayList<>();
+
+    parameterNames.add(ParameterName.COMMAND);
+    parameters.add(Parameters.of("(\\b\\w+\\b)"));
+
+    for (int i = 0; i < OPTIONAL_COUNT; i++) {
+      parameterNames.add(new hu.zza.clim.parameter.ParameterName() {});
+      parameters.add(Parameters.of("(--flag" + i + ")", ""));
+    }
+
+    return new ParameterMatcherBuilder()
+        .setCommandRegex("^(\\w+)\\b")
+        .setMatchingEngine(matchingEngine)
+        .setLeafParameters("bench", " ", parameterNames, parameters)
+        .build();
+  }
+
+  private static long measure(ParameterMatcher parameterMatcher, String input, int rounds) {
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      sink = parameterMatcher.processText(input);
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,800 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.ProcessedInput;
+import hu.zza.clim.parameter.CacheStatistics;
+import hu.zza.clim.parameter.MatchingEngine;
+import hu.zza.clim.parameter.Parameter;
+import hu.zza.clim.parameter.ParameterMatcher;
+import hu.zza.clim.parameter.Parameters;
+import hu.zza.clim.parameter.ProcessingResult;
+import hu.zza.clim.parameter.ProcessingResult.ErrorType;
+import hu.zza.clim.parameter.TokenType;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class ParameterMatcherTest {
+  private static final String wordRegex = "(\\b\\w+\\b)";
+  private static final Parameter wordParameter = Parameters.of(wordRegex);
+  private ParameterMatcherBuilder builder;
+
+  @BeforeEach
+  void resetAll() {
+    builder =
+        new ParameterMatcherBuilder()
+            .setCommandRegex("^(\\w+)\\b")
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE),
+                List.of(wordParameter, wordParameter.with(String::toUpperCase)))
+            .setLeafParameters(
+                "leaf2",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.NAME, ParameterName.VALUE),
+                List.of(wordParameter, wordParameter.with("anonymous"), wordParameter));
+  }
+
+  /** Tests a concrete {@link Parameter} with a {@code parsingOperator}. */
+  @Test
+  void testConcreteParameters() {
+    ProcessedInput processedInput = builder.build().processText("leaf1 something");
+
+    Assertions.assertEquals("leaf1", processedInput.getPosition().getName());
+    Assertions.assertEquals("leaf1", processedInput.getParameter(ParameterName.COMMAND).getValue());
+    Assertions.assertEquals(
+        "SOMETHING", processedInput.getParameter(ParameterName.VALUE).getValue());
+  }
+
+  /**
+   * Tests the evaluation of optional {@link Parameter parameters}: The variant with the most
+   * optionals present should be chosen, the absent ones should return their default value.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   * @param name the expected value (or default) of {@link ParameterName#NAME}
+   * @param value the expected value of {@link ParameterName#VALUE}
+   */
+  @DisplayName("testOptionalParameters")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "VARIANTS, leaf2 john 42, john, 42",
+    "VARIANTS, leaf2 42, anonymous, 42",
+    "OPTIONAL_GROUPS, leaf2 john 42, john, 42",
+    "OPTIONAL_GROUPS, leaf2 42, anonymous, 42",
+    "LINEAR, leaf2 john 42, john, 42",
+    "LINEAR, leaf2 42, anonymous, 42"
+  })
+  void testOptionalParameters(
+      MatchingEngine matchingEngine, String text, String name, String value) {
+    ProcessedInput processedInput =
+        builder.setMatchingEngine(matchingEngine).build().processText(text);
+
+    Assertions.assertEquals(name, processedInput.getParameter(ParameterName.NAME).getOrDefault());
+    Assertions.assertEquals(value, processedInput.getParameter(ParameterName.VALUE).getValue());
+  }
+
+  /**
+   * Tests single-pass processing (without command regex): The command and its {@link Parameter
+   * parameters} should be the same as by the two-stage processing.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   * @param command the expected name of the leaf
+   * @param value the expected value of {@link ParameterName#VALUE}
+   */
+  @DisplayName("testSinglePassProcessing")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "VARIANTS, leaf1 something, leaf1, SOMETHING",
+    "VARIANTS, leaf2 john 42, leaf2, 42",
+    "VARIANTS, leaf2 42, leaf2, 42",
+    "OPTIONAL_GROUPS, leaf1 something, leaf1, SOMETHING",
+    "OPTIONAL_GROUPS, leaf2 john 42, leaf2, 42",
+    "OPTIONAL_GROUPS, leaf2 42, leaf2, 42",
+    "LINEAR, leaf1 something, leaf1, SOMETHING",
+    "LINEAR, leaf2 42, leaf2, 42"
+  })
+  void testSinglePassProcessing(
+      MatchingEngine matchingEngine, String text, String command, String value) {
+    builder.setMatchingEngine(matchingEngine);
+    ProcessedInput expected = builder.build().processText(text);
+    ProcessedInput processedInput = builder.setCommandRegex("").build().processText(text);
+
+    Assertions.assertEquals(command, processedInput.getPosition().getName());
+    Assertions.assertEquals(value, processedInput.getParameter(ParameterName.VALUE).getValue());
+
+    for (var parameterName : ParameterName.values()) {
+      Assertions.assertEquals(
+          expected.getParameter(parameterName).getOrDefault(),
+          processedInput.getParameter(parameterName).getOrDefault());
+    }
+  }
+
+  /**
+   * Single-pass processing should reject unknown commands and prefixes of known ones, and tell them
+   * apart from invalid arguments of a known command.
+   */
+  @DisplayName("testSinglePassInvalidInput")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "leaf 42, UNKNOWN_COMMAND",
+    "leaf11 42, UNKNOWN_COMMAND",
+    "leaf3 42, UNKNOWN_COMMAND",
+    "leaf2, INVALID_ARGUMENTS"
+  })
+  void testSinglePassInvalidInput(String text, ErrorType error) {
+    ParameterMatcher parameterMatcher = builder.setCommandRegex("").build();
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> parameterMatcher.processText(text));
+    Assertions.assertEquals(error, parameterMatcher.processAll(Stream.of(text)).get(0).getError());
+  }
+
+  /** Single-pass processing should find the matching leaf among many. */
+  @Test
+  void testSinglePassManyLeaves() {
+    builder.setCommandRegex("");
+    for (int i = 3; i < 40; i++) {
+      builder.setLeafParameters(
+          "leaf" + i,
+          " ",
+          List.of(ParameterName.COMMAND, ParameterName.VALUE),
+          List.of(wordParameter, wordParameter));
+    }
+    ParameterMatcher parameterMatcher = builder.build();
+
+    for (int i = 1; i < 40; i++) {
+      ProcessedInput processedInput = parameterMatcher.processText("leaf" + i + " value" + i);
+      Assertions.assertEquals("leaf" + i, processedInput.getPosition().getName());
+      Assertions.assertEquals(
+          i == 1 ? "VALUE1" : "value" + i,
+          processedInput.getParameter(ParameterName.VALUE).getValue());
+    }
+  }
+
+  /**
+   * Tests patterns without any concrete {@link Parameter}: Every {@link MatchingEngine} should
+   * find the same values.
+   *
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   * @param name the expected value (or default) of {@link ParameterName#NAME}
+   * @param value the expected value (or default) of {@link ParameterName#VALUE}
+   * @param date the expected value (or default) of {@link ParameterName#DATE}
+   */
+  @DisplayName("testOnlyOptionalParameters")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "leaf1, leaf1, 0, today",
+    "leaf1 42, leaf1, 42, today",
+    "leaf1 2021-06-01, leaf1, 0, 2021-06-01",
+    "leaf1 42 2021-06-01, leaf1, 42, 2021-06-01"
+  })
+  void testOnlyOptionalParameters(String text, String name, String value, String date) {
+    builder.setLeafParameters(
+        "leaf1",
+        " ",
+        List.of(ParameterName.NAME, ParameterName.VALUE, ParameterName.DATE),
+        List.of(
+            wordParameter.with("nobody"),
+            Parameters.of("(\\d+)", "0"),
+            Parameters.of("(\\d{4}-\\d\\d-\\d\\d)", "today")));
+
+    for (var matchingEngine : MatchingEngine.values()) {
+      ProcessedInput processedInput =
+          builder.setMatchingEngine(matchingEngine).build().processText(text);
+
+      Assertions.assertEquals(
+          name, processedInput.getParameter(ParameterName.NAME).getOrDefault());
+      Assertions.assertEquals(
+          value, processedInput.getParameter(ParameterName.VALUE).getOrDefault());
+      Assertions.assertEquals(
+          date, processedInput.getParameter(ParameterName.DATE).getOrDefault());
+    }
+  }
+
+  /**
+   * Tests regex-free token {@link Parameter parameters}: alone with a plain delimiter (processed
+   * without regex), and mixed with a regex {@link Parameter}.
+   *
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   * @param name the expected value (or default) of {@link ParameterName#NAME}
+   * @param value the expected value of {@link ParameterName#VALUE}
+   * @param date the expected value (or default) of {@link ParameterName#DATE}
+   */
+  @DisplayName("testTokenParameters")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "'leaf1,\"John Doe\",-42,1.5', 'John Doe', -42, 1.5",
+    "'leaf1,-42,1.5', nobody, -42, 1.5",
+    "'leaf1,-42', nobody, -42, 0.0",
+    "'leaf1,\"a,b\",7', 'a,b', 7, 0.0"
+  })
+  void testTokenParameters(String text, String name, String value, String date) {
+    List<hu.zza.clim.parameter.ParameterName> parameterNames =
+        List.of(ParameterName.COMMAND, ParameterName.NAME, ParameterName.VALUE, ParameterName.DATE);
+    Parameter command = Parameters.of(TokenType.WORD);
+    Parameter nameParameter = Parameters.of(TokenType.QUOTED).with("nobody");
+    Parameter valueParameter = Parameters.of(TokenType.INTEGER);
+    Parameter dateParameter = Parameters.of(TokenType.DECIMAL).with("0.0");
+
+    builder.setLeafParameters(
+        "leaf1",
+        ",",
+        parameterNames,
+        List.of(command, nameParameter, valueParameter, dateParameter));
+    assertParameterValues(builder.build().processText(text), name, value, date);
+
+    builder.setLeafParameters(
+        "leaf1",
+        ",",
+        parameterNames,
+        List.of(Parameters.of("(\\w+)"), nameParameter, valueParameter, dateParameter));
+    assertParameterValues(builder.build().processText(text), name, value, date);
+  }
+
+  /**
+   * The value of a {@link Parameter} is the first group of its regex, or the whole occurrence if
+   * it has no group, by every {@link MatchingEngine}.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   */
+  @DisplayName("testParameterGroupsByEngines")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({"VARIANTS", "OPTIONAL_GROUPS", "LINEAR"})
+  void testParameterGroupsByEngines(MatchingEngine matchingEngine) {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setMatchingEngine(matchingEngine)
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.NAME, ParameterName.VALUE),
+                List.of(
+                    wordParameter,
+                    Parameters.of("(\\w+)=(\\w+)").with("nobody"),
+                    Parameters.of("\\d+")))
+            .build();
+
+    ProcessedInput processedInput = parameterMatcher.processText("leaf1 name=john 42");
+    Assertions.assertEquals("name", processedInput.getParameter(ParameterName.NAME).getValue());
+    Assertions.assertEquals("42", processedInput.getParameter(ParameterName.VALUE).getValue());
+
+    processedInput = parameterMatcher.processText("leaf1 42");
+    Assertions.assertEquals(
+        "nobody", processedInput.getParameter(ParameterName.NAME).getOrDefault());
+    Assertions.assertEquals("42", processedInput.getParameter(ParameterName.VALUE).getValue());
+  }
+
+  /**
+   * Regex-free token {@link Parameter parameters} should have the same results as their regex
+   * equivalents by every {@link MatchingEngine}, even if an input token fits more optionals.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   */
+  @DisplayName("testTokenParametersByEngines")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "VARIANTS, leaf1 42",
+    "VARIANTS, leaf1 a 42",
+    "VARIANTS, leaf1 42 42",
+    "VARIANTS, leaf1 42 a",
+    "OPTIONAL_GROUPS, leaf1 42",
+    "OPTIONAL_GROUPS, leaf1 42 a",
+    "LINEAR, leaf1 42",
+    "LINEAR, leaf1 42 a"
+  })
+  void testTokenParametersByEngines(MatchingEngine matchingEngine, String text) {
+    List<hu.zza.clim.parameter.ParameterName> parameterNames =
+        List.of(ParameterName.COMMAND, ParameterName.NAME, ParameterName.VALUE, ParameterName.DATE);
+    Parameter nameParameter = Parameters.of(TokenType.WORD).with("nobody");
+    Parameter valueParameter = Parameters.of(TokenType.INTEGER).with("0");
+    Parameter dateParameter = Parameters.of(TokenType.WORD).with("never");
+    builder.setMatchingEngine(matchingEngine);
+
+    builder.setLeafParameters(
+        "leaf1",
+        " ",
+        parameterNames,
+        List.of(Parameters.of(TokenType.WORD), nameParameter, valueParameter, dateParameter));
+    ProcessedInput tokens = builder.build().processText(text);
+
+    builder.setLeafParameters(
+        "leaf1",
+        " ",
+        parameterNames,
+        List.of(Parameters.of("(\\w+)"), nameParameter, valueParameter, dateParameter));
+    ProcessedInput regex = builder.build().processText(text);
+
+    for (var parameterName : parameterNames) {
+      Assertions.assertEquals(
+          regex.getParameter(parameterName).getOrDefault(),
+          tokens.getParameter(parameterName).getOrDefault());
+    }
+  }
+
+  private void assertParameterValues(
+      ProcessedInput processedInput, String name, String value, String date) {
+    Assertions.assertEquals(name, processedInput.getParameter(ParameterName.NAME).getOrDefault());
+    Assertions.assertEquals(value, processedInput.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals(date, processedInput.getParameter(ParameterName.DATE).getOrDefault());
+  }
+
+  /**
+   * Tests regex-free token {@link Parameter parameters} with invalid inputs.
+   *
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   */
+  @DisplayName("testInvalidTokens")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({"'leaf1 4.2'", "'leaf1 -'", "'leaf1 42 '", "'leaf1 \"42'", "'leaf1  42'"})
+  void testInvalidTokens(String text) {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE),
+                List.of(Parameters.of(TokenType.WORD), Parameters.of(TokenType.INTEGER)))
+            .build();
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> parameterMatcher.processText(text));
+  }
+
+  /**
+   * Many optional tokens which cannot fit the input should be rejected quickly: the skipped
+   * combinations lead to the same positions, so the search must not be exponential.
+   */
+  @Test
+  void testManyOptionalTokens() {
+    List<hu.zza.clim.parameter.ParameterName> parameterNames = new ArrayList<>();
+    List<Parameter> parameters = new ArrayList<>();
+    parameterNames.add(ParameterName.COMMAND);
+    parameters.add(Parameters.of(TokenType.WORD));
+
+    for (int i = 0; i < 40; i++) {
+      parameterNames.add(new hu.zza.clim.parameter.ParameterName() {});
+      parameters.add(Parameters.of(TokenType.WORD).with(""));
+    }
+
+    ParameterMatcher parameterMatcher =
+        builder.setLeafParameters("leaf1", " ", parameterNames, parameters).build();
+
+    Assertions.assertTimeoutPreemptively(
+        Duration.ofSeconds(10),
+        () -> {
+          Assertions.assertThrows(
+              IllegalArgumentException.class,
+              () -> parameterMatcher.processText("leaf1" + " a".repeat(41)));
+          ProcessedInput processedInput = parameterMatcher.processText("leaf1" + " a".repeat(20));
+          Assertions.assertEquals(
+              "a", processedInput.getParameter(parameterNames.get(20)).getOrDefault());
+          Assertions.assertEquals(
+              "", processedInput.getParameter(parameterNames.get(21)).getOrDefault());
+        });
+  }
+
+  /**
+   * Tests inputs which do not fit any variant of the {@link Parameter parameters}.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   * @param text the input for {@link ParameterMatcher#processText(String)}
+   */
+  @DisplayName("testInvalidInput")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "VARIANTS, leaf2",
+    "VARIANTS, 'leaf2 a b c'",
+    "VARIANTS, node1 a b",
+    "OPTIONAL_GROUPS, leaf2",
+    "OPTIONAL_GROUPS, 'leaf2 a b c'",
+    "OPTIONAL_GROUPS, node1 a b",
+    "LINEAR, leaf2",
+    "LINEAR, 'leaf2 a b c'"
+  })
+  void testInvalidInput(MatchingEngine matchingEngine, String text) {
+    ParameterMatcher parameterMatcher = builder.setMatchingEngine(matchingEngine).build();
+    Assertions.assertThrows(RuntimeException.class, () -> parameterMatcher.processText(text));
+  }
+
+  /**
+   * One {@link ParameterMatcher} should serve concurrent threads: every thread has to get the
+   * values of its own input.
+   */
+  @Test
+  void testConcurrentProcessing() throws InterruptedException {
+    ParameterMatcher parameterMatcher =
+        builder.setMatchingEngine(MatchingEngine.OPTIONAL_GROUPS).build();
+    List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+
+    for (int t = 0; t < 8; t++) {
+      String name = "thread" + t;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 1_000; i++) {
+                  ProcessedInput processedInput =
+                      parameterMatcher.processText(String.format("leaf2 %s %d", name, i));
+
+                  if (!name.equals(processedInput.getParameter(ParameterName.NAME).getValue())
+                      || !String.valueOf(i)
+                          .equals(processedInput.getParameter(ParameterName.VALUE).getValue())) {
+                    errors.add(name + " " + i);
+                  }
+                }
+              }));
+    }
+
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assertions.assertTrue(errors.isEmpty(), errors.toString());
+  }
+
+  /** Invalid lines should not stop the processing, and the order of lines should be kept. */
+  @Test
+  void testProcessAll() {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE),
+                List.of(wordParameter, Parameters.ofInt(wordRegex)))
+            .build();
+
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      lines.add(String.format("leaf2 name%d %d", i, i));
+    }
+    lines.set(100, "leaf3 42");
+    lines.set(200, "leaf2");
+    lines.set(300, "leaf1 NaN");
+    lines.set(400, "");
+
+    List<ProcessingResult> results = parameterMatcher.processAll(lines.stream());
+
+    Assertions.assertEquals(lines.size(), results.size());
+    Assertions.assertEquals(ErrorType.UNKNOWN_COMMAND, results.get(100).getError());
+    Assertions.assertEquals(ErrorType.INVALID_ARGUMENTS, results.get(200).getError());
+    Assertions.assertEquals(ErrorType.PARSING_FAILED, results.get(300).getError());
+    Assertions.assertEquals(ErrorType.UNKNOWN_COMMAND, results.get(400).getError());
+    Assertions.assertEquals(ProcessedInput.NULL, results.get(300).getProcessedInput());
+
+    for (int i = 0; i < results.size(); i++) {
+      ProcessingResult result = results.get(i);
+      Assertions.assertEquals(i + 1, result.getLineNumber());
+
+      if (i % 100 != 0 || i == 0 || i > 400) {
+        Assertions.assertTrue(result.isSuccessful(), result.getMessage());
+        Assertions.assertEquals(
+            "name" + i, result.getProcessedInput().getParameter(ParameterName.NAME).getValue());
+      }
+    }
+  }
+
+  /** Typed {@link Parameter parameters} should be readable without conversion. */
+  @DisplayName("testTypedParameters")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({
+    "'leaf1 -42 12.5 TRUE value', -42, 12.5, true, VALUE",
+    "'leaf1 +7 .25 false date', 7, 0.25, false, DATE",
+    "'leaf1 0 3 true NAME', 0, 3.0, true, NAME"
+  })
+  void testTypedParameters(
+      String text, int integer, double decimal, boolean flag, ParameterName parameterName) {
+    for (String delimiter : List.of(" ", "\\s+")) {
+      ParameterMatcher parameterMatcher =
+          builder
+              .setLeafParameters(
+                  "leaf1",
+                  delimiter,
+                  List.of(
+                      ParameterName.COMMAND,
+                      ParameterName.VALUE,
+                      ParameterName.NAME,
+                      ParameterName.DATE,
+                      ParameterName.OTHER),
+                  List.of(
+                      wordParameter,
+                      Parameters.ofInt(),
+                      Parameters.ofDouble(),
+                      Parameters.ofBoolean(),
+                      Parameters.ofEnum(ParameterName.class)))
+              .build();
+
+      ProcessedInput processedInput = parameterMatcher.processText(text);
+
+      Assertions.assertEquals(integer, processedInput.getInt(ParameterName.VALUE));
+      Assertions.assertEquals(integer, processedInput.getLong(ParameterName.VALUE));
+      Assertions.assertEquals(decimal, processedInput.getDouble(ParameterName.NAME));
+      Assertions.assertEquals(flag, processedInput.getBoolean(ParameterName.DATE));
+      Assertions.assertEquals(
+          parameterName, processedInput.getEnum(ParameterName.OTHER, ParameterName.class));
+      Assertions.assertEquals(
+          String.valueOf(integer), processedInput.getParameter(ParameterName.VALUE).getValue());
+    }
+  }
+
+  /**
+   * An invalid typed value should be reported with the name of its {@link Parameter} by every
+   * engine, even if the input looks like a format string.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   */
+  @DisplayName("testInvalidTypedValue")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({"VARIANTS", "OPTIONAL_GROUPS", "LINEAR"})
+  void testInvalidTypedValue(MatchingEngine matchingEngine) {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE, ParameterName.DATE),
+                List.of(
+                    wordParameter,
+                    Parameters.ofBoolean("(\\S+)"),
+                    Parameters.ofInt("(\\d+)").with("0")))
+            .setMatchingEngine(matchingEngine)
+            .build();
+
+    IllegalArgumentException exception =
+        Assertions.assertThrows(
+            IllegalArgumentException.class, () -> parameterMatcher.processText("leaf1 50%s%n"));
+    Assertions.assertTrue(exception.getMessage().contains("'VALUE'"), exception.getMessage());
+    Assertions.assertTrue(exception.getMessage().contains("'50%s%n'"), exception.getMessage());
+  }
+
+  /**
+   * A capturing group repeated only by empty iterations should stay unset like in {@link
+   * java.util.regex.Pattern}, so the default value is used by every engine.
+   *
+   * @param matchingEngine the {@link MatchingEngine} of the {@link ParameterMatcher}
+   */
+  @DisplayName("testEmptyIterationCapture")
+  @ParameterizedTest(name = "{displayName} [{index}] {arguments}")
+  @CsvSource({"VARIANTS", "OPTIONAL_GROUPS", "LINEAR"})
+  void testEmptyIterationCapture(MatchingEngine matchingEngine) {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE, ParameterName.NAME),
+                List.of(
+                    wordParameter,
+                    Parameters.of("(\\b)*\\w+").with("unset"),
+                    Parameters.of("(?:(\\b))*\\w+").with("unset")))
+            .setMatchingEngine(matchingEngine)
+            .build();
+
+    ProcessedInput processedInput = parameterMatcher.processText("leaf1 value name");
+    Assertions.assertEquals(
+        "unset", processedInput.getParameter(ParameterName.VALUE).getOrDefault());
+    Assertions.assertEquals("", processedInput.getParameter(ParameterName.NAME).getOrDefault());
+  }
+
+  /** Typed optional {@link Parameter parameters} should parse their default values. */
+  @Test
+  void testTypedDefaultValues() {
+    ParameterMatcher parameterMatcher =
+        builder
+            .setLeafParameters(
+                "leaf1",
+                " ",
+                List.of(ParameterName.COMMAND, ParameterName.VALUE),
+                List.of(wordParameter, Parameters.ofLong().with("9000000000")))
+            .build();
+
+    Assertions.assertEquals(
+        9_000_000_000L, parameterMatcher.processText("leaf1").getLong(ParameterName.VALUE));
+    Assertions.assertEquals(
+        -1L, parameterMatcher.processText("leaf1 -1").getLong(ParameterName.VALUE));
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> parameterMatcher.processText("leaf1 maybe"));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> parameterMatcher.processText("leaf1").getBoolean(ParameterName.VALUE));
+  }
+
+  /** A reused buffer can be processed, and the results should not depend on it afterwards. */
+  @Test
+  void testCharSequenceInput() {
+    ParameterMatcher parameterMatcher = builder.build();
+    StringBuilder lineBuffer = new StringBuilder("leaf2 name value");
+
+    ProcessedInput processedInput = parameterMatcher.processText(lineBuffer);
+    lineBuffer.setLength(0);
+    lineBuffer.append("leaf1 other");
+    ProcessedInput otherProcessedInput = parameterMatcher.processText(lineBuffer);
+    ProcessedInput bufferProcessedInput =
+        parameterMatcher.processText(CharBuffer.wrap("xxleaf1 value").position(2));
+
+    Assertions.assertEquals("name", processedInput.getParameter(ParameterName.NAME).getValue());
+    Assertions.assertEquals("value", processedInput.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals(
+        "OTHER", otherProcessedInput.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals(
+        "VALUE", bufferProcessedInput.getParameter(ParameterName.VALUE).getValue());
+  }
+
+  /**
+   * The {@code parsingOperator} should be applied only when the value is read, and the {@code
+   * defaultValueSupplier} once per processed input (or once per matcher with caching).
+   */
+  @Test
+  void testLazyParsingAndDefaults() {
+    AtomicInteger parsingCount = new AtomicInteger();
+    AtomicInteger supplierCount = new AtomicInteger();
+    builder.setLeafParameters(
+        "leaf2",
+        " ",
+        List.of(ParameterName.COMMAND, ParameterName.NAME, ParameterName.VALUE),
+        List.of(
+            wordParameter,
+            wordParameter.with(() -> "default" + supplierCount.incrementAndGet()),
+            wordParameter.with(e -> e + parsingCount.incrementAndGet())));
+    ParameterMatcher parameterMatcher = builder.build();
+
+    ProcessedInput processedInput = parameterMatcher.processText("leaf2 value");
+    Assertions.assertEquals(0, parsingCount.get());
+    Assertions.assertEquals("value1", processedInput.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals("value1", processedInput.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals(
+        "default1", processedInput.getParameter(ParameterName.NAME).getOrDefault());
+    Assertions.assertEquals(
+        "default1", processedInput.getParameter(ParameterName.NAME).getOrDefault());
+    processedInput = parameterMatcher.processText("leaf2 other");
+    Assertions.assertEquals(
+        "default2", processedInput.getParameter(ParameterName.NAME).getOrDefault());
+
+    ParameterMatcher cachingMatcher = builder.setCachingDefaults(true).build();
+
+    for (String text : List.of("leaf2 value", "leaf2 other")) {
+      Assertions.assertEquals(
+          "default3",
+          cachingMatcher.processText(text).getParameter(ParameterName.NAME).getOrDefault());
+    }
+  }
+
+  /** Repeated inputs should get the cached result, and the least recently used one is evicted. */
+  @Test
+  void testResultCache() {
+    ParameterMatcher parameterMatcher = builder.setCacheSize(2).build();
+
+    ProcessedInput processedInput = parameterMatcher.processText("leaf1 first");
+    Assertions.assertSame(processedInput, parameterMatcher.processText("leaf1 first"));
+    Assertions.assertFalse(processedInput.isReusable());
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> parameterMatcher.processText("leaf3 first"));
+
+    parameterMatcher.processText("leaf1 second");
+    parameterMatcher.processText("leaf1 third");
+    ProcessedInput target = parameterMatcher.processText("leaf1 third", ProcessedInput.reusable());
+    Assertions.assertEquals("THIRD", target.getParameter(ParameterName.VALUE).getValue());
+
+    CacheStatistics statistics = parameterMatcher.getCacheStatistics();
+    Assertions.assertEquals(2, statistics.getHitCount());
+    Assertions.assertEquals(4, statistics.getMissCount());
+    Assertions.assertEquals(1, statistics.getEvictionCount());
+    Assertions.assertEquals(2, statistics.getSize());
+    Assertions.assertEquals(2, statistics.getMaximumSize());
+  }
+
+  /** A reusable target should be overwritten by every input, even by a different leaf. */
+  @Test
+  void testReusableProcessedInput() {
+    ParameterMatcher parameterMatcher = builder.build();
+    ProcessedInput target = ProcessedInput.reusable();
+
+    Assertions.assertSame(target, parameterMatcher.processText("leaf2 name value", target));
+    Assertions.assertEquals("name", target.getParameter(ParameterName.NAME).getValue());
+    Assertions.assertEquals("value", target.getParameter(ParameterName.VALUE).getValue());
+
+    parameterMatcher.processText("leaf1 other", target);
+    Assertions.assertEquals("leaf1", target.getPosition().getName());
+    Assertions.assertFalse(target.containsParameter(ParameterName.NAME));
+    Assertions.assertEquals(Parameter.NULL, target.getParameter(ParameterName.NAME));
+    Assertions.assertEquals("OTHER", target.getParameter(ParameterName.VALUE).getValue());
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> parameterMatcher.processText("leaf1", ProcessedInput.NULL));
+
+    ProcessedInput result = parameterMatcher.processText("leaf1 kept");
+    Assertions.assertFalse(result.isReusable());
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> parameterMatcher.processText("leaf1", result));
+    Assertions.assertEquals("KEPT", result.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertThrows(IllegalStateException.class, result::getBuffer);
+
+    ProcessedInput copy = target.copy();
+    parameterMatcher.processText("leaf2 name value", target);
+    Assertions.assertEquals("leaf1", copy.getPosition().getName());
+    Assertions.assertEquals("OTHER", copy.getParameter(ParameterName.VALUE).getValue());
+    Assertions.assertEquals("leaf1", target.copyFrom(copy).getPosition().getName());
+  }
+
+  /**
+   * A pattern with catastrophic backtracking should be matched in linear time by {@link
+   * MatchingEngine#LINEAR}, and aborted by the step limit otherwise.
+   */
+  @Test
+  void testCatastrophicBacktracking() {
+    builder.setLeafParameters(
+        "leaf1",
+        " ",
+        List.of(ParameterName.COMMAND, ParameterName.VALUE),
+        List.of(wordParameter, Parameters.of("((?:a{1,3}){1,20})$")));
+    String hostileInput = "leaf1 " + "a".repeat(30) + "!";
+
+    ParameterMatcher linearMatcher = builder.setMatchingEngine(MatchingEngine.LINEAR).build();
+    Assertions.assertTimeoutPreemptively(
+        Duration.ofSeconds(10),
+        () ->
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> linearMatcher.processText("leaf1 " + "a".repeat(100_000) + "!")));
+    Assertions.assertEquals(
+        "aaa",
+        linearMatcher.processText("leaf1 aaa").getParameter(ParameterName.VALUE).getValue());
+
+    ParameterMatcher limitedMatcher =
+        builder.setMatchingEngine(MatchingEngine.VARIANTS).setStepLimit(1_000_000).build();
+    Assertions.assertTimeoutPreemptively(
+        Duration.ofSeconds(10),
+        () ->
+            Assertions.assertThrows(
+                ClimException.class, () -> limitedMatcher.processText(hostileInput)));
+    Assertions.assertEquals(
+        ErrorType.STEP_LIMIT_EXCEEDED,
+        limitedMatcher.processAll(Stream.of(hostileInput)).get(0).getError());
+  }
+
+  /** The built {@link ParameterMatcher} should not be affected by the later use of the builder. */
+  @Test
+  void testBuiltMatcherIsIndependentOfBuilder() {
+    ParameterMatcher parameterMatcher = builder.build();
+    builder.clear();
+
+    Assertions.assertDoesNotThrow(() -> parameterMatcher.processText("leaf2 42"));
+  }
+}
@@ -25,5 +25,6 @@ package hu.zza.clim;public enum ParameterName implements hu.zza.clim.parameter.P
   COMMAND,
   NAME,
   VALUE,
-  DATE
+  DATE,
+  OTHER
 }
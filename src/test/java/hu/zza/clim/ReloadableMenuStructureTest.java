@@ -0,0 +1,144 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim;
+
+import hu.zza.clim.menu.MenuStructure;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReloadableMenuStructureTest {
+  private static final String FIRST = "{\"root\": [\"a\"], \"a\": [\"b\"], \"b\": [\"root\"]}";
+  private static final String SECOND = "{\"root\": [\"b\"], \"b\": [\"root\", \"c\"], \"c\": []}";
+  private static final String THIRD = "{\"root\": [\"c\"], \"c\": [\"root\"]}";
+
+  @TempDir Path directory;
+
+  private final List<Exception> failures = new CopyOnWriteArrayList<>();
+
+  private ReloadableMenuStructure open(String rawMenuStructure) throws IOException {
+    Path path = directory.resolve("menu.json");
+    Files.writeString(path, rawMenuStructure);
+    return new ReloadableMenuStructure(
+        path, new MenuStructureBuilder().setInitialPosition("root"), failures::add);
+  }
+
+  private void write(String rawMenuStructure) throws IOException {
+    Files.writeString(directory.resolve("menu.json"), rawMenuStructure);
+  }
+
+  /**
+   * A reload should publish the new structure, and a session should keep its position and history
+   * by name. (The watching is stopped first, so only the explicit reloads take effect.)
+   */
+  @Test
+  void testReload() throws IOException {
+    ReloadableMenuStructure reloadable = open(FIRST);
+    reloadable.close();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    MenuSession session =
+        new MenuBuilder()
+            .setMenuStructure(reloadable)
+            .setClimOptions(UserInterface.NOMINAL, HeaderStyle.HISTORY)
+            .buildDefinition()
+            .newSession(new PrintStream(output, true, StandardCharsets.UTF_8));
+    session.chooseOption("a");
+    session.chooseOption("b");
+    MenuStructure first = reloadable.get();
+
+    write(SECOND);
+    Assertions.assertTrue(reloadable.reload());
+    Assertions.assertNotSame(first, reloadable.get());
+    Assertions.assertEquals("b", session.getPosition());
+    Assertions.assertEquals(List.of("root", "c"), session.getOptions());
+    session.listOptions();
+    Assertions.assertTrue(output.toString(StandardCharsets.UTF_8).contains("root > [ b ]"));
+
+    write(THIRD);
+    Assertions.assertTrue(reloadable.reload());
+    Assertions.assertEquals("root", session.getPosition());
+    Assertions.assertEquals(List.of("c"), session.getOptions());
+    Assertions.assertTrue(failures.isEmpty());
+  }
+
+  /** A failed rebuild should keep the previous structure, and pass the exception to the handler. */
+  @Test
+  void testFailedReload() throws IOException {
+    ReloadableMenuStructure reloadable = open(FIRST);
+    reloadable.close();
+    MenuStructure first = reloadable.get();
+
+    write("{\"root\": [");
+    Assertions.assertFalse(reloadable.reload());
+    Assertions.assertSame(first, reloadable.get());
+    Assertions.assertEquals(1, failures.size());
+
+    Files.delete(directory.resolve("menu.json"));
+    Assertions.assertFalse(reloadable.reload());
+    Assertions.assertSame(first, reloadable.get());
+    Assertions.assertTrue(failures.get(1) instanceof IOException);
+  }
+
+  /**
+   * A change of the file should be picked up by the watcher, even after a failure handler has
+   * thrown an exception.
+   */
+  @Test
+  void testWatch() throws IOException {
+    Path path = directory.resolve("menu.json");
+    Files.writeString(path, FIRST);
+
+    try (ReloadableMenuStructure reloadable =
+        new ReloadableMenuStructure(
+            path,
+            new MenuStructureBuilder().setInitialPosition("root"),
+            e -> {
+              failures.add(e);
+              throw new IllegalStateException(e);
+            })) {
+      Assertions.assertTimeoutPreemptively(
+          Duration.ofSeconds(30),
+          () -> {
+            write("{\"root\": [");
+            while (failures.isEmpty()) {
+              Thread.sleep(10);
+            }
+
+            write(THIRD);
+            while (reloadable.get().getPosition("c") == null) {
+              Thread.sleep(10);
+            }
+          });
+    }
+  }
+}
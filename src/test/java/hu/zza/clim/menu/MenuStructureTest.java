@@ -0,0 +1,78 @@
+/*
+ *
+ * clim  //  Command Line Interface Menu
+ *       //  https://git.zza.hu/clim
+ *
+ * Copyright (C) 2020-2021 Szabó László András // hu-zza
+ *
+ * This file is part of clim.
+ *
+ * clim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * clim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package hu.zza.clim.menu;
+
+import hu.zza.clim.MenuStructureBuilder;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MenuStructureTest {
+
+  /** Routes should be the shortest ones through nodes, and never pass leaves. */
+  @Test
+  void testRoutes() {
+    MenuStructure menuStructure =
+        new MenuStructureBuilder()
+            .setRawMenuStructure(
+                "{\"root\": [\"a\", {\"b\": [\"c\"]}], \"a\": [\"b\", \"leaf\"], \"c\": []}")
+            .setInitialPosition("root")
+            .setLeaf("leaf", a -> 0, "c")
+            .build();
+    Position root = menuStructure.getPosition("root");
+    Position c = menuStructure.getPosition("c");
+
+    Assertions.assertArrayEquals(
+        new Position[] {menuStructure.getPosition("b"), c}, menuStructure.getRoute(root, c));
+    Assertions.assertEquals(0, menuStructure.getRoute(c, c).length);
+    Assertions.assertNull(menuStructure.getRoute(c, root));
+  }
+
+  /** Search should tolerate typos, rank the containing names first and return their paths. */
+  @Test
+  void testSearch() {
+    MenuStructure menuStructure =
+        new MenuStructureBuilder()
+            .setRawMenuStructure(
+                "{\"root\": [{\"settings\": [\"network settings\", \"display\"]}],"
+                    + " \"network settings\": [], \"display\": []}")
+            .setInitialPosition("root")
+            .build();
+
+    List<SearchHit> hits = menuStructure.search("setings", 5);
+    Assertions.assertEquals(2, hits.size());
+    Assertions.assertEquals("settings", hits.get(0).getPosition().getName());
+    Assertions.assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    double bestScore = hits.get(0).getScore();
+
+    hits = menuStructure.search("Network", 1);
+    Assertions.assertEquals(1, hits.size());
+    Assertions.assertEquals(
+        List.of("root", "settings", "network settings"),
+        hits.get(0).getPath().stream().map(Position::getName).collect(Collectors.toList()));
+    Assertions.assertTrue(menuStructure.search("xyz", 5).isEmpty());
+    Assertions.assertEquals(bestScore, menuStructure.search("setings", 5).get(0).getScore());
+  }
+}